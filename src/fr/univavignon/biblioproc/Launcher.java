@@ -21,16 +21,31 @@ package fr.univavignon.biblioproc;
  */
 
 import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
 
 import fr.univavignon.biblioproc.data.biblio.Article;
 import fr.univavignon.biblioproc.data.biblio.Author;
 import fr.univavignon.biblioproc.data.biblio.Corpus;
+import fr.univavignon.biblioproc.data.biblio.GraphType;
 import fr.univavignon.biblioproc.data.biblio.SourceType;
+import fr.univavignon.biblioproc.data.graph.GexfGraphExporter;
 import fr.univavignon.biblioproc.data.graph.Graph;
+import fr.univavignon.biblioproc.data.graph.GraphExporter;
+import fr.univavignon.biblioproc.data.graph.MatrixMarketGraphExporter;
+import fr.univavignon.biblioproc.data.graph.PajekGraphExporter;
+import fr.univavignon.biblioproc.data.graph.TsvGraphExporter;
+import fr.univavignon.biblioproc.inout.GraphPipeline;
 import fr.univavignon.biblioproc.inout.IsiFileHandler;
 import fr.univavignon.biblioproc.inout.JabrefFileHandler;
 import fr.univavignon.biblioproc.tools.file.FileNames;
 
+import fr.univavignon.tools.file.FileTools;
 import fr.univavignon.tools.log.HierarchicalLogger;
 import fr.univavignon.tools.log.HierarchicalLoggerManager;
 
@@ -41,11 +56,47 @@ import fr.univavignon.tools.log.HierarchicalLoggerManager;
  */
 public class Launcher
 {	
+	/////////////////////////////////////////////////////////////////
+	// OPTIONS		/////////////////////////////////////////////////
+	/////////////////////////////////////////////////////////////////
+	/** Option enabling the incremental mode: only the entries modified since the previous run are processed */
+	private static final String OPT_INCREMENTAL = "-incremental";
+	/** Option enabling the collection of the unresolved ISI records/references, instead of stopping at the first one */
+	private static final String OPT_COLLECT = "-collect";
+	/** Option converting the graphs recorded during a previous run to the other formats, without processing the corpus */
+	private static final String OPT_CONVERT = "-convert";
+	
+	/**
+	 * Checks whether the specified option appears among
+	 * the command-line arguments.
+	 * 
+	 * @param args
+	 * 		Command-line arguments.
+	 * @param option
+	 * 		Option of interest.
+	 * @return
+	 * 		{@code true} iff the option was specified.
+	 */
+	private static boolean hasOption(String[] args, String option)
+	{	boolean result = false;
+		for(String arg: args)
+			result = result || arg.equalsIgnoreCase(option);
+		return result;
+	}
+	
+	/////////////////////////////////////////////////////////////////
+	// MAIN			/////////////////////////////////////////////////
+	/////////////////////////////////////////////////////////////////
 	/**
 	 * Main method, used to test the rest of the software.
 	 * 
 	 * @param args
-	 * 		Not used.
+	 * 		Options of the process: {@value #OPT_INCREMENTAL} reuses
+	 * 		the entries and resolutions of the previous run, and {@value #OPT_COLLECT}
+	 * 		lists all the unresolved ISI references at once instead of stopping at
+	 * 		the first one (both disabled by default). With {@value #OPT_CONVERT}, 
+	 * 		the process only converts the graphs of the previous run (see
+	 * 		{@link #convertGraphs(int)}).
 	 * 
 	 * @throws Exception
 	 * 		Whatever exception occurred.
@@ -53,68 +104,132 @@ public class Launcher
 	public static void main(String[] args) throws Exception
 	{	logger.log("Starting the process");
 		logger.increaseOffset();
+		int threadNumber = Runtime.getRuntime().availableProcessors();
 		
-		// first load the jabref file
-		JabrefFileHandler jfh = new JabrefFileHandler();
-//		String path = FileNames.FI_BIBTEX_STRUCT_BAL;
-		String path = FileNames.FI_BIBTEX_CHARNETS;
-		boolean updateGroups = false;
-		jfh.loadJabRefFile(path, updateGroups);
+		// only convert the graphs of the previous run (opt-in)
+		if(hasOption(args, OPT_CONVERT))
+			convertGraphs(threadNumber);
+		// build the corpus and extract the graphs
+		else
+			processCorpus(args, threadNumber);
 		
-		// then the ISI file
-		IsiFileHandler ifh = new IsiFileHandler(jfh.corpus);
-		path = FileNames.FI_ISI_ALL_CHARNETS;
-		ifh.loadIsiFile(path);
-		Corpus corpus = ifh.corpus;
+		logger.decreaseOffset();
+		logger.log("All done");
+	}
+	
+	/**
+	 * Builds the corpus (or retrieves its snapshot), then extracts
+	 * and records its graphs.
+	 * 
+	 * @param args
+	 * 		Options of the process (cf. {@link #main(String[])}).
+	 * @param threadNumber
+	 * 		Number of threads used to process the corpus.
+	 * 
+	 * @throws Exception
+	 * 		Whatever exception occurred.
+	 */
+	private static void processCorpus(String[] args, int threadNumber) throws Exception
+	{	String bibPath = FileNames.FI_BIBTEX_CHARNETS;
+//		String bibPath = FileNames.FI_BIBTEX_STRUCT_BAL;
+		String isiPath = FileNames.FI_ISI_ALL_CHARNETS;
+		
+		// try to reuse the corpus built during the previous run
+		File snapshot = new File(FileNames.FI_CORPUS_SNAPSHOT);
+		Corpus corpus = Corpus.readFromBinary(snapshot, hashInputs(bibPath, isiPath));
+		if(corpus!=null)
+			logger.log("Corpus retrieved from snapshot "+snapshot+" (same inputs and build)");
+		else
+		{	// only the entries/records modified since the previous run are processed (opt-in)
+			boolean incremental = hasOption(args, OPT_INCREMENTAL);
+			
+			// first load the jabref file
+			JabrefFileHandler jfh = new JabrefFileHandler();
+			jfh.setThreadNumber(threadNumber);
+			jfh.setIncremental(incremental);
+			boolean updateGroups = false;
+			jfh.loadJabRefFile(bibPath, updateGroups);
+			
+			// then the ISI file
+			IsiFileHandler ifh = new IsiFileHandler(jfh.corpus);
+			ifh.setThreadNumber(threadNumber);
+			if(incremental)
+				ifh.setIncremental(jfh.getReusedKeys());
+			ifh.setCollectProblems(hasOption(args, OPT_COLLECT)); // list all the unresolved references at once (opt-in)
+			ifh.loadIsiFile(isiPath);
+			corpus = ifh.corpus;
+			
+			// record the snapshot (the key is computed again, as the short names journal may have changed)
+			logger.log("Recording the corpus snapshot "+snapshot);
+			corpus.writeToBinary(snapshot, hashInputs(bibPath, isiPath));
+		}
 		
 //		Corpus corpus = buildFakeCorpus();
 		
 		// extract and record the networks
-		{	// authorship graph
-			logger.log("Extracting authorship graph");
-			Graph authorshipGraph = corpus.buildAuthorshipGraph();
-			File authorshipFile = new File(FileNames.FO_OUTPUT+File.separator+"authorship.graphml");
-			authorshipGraph.writeToXml(authorshipFile);
+		Set<GraphType> types = EnumSet.allOf(GraphType.class);
+		corpus.setThreadNumber(threadNumber);
+		if(threadNumber>1)
+		{	// several graphs processed concurrently
+			GraphPipeline pipeline = new GraphPipeline(corpus, threadNumber);
+			pipeline.process(types, FileNames.FO_OUTPUT);
 		}
-		{	// article citation graph
-			logger.log("Extracting article citation graph");
-			Graph articleCitationGraph = corpus.buildArticleCitationGraph();
-			File articleCitationFile = new File(FileNames.FO_OUTPUT+File.separator+"article_citation.graphml");
-			articleCitationGraph.writeToXml(articleCitationFile);
+		else
+		{	// all graphs extracted during the same pass
+			logger.log("Extracting all the graphs in a single pass");
+			Map<GraphType,Graph> graphs = corpus.buildGraphs(types);
+			for(Entry<GraphType,Graph> entry: graphs.entrySet())
+			{	GraphType type = entry.getKey();
+				Graph graph = entry.getValue();
+				logger.log("Recording the "+graph.getName());
+				File file = new File(FileNames.FO_OUTPUT+File.separator+type.getFileName()+FileNames.EX_GRAPHML);
+				graph.writeToXml(file);
+			}
 		}
-		{	// author citation graph
-			logger.log("Extracting author citation graph");
-			Graph authorCitationGraph = corpus.buildAuthorCitationGraph();
-			File authorCitationFile = new File(FileNames.FO_OUTPUT+File.separator+"author_citation.graphml");
-			authorCitationGraph.writeToXml(authorCitationFile);
-		}
-		{	// article coauthorship graph
-			logger.log("Extracting article coauthorship graph");
-			Graph articleCoauthorshipGraph = corpus.buildArticleCoauthorshipGraph();
-			File articleCoauthorshipFile = new File(FileNames.FO_OUTPUT+File.separator+"article_coauthorship.graphml");
-			articleCoauthorshipGraph.writeToXml(articleCoauthorshipFile);
-		}
-		{	// author coauthorship graph
-			logger.log("Extracting author coauthorship graph");
-			Graph authorCoauthorshipGraph = corpus.buildAuthorCoauthorshipGraph();
-			File authorCoauthorshipFile = new File(FileNames.FO_OUTPUT+File.separator+"author_coauthorship.graphml");
-			authorCoauthorshipGraph.writeToXml(authorCoauthorshipFile);
-		}
-		{	// article cociting graph
-			logger.log("Extracting article cociting graph");
-			Graph articleCocitingGraph = corpus.buildArticleCocitingGraph();
-			File articleCocitingFile = new File(FileNames.FO_OUTPUT+File.separator+"article_cociting.graphml");
-			articleCocitingGraph.writeToXml(articleCocitingFile);
-		}
-		{	// article cocited graph
-			logger.log("Extracting article cocited graph");
-			Graph articleCocitedGraph = corpus.buildArticleCocitedGraph();
-			File articleCocitedFile = new File(FileNames.FO_OUTPUT+File.separator+"article_cocited.graphml");
-			articleCocitedGraph.writeToXml(articleCocitedFile);
-		}
-		
-		logger.decreaseOffset();
-		logger.log("All done");
+
+	}
+	
+	/**
+	 * Converts the graphs recorded in the output folder during a previous
+	 * run to the edge list, Pajek, GEXF and Matrix Market formats, without
+	 * processing the corpus again. The graphs are also cached in the binary 
+	 * format, so that the Graphml files are parsed only once.
+	 * 
+	 * @param threadNumber
+	 * 		Number of threads used to convert the graphs.
+	 * 
+	 * @throws IOException
+	 * 		Problem while reading or recording a graph.
+	 */
+	private static void convertGraphs(int threadNumber) throws IOException
+	{	List<GraphExporter> exporters = Arrays.asList(
+			new TsvGraphExporter(), new PajekGraphExporter(),
+			new GexfGraphExporter(), new MatrixMarketGraphExporter());
+		GraphPipeline pipeline = new GraphPipeline(threadNumber);
+		pipeline.convert(EnumSet.allOf(GraphType.class), FileNames.FO_OUTPUT, exporters, false);
+	}
+	
+	/**
+	 * Computes the key identifying the inputs of the corpus, i.e.
+	 * the JabRef and ISI files, as well as the auxiliary files
+	 * used when processing the ISI references.
+	 * 
+	 * @param bibPath
+	 * 		Path of the JabRef file.
+	 * @param isiPath
+	 * 		Path of the ISI file.
+	 * @return
+	 * 		Key representing the current state of the input files.
+	 * 
+	 * @throws IOException
+	 * 		Problem while reading the files.
+	 */
+	private static String hashInputs(String bibPath, String isiPath) throws IOException
+	{	String result = FileTools.hashFiles(
+			bibPath, isiPath, 
+			FileNames.FI_ISI_NAMES, FileNames.FI_ISI_NAMES_JOURNAL, 
+			FileNames.FI_ISI_FIXES, FileNames.FI_ISI_IGNORED, FileNames.FI_ISI_COMPLETED);
+		return result;
 	}
 	
 	/////////////////////////////////////////////////////////////////
@@ -180,17 +295,10 @@ public class Launcher
 		result.addArticle(article4);
 		
 		// connect the articles
-		{	article2.citedArticles.add(article1);
-			article1.citingArticles.add(article2);
-		}
-		{	article3.citedArticles.add(article1);
-			article1.citingArticles.add(article3);
-		}
-		{	article4.citedArticles.add(article1);
-			article1.citingArticles.add(article4);
-			article4.citedArticles.add(article2);
-			article2.citingArticles.add(article4);
-		}
+		result.addCitation(article2, article1);
+		result.addCitation(article3, article1);
+		result.addCitation(article4, article1);
+		result.addCitation(article4, article2);
 		
 		return result;
 	}
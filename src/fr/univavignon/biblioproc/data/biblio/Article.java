@@ -22,10 +22,12 @@ package fr.univavignon.biblioproc.data.biblio;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
-import java.util.Set;
-import java.util.TreeSet;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
 
 import fr.univavignon.biblioproc.data.graph.Graph;
 import fr.univavignon.biblioproc.data.graph.Node;
@@ -38,7 +40,8 @@ import fr.univavignon.biblioproc.tools.string.StringTools;
  * from a Bibtex file, or a ISI (Endnote) file. 
  * <br/>
  * This class is also able to represent additional information, 
- * such as various corpus-wise stats and cited/citing papers.  
+ * such as various corpus-wise stats. Its cited/citing papers
+ * are stored by its {@link Corpus}.  
  */
 public class Article implements Comparable<Article>
 {	
@@ -151,6 +154,20 @@ public class Article implements Comparable<Article>
 		normTitle = StringTools.normalize(this.title);
 	}
 	
+	/**
+	 * Restores the title and its normalized version, as
+	 * previously recorded, without normalizing it again.
+	 * 
+	 * @param title
+	 * 		Title of this article.
+	 * @param normTitle
+	 * 		Normalized version of the title.
+	 */
+	void restoreTitle(String title, String normTitle)
+	{	this.title = title;
+		this.normTitle = normTitle;
+	}
+	
 	/////////////////////////////////////////////////////////////////
 	// SOURCE			/////////////////////////////////////////////
 	/////////////////////////////////////////////////////////////////
@@ -205,30 +222,30 @@ public class Article implements Comparable<Article>
 	 */
 	public void setSource(SourceType sourceType, String sourceName)
 	{	this.sourceType = sourceType;
-		sourceName = sourceName.trim();
+		sourceName = internValue(sourceName.trim());
 		this.sourceName = sourceName;
 		switch(sourceType)
 		{	case BOOK:
 			case COLLECTION:
-				publisher = sourceName;
+				setField(ArticleField.PUBLISHER, sourceName);
 				break;
 			case IN_BOOK:
 			case IN_COLLECTION:
 			case IN_PROCEEDINGS:
-				booktitle = sourceName;
+				setField(ArticleField.BOOKTITLE, sourceName);
 				break;
 			case ELECTRONIC:
-				organization = sourceName;
+				setField(ArticleField.ORGANIZATION, sourceName);
 				break;
 			case ARTICLE:
-				journal = sourceName;
+				setField(ArticleField.JOURNAL, sourceName);
 				break;
 			case TECH_REPORT:
-				institution = sourceName;
+				setField(ArticleField.INSTITUTION, sourceName);
 				break;
 			case THESIS_MSC:
 			case THESIS_PHD:
-				school = sourceName;
+				setField(ArticleField.SCHOOL, sourceName);
 				break;
 		}
 		
@@ -256,16 +273,27 @@ public class Article implements Comparable<Article>
 			}
 		}
 		normSourceName = normSourceName.replaceAll("[^a-zA-Z0-9]", "");
-		normSourceName = normSourceName.trim();
-if(normSourceName.equals("ieeeinternationalconferenceonmultimediaandexpo"))
-	System.out.print("");
+		normSourceName = internValue(normSourceName.trim());
 	}
 	
-	/////////////////////////////////////////////////////////////////
-	// JOURNAL			/////////////////////////////////////////////
-	/////////////////////////////////////////////////////////////////
-	/** Journal publishing this article */
-	public String journal = null;
+	/**
+	 * Restores the source of this article and its normalized name,
+	 * as previously recorded, without normalizing it again. Unlike
+	 * {@link #setSource(SourceType, String)}, the other fields 
+	 * (journal, publisher, etc.) are not modified.
+	 * 
+	 * @param sourceType
+	 * 		Type of source for this article.
+	 * @param sourceName
+	 * 		Name of the article source.
+	 * @param normSourceName
+	 * 		Normalized name of the article source.
+	 */
+	void restoreSource(SourceType sourceType, String sourceName, String normSourceName)
+	{	this.sourceType = sourceType;
+		this.sourceName = internValue(sourceName);
+		this.normSourceName = internValue(normSourceName);
+	}
 	
 	/////////////////////////////////////////////////////////////////
 	// VOLUME			/////////////////////////////////////////////
@@ -294,146 +322,114 @@ if(normSourceName.equals("ieeeinternationalconferenceonmultimediaandexpo"))
 	/////////////////////////////////////////////////////////////////
 	// DOI				/////////////////////////////////////////////
 	/////////////////////////////////////////////////////////////////
-	/** Digital object identifier of this article */
+	/** Digital object identifier of this article (once the article is in a {@link Corpus}, use {@link Corpus#updateArticleDoi} to change it) */
 	public String doi = null;
 	
 	/////////////////////////////////////////////////////////////////
-	// CITED ARTICLES	/////////////////////////////////////////////
-	/////////////////////////////////////////////////////////////////
-	/** List of articles cited by this article */
-	public Set<Article> citedArticles = new TreeSet<Article>();
-	
-	/////////////////////////////////////////////////////////////////
-	// CITING ARTICLES	/////////////////////////////////////////////
-	/////////////////////////////////////////////////////////////////
-	/** List of articles citing this article */
-	public Set<Article> citingArticles = new TreeSet<Article>();
-	
-	/////////////////////////////////////////////////////////////////
-	// CHAPTER			/////////////////////////////////////////////
-	/////////////////////////////////////////////////////////////////
-	/** Chapter number */
-	public String chapter;
-	
-	/////////////////////////////////////////////////////////////////
-	// FILE				/////////////////////////////////////////////
-	/////////////////////////////////////////////////////////////////
-	/** Name of the PDF file */
-	public String file;
-	
-	/////////////////////////////////////////////////////////////////
-	// URL				/////////////////////////////////////////////
-	/////////////////////////////////////////////////////////////////
-	/** URL of the article */
-	public String url;
-	
-	/////////////////////////////////////////////////////////////////
-	// OWNER			/////////////////////////////////////////////
-	/////////////////////////////////////////////////////////////////
-	/** Owner in Jabref */
-	public String owner;
-	
-	/////////////////////////////////////////////////////////////////
-	// TIMESTAMP		/////////////////////////////////////////////
-	/////////////////////////////////////////////////////////////////
-	/** Time at which the entry was created in Jabref */
-	public String timestamp;
-	
-	/////////////////////////////////////////////////////////////////
-	// ABSTRACT			/////////////////////////////////////////////
+	// UNIQUE ID		/////////////////////////////////////////////
 	/////////////////////////////////////////////////////////////////
-	/** Summary of the article */
-	public String abstrct;
+	/** Dense integer id of this article in its {@link Corpus}, which also stores its cited/citing articles */
+	public int articleId = -1;
 	
 	/////////////////////////////////////////////////////////////////
-	// SERIES			/////////////////////////////////////////////
+	// OPTIONAL FIELDS	/////////////////////////////////////////////
 	/////////////////////////////////////////////////////////////////
-	/** Name of a book series */
-	public String series;
+	/** Empty array of values, shared by the articles without any optional field */
+	private final static String[] NO_VALUES = new String[0];
+	/** Shared instances of the values repeated across articles, only filled while loading a corpus (see {@link #clearValuePool()}) */
+	private final static Map<String,String> VALUE_POOL = new ConcurrentHashMap<String,String>();
+	/** Optional fields present in this article: one bit per field, indexed by its ordinal */
+	private int fieldMask = 0;
+	/** Values of the optional fields present in this article, in the order of {@link ArticleField} */
+	private String[] fieldValues = NO_VALUES;
 	
-	/////////////////////////////////////////////////////////////////
-	// EDITOR			/////////////////////////////////////////////
-	/////////////////////////////////////////////////////////////////
-	/** Name of the editor of a book */
-	public String editor;
-	
-	/////////////////////////////////////////////////////////////////
-	// REVIEW			/////////////////////////////////////////////
-	/////////////////////////////////////////////////////////////////
-	/** Custom comments associated to the article */
-	public String review;
-	
-	/////////////////////////////////////////////////////////////////
-	// PUBLISHER		/////////////////////////////////////////////
-	/////////////////////////////////////////////////////////////////
-	/** Name of the article publisher */
-	public String publisher;
-	
-	/////////////////////////////////////////////////////////////////
-	// BOOK TITLE		/////////////////////////////////////////////
-	/////////////////////////////////////////////////////////////////
-	/** Name of the book containing this article */
-	public String booktitle;
-	
-	/////////////////////////////////////////////////////////////////
-	// ADDRESS			/////////////////////////////////////////////
-	/////////////////////////////////////////////////////////////////
-	/** Place of a conference or city of a publisher */
-	public String address;
-	
-	/////////////////////////////////////////////////////////////////
-	// INSTITUTION		/////////////////////////////////////////////
-	/////////////////////////////////////////////////////////////////
-	/** Name of the institution publishing this report */
-	public String institution;
-	
-	/////////////////////////////////////////////////////////////////
-	// SCHOOL			/////////////////////////////////////////////
-	/////////////////////////////////////////////////////////////////
-	/** Name of the school publishing this thesis */
-	public String school;
-	
-	/////////////////////////////////////////////////////////////////
-	// MONTH			/////////////////////////////////////////////
-	/////////////////////////////////////////////////////////////////
-	/** Month of publication of the Web page */
-	public String month;
-
-	/////////////////////////////////////////////////////////////////
-	// MONTH			/////////////////////////////////////////////
-	/////////////////////////////////////////////////////////////////
-	/** How the Web page was published */
-	public String howpublished;
-	
-	/////////////////////////////////////////////////////////////////
-	// ORGANIZATION		/////////////////////////////////////////////
-	/////////////////////////////////////////////////////////////////
-	/** Name of the organization publishing this Web page */
-	public String organization;
-	
-	/////////////////////////////////////////////////////////////////
-	// TYPE				/////////////////////////////////////////////
-	/////////////////////////////////////////////////////////////////
-	/** Type of technical report or thesis */
-	public String type;
+	/**
+	 * Returns the value of the specified optional field
+	 * of this article.
+	 * 
+	 * @param field
+	 * 		Field of interest.
+	 * @return
+	 * 		Value of the field, or {@code null} if it is not set.
+	 */
+	public String getField(ArticleField field)
+	{	String result = null;
+		int bit = 1 << field.ordinal();
+		if((fieldMask & bit)!=0)
+			result = fieldValues[Integer.bitCount(fieldMask & (bit-1))];
+		return result;
+	}
 	
-	/////////////////////////////////////////////////////////////////
-	// SORTKEY			/////////////////////////////////////////////
-	/////////////////////////////////////////////////////////////////
-	/** Key used to sort with Biblatex */
-	public String sortkey;
+	/**
+	 * Changes the value of the specified optional field of this
+	 * article. Only the fields actually set take up memory, and the
+	 * values of the pooled fields are shared between articles.
+	 * 
+	 * @param field
+	 * 		Field to change.
+	 * @param value
+	 * 		New value of the field, or {@code null} to remove it.
+	 */
+	public void setField(ArticleField field, String value)
+	{	int bit = 1 << field.ordinal();
+		int index = Integer.bitCount(fieldMask & (bit-1));
+		boolean present = (fieldMask & bit)!=0;
+		
+		// remove the field
+		if(value==null)
+		{	if(present)
+			{	String[] values = new String[fieldValues.length-1];
+				System.arraycopy(fieldValues, 0, values, 0, index);
+				System.arraycopy(fieldValues, index+1, values, index, values.length-index);
+				fieldValues = values;
+				fieldMask = fieldMask & ~bit;
+			}
+		}
+		
+		// set the field
+		else
+		{	if(field.isPooled())
+				value = internValue(value);
+			if(!present)
+			{	String[] values = new String[fieldValues.length+1];
+				System.arraycopy(fieldValues, 0, values, 0, index);
+				System.arraycopy(fieldValues, index, values, index+1, fieldValues.length-index);
+				fieldValues = values;
+				fieldMask = fieldMask | bit;
+			}
+			fieldValues[index] = value;
+		}
+	}
 	
-	/////////////////////////////////////////////////////////////////
-	// EDITION			/////////////////////////////////////////////
-	/////////////////////////////////////////////////////////////////
-	/** Edition of a book */
-	public String edition;
+	/**
+	 * Returns the shared instance of the specified value, so that 
+	 * the values repeated across articles (journals, years, etc.)
+	 * are stored only once. The pool can be used concurrently,
+	 * and is emptied once the corpus is loaded.
+	 * 
+	 * @param value
+	 * 		Value to share (can be {@code null}).
+	 * @return
+	 * 		The shared instance of the value.
+	 */
+	public static String internValue(String value)
+	{	String result = value;
+		if(value!=null)
+		{	result = VALUE_POOL.putIfAbsent(value, value);
+			if(result==null)
+				result = value;
+		}
+		return result;
+	}
 	
-	/////////////////////////////////////////////////////////////////
-	// GROUPS			/////////////////////////////////////////////
-	/////////////////////////////////////////////////////////////////
-	/** Groups to which the paper belongs in Jabref */
-	public String groups;
+	/**
+	 * Empties the pool of shared values. It is called once a corpus 
+	 * is loaded: the articles keep their shared instances, but the pool
+	 * does not retain the values after the corpus is discarded.
+	 */
+	public static void clearValuePool()
+	{	VALUE_POOL.clear();
+	}
 	
 	/////////////////////////////////////////////////////////////////
 	// COMPARISON		/////////////////////////////////////////////
@@ -461,8 +457,9 @@ if(normSourceName.equals("ieeeinternationalconferenceonmultimediaandexpo"))
 
 	@Override
 	public int hashCode()
-	{	String citeAs = getCiteAs();
-		int result = citeAs.hashCode();
+	{	int result = 0;
+		if(bibtexKey!=null)
+			result = bibtexKey.hashCode();
 		return result;
 	}
 	
@@ -603,50 +600,26 @@ if(normSourceName.equals("ieeeinternationalconferenceonmultimediaandexpo"))
 
 	/**
 	 * Completes an existing {@code Article} object
-	 * with additional data.
+	 * with additional data. The citations are handled
+	 * by the {@link Corpus}, so they are not concerned.
 	 * 
 	 * @param article
 	 * 		The additional data.
 	 */
 	public void completeWith(Article article)
-	{	// abstract
-		if(this.abstrct==null)
-		{	String abstrct = article.abstrct;
-			if(abstrct!=null)
-				this.abstrct = abstrct;
-		}
-		
-		// address
-		if(this.address==null)
-		{	String address = article.address;
-			if(address!=null)
-				this.address = address;
+	{	// optional fields
+		for(ArticleField field: ArticleField.values())
+		{	if(getField(field)==null)
+			{	String value = article.getField(field);
+				if(value!=null)
+					setField(field, value);
+			}
 		}
 		
 		// authors
 		for(Author author: article.getAuthors())
 			addAuthor(author);
 		
-		// booktitle
-		if(this.booktitle==null)
-		{	String booktitle = article.booktitle;
-			if(booktitle!=null)
-				this.booktitle = booktitle;
-		}
-		
-		// chapter
-		if(this.chapter==null)
-		{	String chapter = article.chapter;
-			if(chapter!=null)
-				this.chapter = chapter;
-		}
-		
-		// cited/citing articles
-		Set<Article> citingArticles = article.citingArticles;
-		this.citingArticles.addAll(citingArticles);
-		Set<Article> citedArticles = article.citedArticles;
-		this.citedArticles.addAll(citedArticles);
-		
 		// doi
 		if(this.doi==null)
 		{	String doi = article.doi;
@@ -654,34 +627,6 @@ if(normSourceName.equals("ieeeinternationalconferenceonmultimediaandexpo"))
 				this.doi = doi;
 		}
 		
-		// edition
-		if(this.edition==null)
-		{	String edition = article.edition;
-			if(edition!=null)
-				this.edition = edition;
-		}
-		
-		// editor
-		if(this.editor==null)
-		{	String editor = article.editor;
-			if(editor!=null)
-				this.editor = editor;
-		}
-		
-		// file
-		if(this.file==null)
-		{	String file = article.file;
-			if(file!=null)
-				this.file = file;
-		}
-		
-		// institution
-		if(this.institution==null)
-		{	String institution = article.institution;
-			if(institution!=null)
-				this.institution = institution;
-		}
-		
 		// issue
 		if(this.issue==null)
 		{	String issue = article.issue;
@@ -689,41 +634,6 @@ if(normSourceName.equals("ieeeinternationalconferenceonmultimediaandexpo"))
 				this.issue = issue;
 		}
 		
-		// journal
-		if(this.journal==null)
-		{	String journal = article.journal;
-			if(journal!=null)
-				this.journal = journal;
-		}
-		
-		// month
-		if(this.month==null)
-		{	String month = article.month;
-			if(month!=null)
-				this.month = month;
-		}
-		
-		// organization
-		if(this.organization==null)
-		{	String organization = article.organization;
-			if(organization!=null)
-				this.organization = organization;
-		}
-		
-		// howpublished
-		if(this.howpublished==null)
-		{	String howpublished = article.howpublished;
-			if(howpublished!=null)
-				this.howpublished = howpublished;
-		}
-		
-		// owner
-		if(this.owner==null)
-		{	String owner = article.owner;
-			if(owner!=null)
-				this.owner = owner;
-		}
-		
 		// page
 		if(this.page==null)
 		{	String page = article.page;
@@ -731,41 +641,6 @@ if(normSourceName.equals("ieeeinternationalconferenceonmultimediaandexpo"))
 				this.page = page;
 		}
 		
-		// publisher
-		if(this.publisher==null)
-		{	String publisher = article.publisher;
-			if(publisher!=null)
-				this.publisher = publisher;
-		}
-		
-		// review
-		if(this.review==null)
-		{	String review = article.review;
-			if(review!=null)
-				this.review = review;
-		}
-		
-		// school
-		if(this.school==null)
-		{	String school = article.school;
-			if(school!=null)
-				this.school = school;
-		}
-		
-		// series
-		if(this.series==null)
-		{	String series = article.series;
-			if(series!=null)
-				this.series = series;
-		}
-		
-		// sortkey
-		if(this.sortkey==null)
-		{	String sortkey = article.sortkey;
-			if(sortkey!=null)
-				this.sortkey = sortkey;
-		}
-		
 		// source
 		if(this.sourceName==null)
 		{	String sourceName = article.sourceName;
@@ -776,13 +651,6 @@ if(normSourceName.equals("ieeeinternationalconferenceonmultimediaandexpo"))
 			}
 		}
 		
-		// timestamp
-		if(timestamp==null)
-		{	String timestamp = article.timestamp;
-			if(timestamp!=null)
-				this.timestamp = timestamp;
-		}
-		
 		// title
 		if(this.title==null)
 		{	String title = article.title;
@@ -792,20 +660,6 @@ if(normSourceName.equals("ieeeinternationalconferenceonmultimediaandexpo"))
 			}
 		}
 		
-		// type
-		if(this.type==null)
-		{	String type = article.type;
-			if(type!=null)
-				this.type = type;
-		}
-		
-		// url
-		if(this.url==null)
-		{	String url = article.url;
-			if(url!=null)
-				this.url = url;
-		}
-		
 		// volume
 		if(this.volume==null)
 		{	String volume = article.volume;
@@ -819,13 +673,6 @@ if(normSourceName.equals("ieeeinternationalconferenceonmultimediaandexpo"))
 			if(year!=null)
 				this.year = year;
 		}
-		
-		// groups
-		if(this.groups==null)
-		{	String groups = article.groups;
-			if(groups!=null)
-				this.groups = groups;
-		}
 	}
 	
 	/////////////////////////////////////////////////////////////////
@@ -924,7 +771,24 @@ if(normSourceName.equals("ieeeinternationalconferenceonmultimediaandexpo"))
 	 */
 	public Node buildNode(Graph graph)
 	{	Node result = graph.retrieveNode(bibtexKey);
-		result.setProperty(PROP_CORE, Boolean.toString(core));
+		Map<String,String> properties = getNodeProperties();
+		for(Entry<String,String> entry: properties.entrySet())
+			result.setProperty(entry.getKey(), entry.getValue());
+		return result;
+	}
+	
+	/**
+	 * Returns the values of the node properties describing this
+	 * article in a graph. Only the known fields are included. This 
+	 * allows processing these values only once when building
+	 * several graphs.
+	 * 
+	 * @return
+	 * 		Map associating property names to their values.
+	 */
+	public Map<String,String> getNodeProperties()
+	{	Map<String,String> result = new HashMap<String,String>();
+		result.put(PROP_CORE, Boolean.toString(core));
 		
 		if(!authors.isEmpty())
 		{	String authorsStr = "";
@@ -936,38 +800,42 @@ if(normSourceName.equals("ieeeinternationalconferenceonmultimediaandexpo"))
 				else if(i==authors.size()-2)
 					authorsStr = authorsStr + " & ";
 			}
-			result.setProperty(JabrefFileHandler.FLD_AUTHOR, authorsStr);
+			result.put(JabrefFileHandler.FLD_AUTHOR, authorsStr);
 		}
 		
+		String chapter = getField(ArticleField.CHAPTER);
 		if(chapter!=null)
-			result.setProperty(JabrefFileHandler.FLD_CHAPTER, chapter);
+			result.put(JabrefFileHandler.FLD_CHAPTER, chapter);
 		
 		if(doi!=null)
-			result.setProperty(JabrefFileHandler.FLD_DOI, doi);
+			result.put(JabrefFileHandler.FLD_DOI, doi);
 		
+		String journal = getField(ArticleField.JOURNAL);
 		if(journal!=null)
-			result.setProperty(JabrefFileHandler.FLD_JOURNAL1, journal);
+			result.put(JabrefFileHandler.FLD_JOURNAL1, journal);
 		
 		if(issue!=null)
-			result.setProperty(JabrefFileHandler.FLD_NUMBER, issue);
+			result.put(JabrefFileHandler.FLD_NUMBER, issue);
 		
 		if(page!=null)
-			result.setProperty(JabrefFileHandler.FLD_PAGES, page);
+			result.put(JabrefFileHandler.FLD_PAGES, page);
 		
 		if(title!=null)
-			result.setProperty(JabrefFileHandler.FLD_TITLE_ARTICLE, title);
+			result.put(JabrefFileHandler.FLD_TITLE_ARTICLE, title);
 		
+		String booktitle = getField(ArticleField.BOOKTITLE);
 		if(booktitle!=null)
-			result.setProperty(JabrefFileHandler.FLD_TITLE_BOOK, booktitle);
+			result.put(JabrefFileHandler.FLD_TITLE_BOOK, booktitle);
 		
+		String url = getField(ArticleField.URL);
 		if(url!=null)
-			result.setProperty(JabrefFileHandler.FLD_URL, url);
+			result.put(JabrefFileHandler.FLD_URL, url);
 		
 		if(volume!=null)
-			result.setProperty(JabrefFileHandler.FLD_VOLUME, volume);
+			result.put(JabrefFileHandler.FLD_VOLUME, volume);
 		
 		if(year!=null)
-			result.setProperty(JabrefFileHandler.FLD_YEAR, year);
+			result.put(JabrefFileHandler.FLD_YEAR, year);
 		
 		//TODO add stat-related fields?
 		
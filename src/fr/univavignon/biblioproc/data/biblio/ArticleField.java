@@ -0,0 +1,120 @@
+package fr.univavignon.biblioproc.data.biblio;
+
+/*
+ * Biblio Process
+ * Copyright 2011-19 Vincent Labatut 
+ * 
+ * This file is part of Biblio Process.
+ * 
+ * Biblio Process is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 2 of the License, or
+ * (at your option) any later version.
+ * 
+ * Biblio Process is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with Biblio Process.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/**
+ * This type represents the optional fields of an {@link Article}.
+ * They are generally missing, so they are stored sparsely (see
+ * {@link Article#getField(ArticleField)}). The values of the fields 
+ * taking few distinct values are shared between the articles.
+ */
+public enum ArticleField
+{	/** Journal publishing the article */
+	JOURNAL(true),
+	
+	/** Chapter number */
+	CHAPTER(false),
+	
+	/** Name of the PDF file */
+	FILE(false),
+	
+	/** URL of the article */
+	URL(false),
+	
+	/** Owner in Jabref */
+	OWNER(true),
+	
+	/** Time at which the entry was created in Jabref */
+	TIMESTAMP(false),
+	
+	/** Summary of the article */
+	ABSTRACT(false),
+	
+	/** Name of a book series */
+	SERIES(true),
+	
+	/** Name of the editor of a book */
+	EDITOR(false),
+	
+	/** Custom comments associated to the article */
+	REVIEW(false),
+	
+	/** Name of the article publisher */
+	PUBLISHER(true),
+	
+	/** Name of the book containing the article */
+	BOOKTITLE(true),
+	
+	/** Place of a conference or city of a publisher */
+	ADDRESS(true),
+	
+	/** Name of the institution publishing a report */
+	INSTITUTION(true),
+	
+	/** Name of the school publishing a thesis */
+	SCHOOL(true),
+	
+	/** Month of publication of a Web page */
+	MONTH(true),
+	
+	/** How a Web page was published */
+	HOWPUBLISHED(false),
+	
+	/** Name of the organization publishing a Web page */
+	ORGANIZATION(true),
+	
+	/** Type of technical report or thesis */
+	TYPE(true),
+	
+	/** Key used to sort with Biblatex */
+	SORTKEY(false),
+	
+	/** Edition of a book */
+	EDITION(false),
+	
+	/** Groups to which the paper belongs in Jabref */
+	GROUPS(false);
+	
+	/**
+	 * Builds an article field.
+	 * 
+	 * @param pooled
+	 * 		Whether the values of this field are shared between the articles.
+	 */
+	ArticleField(boolean pooled)
+	{	this.pooled = pooled;
+	}
+	
+	/** Whether the values of this field are shared between the articles (few distinct values, repeated many times) */
+	private boolean pooled;
+	
+	/**
+	 * Indicates whether the values of this field take few distinct 
+	 * values, repeated many times, and are therefore shared between 
+	 * the articles (see {@link Article#internValue(String)}).
+	 * 
+	 * @return
+	 * 		{@code true} iff the values of this field are shared.
+	 */
+	public boolean isPooled()
+	{	return pooled;
+	}
+}
@@ -23,6 +23,10 @@ import fr.univavignon.biblioproc.data.graph.Node;
  * along with Biblio Process.  If not, see <http://www.gnu.org/licenses/>.
  */
 
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+
 import fr.univavignon.biblioproc.tools.string.StringTools;
 
 /**
@@ -84,6 +88,23 @@ public class Author implements Comparable<Author>
 		initNormName();
 	}
 	
+	/**
+	 * Restores an author previously recorded, without
+	 * normalizing its name again.
+	 * 
+	 * @param lastname
+	 * 		Lastname of the author.
+	 * @param firstnameInitials
+	 * 		Initial(s) of the author's firstname(s).
+	 * @param normname
+	 * 		Normalized fullname of the author.
+	 */
+	Author(String lastname, String firstnameInitials, String normname)
+	{	this.lastname = lastname;
+		this.firstnameInitials = firstnameInitials;
+		this.normname = normname;
+	}
+	
 	/////////////////////////////////////////////////////////////////
 	// UNIQUE ID			/////////////////////////////////////////
 	/////////////////////////////////////////////////////////////////
@@ -219,11 +240,37 @@ if(normname.contains("-"))
 	 * 		The created node.
 	 */
 	public Node buildNode(Graph graph)
-	{	String name = NODE_PREFIX + authorId;
+	{	String name = getNodeName();
 		Node result = graph.retrieveNode(name);
+		Map<String,String> properties = getNodeProperties();
+		for(Entry<String,String> entry: properties.entrySet())
+			result.setProperty(entry.getKey(), entry.getValue());
+		return result;
+	}
+	
+	/**
+	 * Returns the name of the node representing this author in a graph.
+	 * 
+	 * @return
+	 * 		Name of the node.
+	 */
+	public String getNodeName()
+	{	String result = NODE_PREFIX + authorId;
+		return result;
+	}
+	
+	/**
+	 * Returns the values of the node properties describing this
+	 * author in a graph.
+	 * 
+	 * @return
+	 * 		Map associating property names to their values.
+	 */
+	public Map<String,String> getNodeProperties()
+	{	Map<String,String> result = new HashMap<String,String>();
 		
 		String fullname = firstnameInitials + " " + lastname;
-		result.setProperty(PROP_FULLNAME, fullname);
+		result.put(PROP_FULLNAME, fullname);
 		
 		//TODO add stat-related fields?
 		
@@ -20,30 +20,64 @@ package fr.univavignon.biblioproc.data.biblio;
  * along with Biblio Process.  If not, see <http://www.gnu.org/licenses/>.
  */
 
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Map.Entry;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
 
 import fr.univavignon.biblioproc.data.graph.Graph;
 import fr.univavignon.biblioproc.data.graph.Link;
 import fr.univavignon.biblioproc.data.graph.Node;
 import fr.univavignon.biblioproc.inout.JabrefFileHandler;
 
+import fr.univavignon.tools.file.FileTools;
+import fr.univavignon.tools.log.HierarchicalLogger;
+import fr.univavignon.tools.log.HierarchicalLoggerManager;
+
 /**
  * This class is used to represent a collection of publications.  
  */
 public class Corpus
 {	
+	/////////////////////////////////////////////////////////////////
+	// LOGGER		/////////////////////////////////////////////////
+	/////////////////////////////////////////////////////////////////
+	/** Common object used for logging */
+	private static HierarchicalLogger logger = HierarchicalLoggerManager.getHierarchicalLogger();
+	
 	/////////////////////////////////////////////////////////////////
 	// ARTICLES			/////////////////////////////////////////////
 	/////////////////////////////////////////////////////////////////
 	/** Map containing all the loaded articles, indexed by their Bibtex id */
 	private Map<String, Article> articlesMap = new HashMap<String, Article>();
+	/** Map containing the loaded articles which have a DOI, indexed by their normalized DOI */
+	private Map<String, List<Article>> doiMap = new HashMap<String, List<Article>>();
+	/** Article returned for each DOI shared by several articles, or {@code null} if it must be recomputed */
+	private Map<String, Article> doiWinners = null;
+	/** List containing all the loaded articles, indexed by their dense id */
+	private List<Article> articleList = new ArrayList<Article>();
 	
 	/**
 	 * Returns the article corresponding to the specified Bibtex
@@ -62,6 +96,10 @@ public class Corpus
 	/**
 	 * Returns the article corresponding to the specified DOI,
 	 * or {@code null} if no such article currently exists.
+	 * <br/>
+	 * If several articles have this DOI, the first one in
+	 * the order of {@link #getArticles()} is returned (as
+	 * when scanning the whole corpus).
 	 * 
 	 * @param doi
 	 * 		DOI of the article.
@@ -70,15 +108,118 @@ public class Corpus
 	 */
 	public Article getArticleByDoi(String doi)
 	{	Article result = null;
-		Iterator<Article> it = getArticles().iterator();
-		while(it.hasNext() && result==null)
-		{	Article article = it.next();
-			if(article.doi!=null && article.doi.equalsIgnoreCase(doi))
-				result = article;
+		if(doi!=null)
+		{	String key = normalizeDoi(doi);
+			List<Article> list = doiMap.get(key);
+			if(list!=null)
+			{	if(list.size()==1)
+					result = list.get(0);
+				// duplicate DOI
+				else
+				{	if(doiWinners==null)
+						initDoiWinners();
+					result = doiWinners.get(key);
+				}
+			}
 		}
 		return result;
 	}
 	
+	/**
+	 * Changes the DOI of the specified article, which must
+	 * already belong to this corpus, and updates the DOI
+	 * index accordingly. The {@code doi} field of the article
+	 * should not be modified directly once it has been added
+	 * to the corpus.
+	 * 
+	 * @param article
+	 * 		Article whose DOI must be changed.
+	 * @param doi
+	 * 		New DOI of the article (can be {@code null}).
+	 */
+	public void updateArticleDoi(Article article, String doi)
+	{	// remove the previous DOI from the index
+		if(article.doi!=null)
+		{	String key = normalizeDoi(article.doi);
+			List<Article> list = doiMap.get(key);
+			if(list!=null)
+			{	list.remove(article);
+				if(list.isEmpty())
+					doiMap.remove(key);
+			}
+		}
+		
+		// set the new DOI
+		article.doi = doi;
+		indexDoi(article);
+		doiWinners = null;
+	}
+	
+	/**
+	 * Determines, for each DOI shared by several articles, the article
+	 * returned by {@link #getArticleByDoi(String)}, i.e. the first one
+	 * in the order of {@link #getArticles()}. The whole corpus is scanned
+	 * only once for all these DOIs, and the result is kept until the 
+	 * corpus is modified.
+	 */
+	private void initDoiWinners()
+	{	Map<Article, String> duplicates = new IdentityHashMap<Article, String>();
+		for(Entry<String, List<Article>> entry: doiMap.entrySet())
+		{	List<Article> list = entry.getValue();
+			if(list.size()>1)
+			{	for(Article article: list)
+					duplicates.put(article, entry.getKey());
+			}
+		}
+		
+		doiWinners = new HashMap<String, Article>();
+		for(Article article: getArticles())
+		{	String key = duplicates.get(article);
+			if(key!=null && !doiWinners.containsKey(key))
+				doiWinners.put(key, article);
+		}
+	}
+	
+	/**
+	 * Adds the DOI of the specified article to the DOI index.
+	 * If several articles have the same DOI, they are all kept,
+	 * in their insertion order, and a warning is logged.
+	 * 
+	 * @param article
+	 * 		Article to index.
+	 */
+	private void indexDoi(Article article)
+	{	if(article.doi!=null)
+		{	String key = normalizeDoi(article.doi);
+			List<Article> list = doiMap.get(key);
+			if(list==null)
+			{	list = new ArrayList<Article>(1);
+				doiMap.put(key, list);
+			}
+			list.add(article);
+			if(list.size()>1)
+			{	List<String> keys = new ArrayList<String>();
+				for(Article other: list)
+					keys.add(other.bibtexKey);
+				logger.logWarning("Several articles have DOI "+article.doi+" "+keys);
+			}
+		}
+	}
+	
+	/**
+	 * Normalizes the specified DOI, so that it can be
+	 * used as a key in the DOI index. DOIs are case-insensitive.
+	 * 
+	 * @param doi
+	 * 		Original DOI.
+	 * @return
+	 * 		Normalized DOI.
+	 */
+	private static String normalizeDoi(String doi)
+	{	String result = doi.toLowerCase(Locale.ENGLISH);
+		return result;
+	}
+	
 	/**
 	 * Return a collection containing all the articles from this
 	 * corpus.
@@ -93,7 +234,8 @@ public class Corpus
 	
 	/**
 	 * Adds a new article to this collection. Checks if
-	 * its Bibtex key is not already used.
+	 * its Bibtex key is not already used. The article
+	 * receives the next available dense id.
 	 * 
 	 * @param article
 	 * 		Article to add to this corpus.
@@ -103,6 +245,11 @@ public class Corpus
 		if(containsKey(key))
 			throw new IllegalArgumentException("Trying to insert an article whose Bibtex key ("+key+") already exists ("+article+")");
 		articlesMap.put(key, article);
+		article.articleId = articleList.size();
+		articleList.add(article);
+		indexDoi(article);
+		doiWinners = null;
+		indexSignature(article);
 	}
 	
 	/**
@@ -131,6 +278,146 @@ public class Corpus
 		return result;
 	}
 	
+	/////////////////////////////////////////////////////////////////
+	// MATCHING			/////////////////////////////////////////////
+	/////////////////////////////////////////////////////////////////
+	/** Year used in the signature of the articles whose year is unknown */
+	private static final String NO_YEAR = "";
+	/** Blocking index: articles indexed by the normalized name of their first author, then by year */
+	private Map<String, Map<String, List<Article>>> signatureMap = new HashMap<String, Map<String, List<Article>>>();
+	
+	/**
+	 * Adds the specified article to the blocking index, using
+	 * its first author and year as a signature. Articles without
+	 * author cannot be compatible with any other article, so they
+	 * are not indexed. This means the authors and year of an article
+	 * must be set before it is added to the corpus.
+	 * 
+	 * @param article
+	 * 		Article to index.
+	 */
+	private void indexSignature(Article article)
+	{	List<Author> authors = article.getAuthors();
+		if(!authors.isEmpty())
+		{	String authorKey = authors.get(0).normname;
+			Map<String, List<Article>> yearMap = signatureMap.get(authorKey);
+			if(yearMap==null)
+			{	yearMap = new HashMap<String, List<Article>>();
+				signatureMap.put(authorKey, yearMap);
+			}
+			String yearKey = NO_YEAR;
+			if(article.year!=null)
+				yearKey = article.year;
+			List<Article> list = yearMap.get(yearKey);
+			if(list==null)
+			{	list = new ArrayList<Article>(1);
+				yearMap.put(yearKey, list);
+			}
+			list.add(article);
+		}
+	}
+	
+	/**
+	 * Returns the articles of this corpus which could correspond to
+	 * the specified (partial) article: articles possessing the same
+	 * Bibtex key, the same DOI, or the same first author and a compatible
+	 * year. Each article appears only once in the returned list.
+	 * <br/>
+	 * Since {@link Article#isCompatible(Article)} requires the first authors
+	 * to be the same, and the years to be the same when both are known, any 
+	 * article of the corpus which is compatible with the specified one is 
+	 * guaranteed to appear in the list. It is then up to the caller to apply
+	 * its own matching criteria to the (small) list of candidates, instead
+	 * of the whole corpus.
+	 * 
+	 * @param article
+	 * 		Article to match.
+	 * @return
+	 * 		List of candidate articles.
+	 */
+	public List<Article> getCandidateArticles(Article article)
+	{	List<Article> result = new ArrayList<Article>();
+		
+		// same bibtex key
+		if(article.bibtexKey!=null)
+		{	Article candidate = articlesMap.get(article.bibtexKey);
+			if(candidate!=null)
+				result.add(candidate);
+		}
+		
+		// same doi
+		if(article.doi!=null)
+		{	String key = normalizeDoi(article.doi);
+			List<Article> list = doiMap.get(key);
+			if(list!=null)
+				addCandidates(list, result);
+		}
+		
+		// same first author and compatible year
+		List<Author> authors = article.getAuthors();
+		if(!authors.isEmpty())
+		{	String authorKey = authors.get(0).normname;
+			Map<String, List<Article>> yearMap = signatureMap.get(authorKey);
+			if(yearMap!=null)
+			{	// unknown year: all the years are compatible
+				if(article.year==null)
+				{	for(List<Article> list: yearMap.values())
+						addCandidates(list, result);
+				}
+				// otherwise: same year, or unknown year
+				else
+				{	List<Article> list = yearMap.get(article.year);
+					if(list!=null)
+						addCandidates(list, result);
+					list = yearMap.get(NO_YEAR);
+					if(list!=null)
+						addCandidates(list, result);
+				}
+			}
+		}
+		
+		return result;
+	}
+	
+	/**
+	 * Returns all the articles of this corpus whose first author
+	 * is the specified one, whatever their year.
+	 * 
+	 * @param author
+	 * 		First author of the articles.
+	 * @return
+	 * 		List of the articles of this author.
+	 */
+	public List<Article> getFirstAuthorArticles(Author author)
+	{	List<Article> result = new ArrayList<Article>();
+		Map<String, List<Article>> yearMap = signatureMap.get(author.normname);
+		if(yearMap!=null)
+		{	for(List<Article> list: yearMap.values())
+				result.addAll(list);
+		}
+		return result;
+	}
+	
+	/**
+	 * Adds the specified candidates to the result list, unless they
+	 * are already present in this list.
+	 * 
+	 * @param candidates
+	 * 		Articles to add.
+	 * @param result
+	 * 		List to complete.
+	 */
+	private void addCandidates(List<Article> candidates, List<Article> result)
+	{	for(Article candidate: candidates)
+		{	boolean found = false;
+			Iterator<Article> it = result.iterator();
+			while(it.hasNext() && !found)
+				found = it.next()==candidate;
+			if(!found)
+				result.add(candidate);
+		}
+	}
+	
 	/////////////////////////////////////////////////////////////////
 	// AUTHORS			/////////////////////////////////////////////
 	/////////////////////////////////////////////////////////////////
@@ -162,19 +449,21 @@ public class Corpus
 		return result;
 	}
 	
-//	/**
-//	 * Returns the author corresponding to the specified
-//	 * name, or {@code null} if no such author exists.
-//	 * 
-//	 * @param authorName
-//	 * 		Name of the targeted author.
-//	 * @return
-//	 * 		Author corresponding to the name.
-//	 */
-//	public Author getAuthor(String authorName)
-//	{	Author result = authorsMap.get(authorName);
-//		return result;
-//	}
+	/**
+	 * Returns the author of the corpus with the same name
+	 * as the specified author, or {@code null} if no such 
+	 * author exists. Unlike {@link #retrieveAuthor(Author)},
+	 * this method does not modify the corpus.
+	 * 
+	 * @param author
+	 * 		Targeted author (containing the appropriate name).
+	 * @return
+	 * 		Author of the corpus corresponding to the name.
+	 */
+	public Author getAuthor(Author author)
+	{	Author result = authorsMap.get(author.normname);
+		return result;
+	}
 	
 	/**
 	 * Return a collection containing all the authors from this
@@ -188,6 +477,254 @@ public class Corpus
 		return result;
 	}
 	
+	/////////////////////////////////////////////////////////////////
+	// CITATIONS		/////////////////////////////////////////////
+	/////////////////////////////////////////////////////////////////
+	/** Ids of the articles cited by each article, while citations are added (one row per article id, possibly not full) */
+	private int[][] citedRows = new int[0][];
+	/** Number of ids actually used in each row of {@link #citedRows} */
+	private int[] citedSizes = new int[0];
+	/** Whether the citations are currently stored in the compressed (read-only) form */
+	private boolean citationsFrozen = false;
+	/** Position of the first cited article of each article in {@link #citedIds} (compressed form) */
+	private int[] citedOffsets = null;
+	/** Ids of the articles cited by all the articles, one row after the other (compressed form) */
+	private int[] citedIds = null;
+	/** Position of the first citing article of each article in {@link #citingIds} (compressed form) */
+	private int[] citingOffsets = null;
+	/** Ids of the articles citing all the articles, one row after the other (compressed form) */
+	private int[] citingIds = null;
+	
+	/**
+	 * Records that the first specified article cites the second one.
+	 * Both articles must belong to this corpus. If the citation is
+	 * already recorded, nothing changes.
+	 * 
+	 * @param citing
+	 * 		Article citing the other one.
+	 * @param cited
+	 * 		Article cited by the other one.
+	 * @return
+	 * 		{@code true} iff the citation was not already recorded.
+	 */
+	public boolean addCitation(Article citing, Article cited)
+	{	checkArticle(citing);
+		checkArticle(cited);
+		if(citationsFrozen)
+			thawCitations();
+		
+		boolean result = !containsCitation(citing, cited);
+		if(result)
+		{	int id = citing.articleId;
+			if(id>=citedRows.length)
+			{	int length = Math.max(articleList.size(), 2*citedRows.length);
+				citedRows = Arrays.copyOf(citedRows, length);
+				citedSizes = Arrays.copyOf(citedSizes, length);
+			}
+			int[] row = citedRows[id];
+			int size = citedSizes[id];
+			if(row==null)
+				row = new int[4];
+			else if(size==row.length)
+				row = Arrays.copyOf(row, 2*size);
+			row[size] = cited.articleId;
+			citedRows[id] = row;
+			citedSizes[id] = size + 1;
+		}
+		return result;
+	}
+	
+	/**
+	 * Checks whether the first specified article cites the second one.
+	 * 
+	 * @param citing
+	 * 		Article possibly citing the other one.
+	 * @param cited
+	 * 		Article possibly cited by the other one.
+	 * @return
+	 * 		{@code true} iff the citation is recorded in this corpus.
+	 */
+	public boolean containsCitation(Article citing, Article cited)
+	{	checkArticle(citing);
+		checkArticle(cited);
+		int id = citing.articleId;
+		int[] row;
+		int from, to;
+		if(citationsFrozen)
+		{	row = citedIds;
+			from = citedOffsets[id];
+			to = citedOffsets[id+1];
+		}
+		else
+		{	row = null;
+			from = 0;
+			to = 0;
+			if(id<citedRows.length && citedRows[id]!=null)
+			{	row = citedRows[id];
+				to = citedSizes[id];
+			}
+		}
+		
+		boolean result = false;
+		int i = from;
+		while(i<to && !result)
+		{	result = row[i]==cited.articleId;
+			i++;
+		}
+		return result;
+	}
+	
+	/**
+	 * Returns the articles cited by the specified article,
+	 * ordered by Bibtex key.
+	 * 
+	 * @param article
+	 * 		Article of interest.
+	 * @return
+	 * 		List of the articles it cites.
+	 */
+	public List<Article> getCitedArticles(Article article)
+	{	checkArticle(article);
+		freezeCitations();
+		List<Article> result = getArticles(citedIds, citedOffsets[article.articleId], citedOffsets[article.articleId+1]);
+		return result;
+	}
+	
+	/**
+	 * Returns the articles citing the specified article,
+	 * ordered by Bibtex key.
+	 * 
+	 * @param article
+	 * 		Article of interest.
+	 * @return
+	 * 		List of the articles citing it.
+	 */
+	public List<Article> getCitingArticles(Article article)
+	{	checkArticle(article);
+		freezeCitations();
+		List<Article> result = getArticles(citingIds, citingOffsets[article.articleId], citingOffsets[article.articleId+1]);
+		return result;
+	}
+	
+	/**
+	 * Returns the articles whose ids appear in the specified
+	 * range of an array.
+	 * 
+	 * @param ids
+	 * 		Array of article ids.
+	 * @param from
+	 * 		Start of the range (included).
+	 * @param to
+	 * 		End of the range (excluded).
+	 * @return
+	 * 		List of the corresponding articles.
+	 */
+	private List<Article> getArticles(int[] ids, int from, int to)
+	{	List<Article> result = new ArrayList<Article>(to-from);
+		for(int i=from;i<to;i++)
+			result.add(articleList.get(ids[i]));
+		return result;
+	}
+	
+	/**
+	 * Checks that the specified article belongs to this corpus.
+	 * 
+	 * @param article
+	 * 		Article to check.
+	 */
+	private void checkArticle(Article article)
+	{	int id = article.articleId;
+		if(id<0 || id>=articleList.size() || articleList.get(id)!=article)
+			throw new IllegalArgumentException("The article does not belong to this corpus ("+article+")");
+	}
+	
+	/**
+	 * Switches the citations to their compressed form, if needed:
+	 * all the rows are stored one after the other in a single array,
+	 * in both directions (cited and citing articles). The articles of 
+	 * each row are ordered by Bibtex key. The compressed form is used 
+	 * to read the citations, until new ones are added.
+	 */
+	private void freezeCitations()
+	{	if(!citationsFrozen)
+		{	int n = articleList.size();
+			
+			// rank of the articles in the order of their Bibtex keys
+			List<Article> sorted = new ArrayList<Article>(articleList);
+			Collections.sort(sorted);
+			int[] ranks = new int[n];
+			int[] byRank = new int[n];
+			for(int r=0;r<n;r++)
+			{	int id = sorted.get(r).articleId;
+				ranks[id] = r;
+				byRank[r] = id;
+			}
+			
+			// cited articles, each row ordered by rank
+			citedOffsets = new int[n+1];
+			for(int id=0;id<n;id++)
+			{	int size = 0;
+				if(id<citedSizes.length)
+					size = citedSizes[id];
+				citedOffsets[id+1] = citedOffsets[id] + size;
+			}
+			citedIds = new int[citedOffsets[n]];
+			for(int id=0;id<n;id++)
+			{	int from = citedOffsets[id];
+				int to = citedOffsets[id+1];
+				for(int i=from;i<to;i++)
+					citedIds[i] = ranks[citedRows[id][i-from]];
+				Arrays.sort(citedIds, from, to);
+				for(int i=from;i<to;i++)
+					citedIds[i] = byRank[citedIds[i]];
+			}
+			
+			// citing articles: the cited rows are transposed in the order of the ranks, so each row is ordered too
+			citingOffsets = new int[n+1];
+			for(int i=0;i<citedIds.length;i++)
+				citingOffsets[citedIds[i]+1]++;
+			for(int id=0;id<n;id++)
+				citingOffsets[id+1] = citingOffsets[id+1] + citingOffsets[id];
+			citingIds = new int[citedIds.length];
+			int[] positions = Arrays.copyOf(citingOffsets, n);
+			for(int r=0;r<n;r++)
+			{	int id = byRank[r];
+				for(int i=citedOffsets[id];i<citedOffsets[id+1];i++)
+				{	int cited = citedIds[i];
+					citingIds[positions[cited]] = id;
+					positions[cited]++;
+				}
+			}
+			
+			// the rows are not needed anymore
+			citedRows = new int[0][];
+			citedSizes = new int[0];
+			citationsFrozen = true;
+		}
+	}
+	
+	/**
+	 * Switches the citations back to their growable form,
+	 * so that new citations can be added.
+	 */
+	private void thawCitations()
+	{	int n = articleList.size();
+		citedRows = new int[n][];
+		citedSizes = new int[n];
+		for(int id=0;id<n;id++)
+		{	int size = citedOffsets[id+1] - citedOffsets[id];
+			if(size>0)
+			{	citedRows[id] = Arrays.copyOfRange(citedIds, citedOffsets[id], citedOffsets[id+1]);
+				citedSizes[id] = size;
+			}
+		}
+		citedOffsets = null;
+		citedIds = null;
+		citingOffsets = null;
+		citingIds = null;
+		citationsFrozen = false;
+	}
+	
 	/////////////////////////////////////////////////////////////////
 	// GRAPH			/////////////////////////////////////////////
 	/////////////////////////////////////////////////////////////////
@@ -209,55 +746,7 @@ public class Corpus
 	 * 		A bipartite citation graph. 
 	 */
 	public Graph buildAuthorshipGraph()
-	{	Graph result;
-		
-		// create the graph
-		String title = "Authorship network";
-		result = new Graph(title, false);
-		result.addNodeProperty(PROP_TYPE, "string");
-		result.addNodeProperty(Author.PROP_FULLNAME, "string");
-		result.addNodeProperty(Article.PROP_CORE, "string");
-		result.addNodeProperty(JabrefFileHandler.FLD_AUTHOR, "string");
-		result.addNodeProperty(JabrefFileHandler.FLD_CHAPTER, "string");
-		result.addNodeProperty(JabrefFileHandler.FLD_DOI, "string");
-		result.addNodeProperty(JabrefFileHandler.FLD_JOURNAL1, "string");
-		result.addNodeProperty(JabrefFileHandler.FLD_NUMBER, "string");
-		result.addNodeProperty(JabrefFileHandler.FLD_AUTHOR, "string");
-		result.addNodeProperty(JabrefFileHandler.FLD_PAGES, "string");
-		result.addNodeProperty(JabrefFileHandler.FLD_TITLE_ARTICLE, "string");
-		result.addNodeProperty(JabrefFileHandler.FLD_TITLE_BOOK, "string");
-		result.addNodeProperty(JabrefFileHandler.FLD_URL, "string");
-		result.addNodeProperty(JabrefFileHandler.FLD_VOLUME, "string");
-		result.addNodeProperty(JabrefFileHandler.FLD_YEAR, "string");
-		result.addNodeProperty(PROP_CORE_LABEL, "string");
-
-		// add the nodes
-		for(Article article: getArticles())
-		{	Node node = article.buildNode(result);
-			node.setProperty(PROP_TYPE, "Article");
-			if(article.core)
-				node.setProperty(Corpus.PROP_CORE_LABEL, article.bibtexKey);
-			else
-				node.setProperty(Corpus.PROP_CORE_LABEL, "");
-		}
-		Map<Author,Node> nodeMap = new HashMap<Author,Node>();
-		for(Author author: getAuthors())
-		{	Node node = author.buildNode(result);
-			node.setProperty(PROP_TYPE, "Author");
-			node.setProperty(Corpus.PROP_CORE_LABEL, "");
-			nodeMap.put(author, node);
-		}
-		
-		// add the links
-		for(Article article: getArticles())
-		{	String sourceName = article.bibtexKey;
-			for(Author author: article.getAuthors())
-			{	Node targetNode = nodeMap.get(author);
-				String targetName = targetNode.getName();
-				result.retrieveLink(sourceName, targetName);
-			}
-		}
-		
+	{	Graph result = buildGraph(GraphType.AUTHORSHIP);
 		return result;
 	}
 
@@ -270,46 +759,7 @@ public class Corpus
 	 * 		An article citation graph. 
 	 */
 	public Graph buildArticleCitationGraph()
-	{	Graph result;
-		
-		// create the graph
-		String title = "Article citation network";
-		result = new Graph(title, true);
-		result.addNodeProperty(Article.PROP_CORE, "string");
-		result.addNodeProperty(JabrefFileHandler.FLD_AUTHOR, "string");
-		result.addNodeProperty(JabrefFileHandler.FLD_CHAPTER, "string");
-		result.addNodeProperty(JabrefFileHandler.FLD_DOI, "string");
-		result.addNodeProperty(JabrefFileHandler.FLD_JOURNAL1, "string");
-		result.addNodeProperty(JabrefFileHandler.FLD_NUMBER, "string");
-		result.addNodeProperty(JabrefFileHandler.FLD_AUTHOR, "string");
-		result.addNodeProperty(JabrefFileHandler.FLD_PAGES, "string");
-		result.addNodeProperty(JabrefFileHandler.FLD_TITLE_ARTICLE, "string");
-		result.addNodeProperty(JabrefFileHandler.FLD_TITLE_BOOK, "string");
-		result.addNodeProperty(JabrefFileHandler.FLD_URL, "string");
-		result.addNodeProperty(JabrefFileHandler.FLD_VOLUME, "string");
-		result.addNodeProperty(JabrefFileHandler.FLD_YEAR, "string");
-		result.addNodeProperty(PROP_CORE_LABEL, "string");
-		result.addLinkProperty(PROP_WEIGHT, "int");
-
-		// add the nodes
-		for(Article article: getArticles())
-		{	Node node = article.buildNode(result);
-			if(article.core)
-				node.setProperty(Corpus.PROP_CORE_LABEL, article.bibtexKey);
-			else
-				node.setProperty(Corpus.PROP_CORE_LABEL, "");
-		}
-		
-		// add the links
-		for(Article artSrc: getArticles())
-		{	String sourceName = artSrc.bibtexKey;
-			for(Article artTarg: artSrc.citingArticles)
-			{	String targetName = artTarg.bibtexKey;
-				Link link = result.retrieveLink(sourceName, targetName);
-				link.incrementIntProperty(PROP_WEIGHT);
-			}
-		}
-		
+	{	Graph result = buildGraph(GraphType.ARTICLE_CITATION);
 		return result;
 	}
 
@@ -322,37 +772,7 @@ public class Corpus
 	 * 		An author citation graph. 
 	 */
 	public Graph buildAuthorCitationGraph()
-	{	Graph result;
-		
-		// create the graph
-		String title = "Author citation network";
-		result = new Graph(title, true);
-		result.addNodeProperty(Author.PROP_FULLNAME, "string");
-		result.addLinkProperty(PROP_WEIGHT, "int");
-
-		// add the nodes
-		Map<Author,Node> nodeMap = new HashMap<Author,Node>();
-		for(Author author: getAuthors())
-		{	Node node = author.buildNode(result);
-			nodeMap.put(author, node);
-		}
-		
-		// add the links
-		for(Article artSrc: getArticles())
-		{	List<Author> authorsSrc = artSrc.getAuthors();
-			for(Article artTarg: artSrc.citingArticles)
-			{	List<Author> authorsTarg = artTarg.getAuthors();
-				for(Author authorSrc: authorsSrc)
-				{	Node nodeSrc = nodeMap.get(authorSrc);
-					for(Author authorTarg: authorsTarg)
-					{	Node nodeTarg = nodeMap.get(authorTarg);
-						Link link = result.retrieveLink(nodeSrc, nodeTarg);
-						link.incrementIntProperty(PROP_WEIGHT);
-					}
-				}
-			}
-		}
-		
+	{	Graph result = buildGraph(GraphType.AUTHOR_CITATION);
 		return result;
 	}
 
@@ -367,60 +787,7 @@ public class Corpus
 	 * 		An article coauthorship graph. 
 	 */
 	public Graph buildArticleCoauthorshipGraph()
-	{	Graph result;
-		
-		// create the graph
-		String title = "Article coauthorship network";
-		result = new Graph(title, false);
-		result.addNodeProperty(Article.PROP_CORE, "string");
-		result.addNodeProperty(JabrefFileHandler.FLD_AUTHOR, "string");
-		result.addNodeProperty(JabrefFileHandler.FLD_CHAPTER, "string");
-		result.addNodeProperty(JabrefFileHandler.FLD_DOI, "string");
-		result.addNodeProperty(JabrefFileHandler.FLD_JOURNAL1, "string");
-		result.addNodeProperty(JabrefFileHandler.FLD_NUMBER, "string");
-		result.addNodeProperty(JabrefFileHandler.FLD_AUTHOR, "string");
-		result.addNodeProperty(JabrefFileHandler.FLD_PAGES, "string");
-		result.addNodeProperty(JabrefFileHandler.FLD_TITLE_ARTICLE, "string");
-		result.addNodeProperty(JabrefFileHandler.FLD_TITLE_BOOK, "string");
-		result.addNodeProperty(JabrefFileHandler.FLD_URL, "string");
-		result.addNodeProperty(JabrefFileHandler.FLD_VOLUME, "string");
-		result.addNodeProperty(JabrefFileHandler.FLD_YEAR, "string");
-		result.addNodeProperty(PROP_CORE_LABEL, "string");
-		result.addLinkProperty(PROP_WEIGHT, "float");
-		result.addLinkProperty(PROP_COUNT, "int");
-
-		// add the nodes
-		for(Article article: getArticles())
-		{	Node node = article.buildNode(result);
-			if(article.core)
-				node.setProperty(Corpus.PROP_CORE_LABEL, article.bibtexKey);
-			else
-				node.setProperty(Corpus.PROP_CORE_LABEL, "");
-		}
-		
-		// add the links
-		List<Article> articles = new ArrayList<Article>(getArticles());
-		for(int i=0;i<articles.size()-1;i++)
-		{	Article article1 = articles.get(i);
-			String name1 = article1.bibtexKey;
-			List<Author> authors1 = article1.getAuthors();
-			for(int j=i+1;j<articles.size();j++)
-			{	Article article2 = articles.get(j);
-				String name2 = article2.bibtexKey;
-				List<Author> authors2 = article2.getAuthors();
-				Set<Author> intersection = new TreeSet<Author>(authors1);
-				intersection.retainAll(authors2);
-				if(!intersection.isEmpty())
-				{	Set<Author> union = new TreeSet<Author>(authors1);
-					union.addAll(authors2);
-					float weight = intersection.size() / (float)union.size();
-					Link link = result.retrieveLink(name1, name2);
-					link.incrementFloatProperty(PROP_WEIGHT,weight);
-					link.incrementIntProperty(PROP_COUNT,intersection.size());
-				}
-			}
-		}
-		
+	{	Graph result = buildGraph(GraphType.ARTICLE_COAUTHORSHIP);
 		return result;
 	}
 	
@@ -434,36 +801,7 @@ public class Corpus
 	 * 		An author coauthorship graph. 
 	 */
 	public Graph buildAuthorCoauthorshipGraph()
-	{	Graph result;
-	
-		// create the graph
-		String title = "Author coauthorship network";
-		result = new Graph(title, false);
-		result.addNodeProperty(Author.PROP_FULLNAME, "string");
-		result.addLinkProperty(PROP_WEIGHT, "int");
-	
-		// add the nodes
-		Map<Author,Node> nodeMap = new HashMap<Author,Node>();
-		for(Author author: getAuthors())
-		{	Node node = author.buildNode(result);
-			nodeMap.put(author, node);
-		}
-		
-		// add the links
-		for(Article article: getArticles())
-		{	List<Author> authors = article.getAuthors();
-			for(int i=0;i<authors.size()-1;i++)
-			{	Author author1 = authors.get(i);
-				Node node1 = nodeMap.get(author1);
-				for(int j=i+1;j<authors.size();j++)
-				{	Author author2 = authors.get(j);
-					Node node2 = nodeMap.get(author2);
-					Link link = result.retrieveLink(node1, node2);
-					link.incrementIntProperty(PROP_WEIGHT);
-				}
-			}
-		}
-		
+	{	Graph result = buildGraph(GraphType.AUTHOR_COAUTHORSHIP);
 		return result;
 	}
 	
@@ -478,128 +816,854 @@ public class Corpus
 	 * 		An article coauthorship graph. 
 	 */
 	public Graph buildArticleCocitingGraph()
-	{	Graph result;
+	{	Graph result = buildGraph(GraphType.ARTICLE_COCITING);
+		return result;
+	}
+	
+	/**
+	 * Builds a cocited network of articles. Each node is an article, 
+	 * each link is undirected and connects two articles cited by the same
+	 * reference, and its weight represents Jaccard's coefficient 
+	 * processed over the two concerned groups of references. An additional
+	 * integer link attribute corresponds to the number of common references.
+	 * 
+	 * @return
+	 * 		An article coauthorship graph. 
+	 */
+	public Graph buildArticleCocitedGraph()
+	{	Graph result = buildGraph(GraphType.ARTICLE_COCITED);
+		return result;
+	}
+	
+	/**
+	 * Builds the graph of the specified type.
+	 * 
+	 * @param type
+	 * 		Type of the graph to build.
+	 * @return
+	 * 		The corresponding graph.
+	 */
+	public Graph buildGraph(GraphType type)
+	{	Set<GraphType> types = EnumSet.of(type);
+		Map<GraphType,Graph> graphs = buildGraphs(types);
+		Graph result = graphs.get(type);
+		return result;
+	}
+	
+	/**
+	 * Builds all the graphs of the specified types at once. The corpus
+	 * is processed only once: the node properties of each article and 
+	 * author are processed a single time and shared by all the graphs, 
+	 * and the links of all the graphs are added during the same pass over 
+	 * the articles. The graphs whose type is not selected are not built 
+	 * at all.
+	 * 
+	 * @param types
+	 * 		Types of the graphs to build.
+	 * @return
+	 * 		Map containing the built graphs, indexed by type.
+	 */
+	public Map<GraphType,Graph> buildGraphs(Set<GraphType> types)
+	{	Map<GraphType,Graph> result = new EnumMap<GraphType,Graph>(GraphType.class);
 		
-		// create the graph
-		String title = "Article cociting network";
-		result = new Graph(title, false);
-		result.addNodeProperty(Article.PROP_CORE, "string");
-		result.addNodeProperty(JabrefFileHandler.FLD_AUTHOR, "string");
-		result.addNodeProperty(JabrefFileHandler.FLD_CHAPTER, "string");
-		result.addNodeProperty(JabrefFileHandler.FLD_DOI, "string");
-		result.addNodeProperty(JabrefFileHandler.FLD_JOURNAL1, "string");
-		result.addNodeProperty(JabrefFileHandler.FLD_NUMBER, "string");
-		result.addNodeProperty(JabrefFileHandler.FLD_AUTHOR, "string");
-		result.addNodeProperty(JabrefFileHandler.FLD_PAGES, "string");
-		result.addNodeProperty(JabrefFileHandler.FLD_TITLE_ARTICLE, "string");
-		result.addNodeProperty(JabrefFileHandler.FLD_TITLE_BOOK, "string");
-		result.addNodeProperty(JabrefFileHandler.FLD_URL, "string");
-		result.addNodeProperty(JabrefFileHandler.FLD_VOLUME, "string");
-		result.addNodeProperty(JabrefFileHandler.FLD_YEAR, "string");
-		result.addNodeProperty(PROP_CORE_LABEL, "string");
-		result.addLinkProperty(PROP_WEIGHT, "float");
-		result.addLinkProperty(PROP_COUNT, "int");
-
-		// add the nodes
-		for(Article article: getArticles())
-		{	Node node = article.buildNode(result);
-			if(article.core)
-				node.setProperty(Corpus.PROP_CORE_LABEL, article.bibtexKey);
-			else
-				node.setProperty(Corpus.PROP_CORE_LABEL, "");
+		// create the graphs
+		for(GraphType type: types)
+		{	Graph graph = initGraph(type);
+			result.put(type, graph);
+		}
+		Graph authorshipGraph = result.get(GraphType.AUTHORSHIP);
+		Graph articleCitationGraph = result.get(GraphType.ARTICLE_CITATION);
+		Graph authorCitationGraph = result.get(GraphType.AUTHOR_CITATION);
+		Graph articleCoauthorshipGraph = result.get(GraphType.ARTICLE_COAUTHORSHIP);
+		Graph authorCoauthorshipGraph = result.get(GraphType.AUTHOR_COAUTHORSHIP);
+		Graph articleCocitingGraph = result.get(GraphType.ARTICLE_COCITING);
+		Graph articleCocitedGraph = result.get(GraphType.ARTICLE_COCITED);
+		List<Graph> articleGraphs = new ArrayList<Graph>();
+		for(Graph graph: Arrays.asList(authorshipGraph, articleCitationGraph, articleCoauthorshipGraph, articleCocitingGraph, articleCocitedGraph))
+		{	if(graph!=null)
+				articleGraphs.add(graph);
+		}
+		List<Graph> authorGraphs = new ArrayList<Graph>();
+		for(Graph graph: Arrays.asList(authorshipGraph, authorCitationGraph, authorCoauthorshipGraph))
+		{	if(graph!=null)
+				authorGraphs.add(graph);
 		}
 		
-		// add the links
+		// add the article nodes
 		List<Article> articles = new ArrayList<Article>(getArticles());
-		for(int i=0;i<articles.size()-1;i++)
-		{	Article article1 = articles.get(i);
-			String name1 = article1.bibtexKey;
-			Set<Article> cited1 = article1.citedArticles;
-			for(int j=i+1;j<articles.size();j++)
-			{	Article article2 = articles.get(j);
-				String name2 = article2.bibtexKey;
-				Set<Article> cited2 = article2.citedArticles;
-				Set<Article> intersection = new TreeSet<Article>(cited1);
-				intersection.retainAll(cited2);
-				if(!intersection.isEmpty())
-				{	Set<Article> union = new TreeSet<Article>(cited1);
-					union.addAll(cited2);
-					float weight = intersection.size() / (float)union.size();
-					Link link = result.retrieveLink(name1, name2);
-					link.incrementFloatProperty(PROP_WEIGHT,weight);
-					link.incrementIntProperty(PROP_COUNT,intersection.size());
+		if(!articleGraphs.isEmpty())
+		{	for(Article article: articles)
+			{	Map<String,String> properties = article.getNodeProperties();
+				String coreLabel = "";
+				if(article.core)
+					coreLabel = article.bibtexKey;
+				for(Graph graph: articleGraphs)
+				{	Node node = graph.retrieveNode(article.bibtexKey);
+					for(Entry<String,String> entry: properties.entrySet())
+						node.setProperty(entry.getKey(), entry.getValue());
+					node.setProperty(PROP_CORE_LABEL, coreLabel);
+					if(graph==authorshipGraph)
+						node.setProperty(PROP_TYPE, "Article");
+				}
+			}
+		}
+		
+		// add the author nodes
+		if(!authorGraphs.isEmpty())
+		{	for(Author author: getAuthors())
+			{	Map<String,String> properties = author.getNodeProperties();
+				for(Graph graph: authorGraphs)
+				{	Node node = graph.retrieveNode(author.getNodeName());
+					for(Entry<String,String> entry: properties.entrySet())
+						node.setProperty(entry.getKey(), entry.getValue());
+					if(graph==authorshipGraph)
+					{	node.setProperty(PROP_TYPE, "Author");
+						node.setProperty(PROP_CORE_LABEL, "");
+					}
+				}
+			}
+		}
+		
+		// add the links
+		freezeCitations();
+		List<Set<String>> authorGroups = new ArrayList<Set<String>>();
+		List<Set<String>> citedGroups = new ArrayList<Set<String>>();
+		List<Set<String>> citingGroups = new ArrayList<Set<String>>();
+		for(Article article: articles)
+		{	String name = article.bibtexKey;
+			List<Author> authors = article.getAuthors();
+			int id = article.articleId;
+			
+			// authorship links
+			if(authorshipGraph!=null)
+			{	for(Author author: authors)
+					authorshipGraph.retrieveLink(name, author.getNodeName());
+			}
+			
+			// author coauthorship links
+			if(authorCoauthorshipGraph!=null)
+			{	for(int i=0;i<authors.size()-1;i++)
+				{	String name1 = authors.get(i).getNodeName();
+					for(int j=i+1;j<authors.size();j++)
+					{	String name2 = authors.get(j).getNodeName();
+						Link link = authorCoauthorshipGraph.retrieveLink(name1, name2);
+						link.incrementIntProperty(PROP_WEIGHT);
+					}
 				}
 			}
+			
+			// citation links
+			if(articleCitationGraph!=null || authorCitationGraph!=null)
+			{	for(int i=citingOffsets[id];i<citingOffsets[id+1];i++)
+				{	Article artTarg = articleList.get(citingIds[i]);
+					if(articleCitationGraph!=null)
+					{	Link link = articleCitationGraph.retrieveLink(name, artTarg.bibtexKey);
+						link.incrementIntProperty(PROP_WEIGHT);
+					}
+					if(authorCitationGraph!=null)
+					{	List<Author> authorsTarg = artTarg.getAuthors();
+						for(Author authorSrc: authors)
+						{	String nameSrc = authorSrc.getNodeName();
+							for(Author authorTarg: authorsTarg)
+							{	String nameTarg = authorTarg.getNodeName();
+								Link link = authorCitationGraph.retrieveLink(nameSrc, nameTarg);
+								link.incrementIntProperty(PROP_WEIGHT);
+							}
+						}
+					}
+				}
+			}
+			
+			// groups used for the projections
+			if(articleCoauthorshipGraph!=null)
+			{	Set<String> group = new TreeSet<String>();
+				for(Author author: authors)
+					group.add(author.normname);
+				authorGroups.add(group);
+			}
+			if(articleCocitingGraph!=null)
+			{	Set<String> group = new TreeSet<String>();
+				for(int i=citedOffsets[id];i<citedOffsets[id+1];i++)
+					group.add(articleList.get(citedIds[i]).bibtexKey);
+				citedGroups.add(group);
+			}
+			if(articleCocitedGraph!=null)
+			{	Set<String> group = new TreeSet<String>();
+				for(int i=citingOffsets[id];i<citingOffsets[id+1];i++)
+					group.add(articleList.get(citingIds[i]).bibtexKey);
+				citingGroups.add(group);
+			}
 		}
 		
+		// add the projection links (a single pool is shared by all projections)
+		ForkJoinPool pool = null;
+		boolean projections = articleCoauthorshipGraph!=null || articleCocitingGraph!=null || articleCocitedGraph!=null;
+		if(projections && threadNumber>1 && !ForkJoinTask.inForkJoinPool())
+			pool = new ForkJoinPool(threadNumber);
+		if(articleCoauthorshipGraph!=null)
+			addOverlapLinks(articleCoauthorshipGraph, articles, authorGroups, pool);
+		if(articleCocitingGraph!=null)
+			addOverlapLinks(articleCocitingGraph, articles, citedGroups, pool);
+		if(articleCocitedGraph!=null)
+			addOverlapLinks(articleCocitedGraph, articles, citingGroups, pool);
+		if(pool!=null)
+			pool.shutdown();
+		
 		return result;
 	}
 	
 	/**
-	 * Builds a cocited network of articles. Each node is an article, 
-	 * each link is undirected and connects two articles cited by the same
-	 * reference, and its weight represents Jaccard's coefficient 
-	 * processed over the two concerned groups of references. An additional
-	 * integer link attribute corresponds to the number of common references.
+	 * Creates an empty graph of the specified type, and
+	 * declares the appropriate node and link properties.
 	 * 
+	 * @param type
+	 * 		Type of the graph.
 	 * @return
-	 * 		An article coauthorship graph. 
+	 * 		The new (empty) graph.
 	 */
-	public Graph buildArticleCocitedGraph()
-	{	Graph result;
+	private Graph initGraph(GraphType type)
+	{	Graph result = null;
+		switch(type)
+		{	case AUTHORSHIP:
+				result = new Graph("Authorship network", false);
+				result.addNodeProperty(PROP_TYPE, "string");
+				result.addNodeProperty(Author.PROP_FULLNAME, "string");
+				addArticleNodeProperties(result);
+				break;
+			case ARTICLE_CITATION:
+				result = new Graph("Article citation network", true);
+				addArticleNodeProperties(result);
+				result.addLinkProperty(PROP_WEIGHT, "int");
+				break;
+			case AUTHOR_CITATION:
+				result = new Graph("Author citation network", true);
+				result.addNodeProperty(Author.PROP_FULLNAME, "string");
+				result.addLinkProperty(PROP_WEIGHT, "int");
+				break;
+			case ARTICLE_COAUTHORSHIP:
+				result = new Graph("Article coauthorship network", false);
+				addArticleNodeProperties(result);
+				result.addLinkProperty(PROP_WEIGHT, "float");
+				result.addLinkProperty(PROP_COUNT, "int");
+				break;
+			case AUTHOR_COAUTHORSHIP:
+				result = new Graph("Author coauthorship network", false);
+				result.addNodeProperty(Author.PROP_FULLNAME, "string");
+				result.addLinkProperty(PROP_WEIGHT, "int");
+				break;
+			case ARTICLE_COCITING:
+				result = new Graph("Article cociting network", false);
+				addArticleNodeProperties(result);
+				result.addLinkProperty(PROP_WEIGHT, "float");
+				result.addLinkProperty(PROP_COUNT, "int");
+				break;
+			case ARTICLE_COCITED:
+				result = new Graph("Article cocited network", false);
+				addArticleNodeProperties(result);
+				result.addLinkProperty(PROP_WEIGHT, "float");
+				result.addLinkProperty(PROP_COUNT, "int");
+				break;
+		}
+		return result;
+	}
+	
+	/**
+	 * Declares the node properties used to describe
+	 * articles in the specified graph.
+	 * 
+	 * @param graph
+	 * 		Graph to complete.
+	 */
+	private void addArticleNodeProperties(Graph graph)
+	{	graph.addNodeProperty(Article.PROP_CORE, "string");
+		graph.addNodeProperty(JabrefFileHandler.FLD_AUTHOR, "string");
+		graph.addNodeProperty(JabrefFileHandler.FLD_CHAPTER, "string");
+		graph.addNodeProperty(JabrefFileHandler.FLD_DOI, "string");
+		graph.addNodeProperty(JabrefFileHandler.FLD_JOURNAL1, "string");
+		graph.addNodeProperty(JabrefFileHandler.FLD_NUMBER, "string");
+		graph.addNodeProperty(JabrefFileHandler.FLD_PAGES, "string");
+		graph.addNodeProperty(JabrefFileHandler.FLD_TITLE_ARTICLE, "string");
+		graph.addNodeProperty(JabrefFileHandler.FLD_TITLE_BOOK, "string");
+		graph.addNodeProperty(JabrefFileHandler.FLD_URL, "string");
+		graph.addNodeProperty(JabrefFileHandler.FLD_VOLUME, "string");
+		graph.addNodeProperty(JabrefFileHandler.FLD_YEAR, "string");
+		graph.addNodeProperty(PROP_CORE_LABEL, "string");
+	}
+	
+	/**
+	 * Adds to the specified graph an undirected link between each pair of
+	 * articles whose groups (of references, authors, etc.) intersect. The weight 
+	 * of the link is Jaccard's coefficient processed over both groups, and its 
+	 * count is the size of their intersection.
+	 * <br/>
+	 * Instead of comparing all pairs of articles, the method first builds an inverted 
+	 * index associating each group element to the (sorted) list of articles containing it. 
+	 * For each article, it then counts the elements shared with the following articles 
+	 * by going through the lists of its own elements. So, only the pairs of articles 
+	 * which actually share something are considered, and the memory used by the index
+	 * is linear in the total size of the groups.
+	 * <br/>
+	 * If several threads are allowed (see {@link #setThreadNumber(int)}), the articles
+	 * are split into blocks of rows processed in parallel, each thread using its own
+	 * counters. The overlaps of all blocks are then added to the graph sequentially,
+	 * in the order of the rows, so the result does not depend on the number of threads.
+	 * 
+	 * @param graph
+	 * 		Graph to complete (its nodes must already exist).
+	 * @param articles
+	 * 		List of articles.
+	 * @param groups
+	 * 		Group associated to each article, in the same order.
+	 * @param pool
+	 * 		Pool used to process the blocks of rows, or {@code null} to use the
+	 * 		current fork/join pool (if any).
+	 */
+	private void addOverlapLinks(Graph graph, List<Article> articles, List<Set<String>> groups, ForkJoinPool pool)
+	{	// number the group elements, and replace each group by the ids of its elements
+		Map<String,Integer> elementIds = new HashMap<String,Integer>();
+		int[] postingSizes = new int[16];
+		int[][] members = new int[articles.size()][];
+		for(int i=0;i<articles.size();i++)
+		{	Set<String> group = groups.get(i);
+			int[] ids = new int[group.size()];
+			int k = 0;
+			for(String element: group)
+			{	Integer id = elementIds.get(element);
+				if(id==null)
+				{	id = elementIds.size();
+					elementIds.put(element, id);
+					if(id==postingSizes.length)
+						postingSizes = Arrays.copyOf(postingSizes, 2*postingSizes.length);
+				}
+				postingSizes[id]++;
+				ids[k] = id;
+				k++;
+			}
+			members[i] = ids;
+		}
 		
-		// create the graph
-		String title = "Article cocited network";
-		result = new Graph(title, false);
-		result.addNodeProperty(Article.PROP_CORE, "string");
-		result.addNodeProperty(JabrefFileHandler.FLD_AUTHOR, "string");
-		result.addNodeProperty(JabrefFileHandler.FLD_CHAPTER, "string");
-		result.addNodeProperty(JabrefFileHandler.FLD_DOI, "string");
-		result.addNodeProperty(JabrefFileHandler.FLD_JOURNAL1, "string");
-		result.addNodeProperty(JabrefFileHandler.FLD_NUMBER, "string");
-		result.addNodeProperty(JabrefFileHandler.FLD_AUTHOR, "string");
-		result.addNodeProperty(JabrefFileHandler.FLD_PAGES, "string");
-		result.addNodeProperty(JabrefFileHandler.FLD_TITLE_ARTICLE, "string");
-		result.addNodeProperty(JabrefFileHandler.FLD_TITLE_BOOK, "string");
-		result.addNodeProperty(JabrefFileHandler.FLD_URL, "string");
-		result.addNodeProperty(JabrefFileHandler.FLD_VOLUME, "string");
-		result.addNodeProperty(JabrefFileHandler.FLD_YEAR, "string");
-		result.addNodeProperty(PROP_CORE_LABEL, "string");
-		result.addLinkProperty(PROP_WEIGHT, "float");
-		result.addLinkProperty(PROP_COUNT, "int");
-
-		// add the nodes
-		for(Article article: getArticles())
-		{	Node node = article.buildNode(result);
-			if(article.core)
-				node.setProperty(Corpus.PROP_CORE_LABEL, article.bibtexKey);
+		// build the inverted index (each posting list is sorted, and shared by all its articles)
+		int[][] postings = new int[elementIds.size()][];
+		for(int e=0;e<postings.length;e++)
+			postings[e] = new int[postingSizes[e]];
+		int[] fill = new int[postings.length];
+		for(int i=0;i<members.length;i++)
+		{	for(int e: members[i])
+			{	postings[e][fill[e]] = i;
+				fill[e]++;
+			}
+		}
+		
+		// count the common elements of each pair of articles
+		List<int[]> overlaps;
+		if(threadNumber>1 && articles.size()>OverlapTask.BLOCK_SIZE)
+		{	OverlapTask task = new OverlapTask(members, postings, 0, articles.size()-1);
+			// already running in a fork/join pool: no nested pool
+			if(pool==null || ForkJoinTask.inForkJoinPool())
+				overlaps = task.invoke();
 			else
-				node.setProperty(Corpus.PROP_CORE_LABEL, "");
+				overlaps = pool.invoke(task);
+		}
+		else
+		{	overlaps = new ArrayList<int[]>();
+			int[] counts = new int[articles.size()];
+			if(articles.size()>1)
+				overlaps.add(OverlapTask.countOverlaps(members, postings, 0, articles.size()-1, counts));
 		}
 		
-		// add the links
-		List<Article> articles = new ArrayList<Article>(getArticles());
-		for(int i=0;i<articles.size()-1;i++)
-		{	Article article1 = articles.get(i);
-			String name1 = article1.bibtexKey;
-			Set<Article> citing1 = article1.citingArticles;
-			for(int j=i+1;j<articles.size();j++)
-			{	Article article2 = articles.get(j);
-				String name2 = article2.bibtexKey;
-				Set<Article> citing2 = article2.citingArticles;
-				Set<Article> intersection = new TreeSet<Article>(citing1);
-				intersection.retainAll(citing2);
-				if(!intersection.isEmpty())
-				{	Set<Article> union = new TreeSet<Article>(citing1);
-					union.addAll(citing2);
-					float weight = intersection.size() / (float)union.size();
-					Link link = result.retrieveLink(name1, name2);
-					link.incrementFloatProperty(PROP_WEIGHT,weight);
-					link.incrementIntProperty(PROP_COUNT,intersection.size());
+		// create the corresponding links
+		for(int[] block: overlaps)
+		{	for(int k=0;k<block.length && block[k]>=0;k=k+3)
+			{	int i = block[k];
+				int j = block[k+1];
+				int intersection = block[k+2];
+				String name1 = articles.get(i).bibtexKey;
+				String name2 = articles.get(j).bibtexKey;
+				int union = members[i].length + members[j].length - intersection;
+				float weight = intersection / (float)union;
+				Link link = graph.retrieveLink(name1, name2);
+				link.incrementFloatProperty(PROP_WEIGHT,weight);
+				link.incrementIntProperty(PROP_COUNT,intersection);
+			}
+		}
+	}
+	
+	/////////////////////////////////////////////////////////////////
+	// SNAPSHOT			/////////////////////////////////////////////
+	/////////////////////////////////////////////////////////////////
+	/** Magic number identifying the corpus snapshot files ("BPCS") */
+	private final static int SNAPSHOT_MAGIC = 0x42504353;
+	/** Version of the corpus snapshot format */
+	private final static int SNAPSHOT_VERSION = 5;
+	/** Fingerprint of the compiled program, lazily computed (cf. {@link #getBuildFingerprint()}) */
+	private static String buildFingerprint = null;
+	
+	/**
+	 * Returns the fingerprint of the compiled program, which is recorded
+	 * in the snapshots: a snapshot produced by another build is ignored,
+	 * since the processing of the inputs may have changed in between.
+	 * 
+	 * @return
+	 * 		Hash of the compiled program.
+	 * 
+	 * @throws IOException
+	 * 		Problem while reading the compiled program.
+	 */
+	private static synchronized String getBuildFingerprint() throws IOException
+	{	if(buildFingerprint==null)
+			buildFingerprint = FileTools.hashCodeSource(Corpus.class);
+		return buildFingerprint;
+	}
+	
+	/**
+	 * Records this corpus in a compact binary snapshot: authors,
+	 * articles (including their fields and flags) and citations. 
+	 * The specified key identifies the inputs used to build the 
+	 * corpus (typically a hash of the input files), and must be 
+	 * provided again to read the snapshot. The fingerprint of the
+	 * program is recorded too, so that the snapshot is only reused
+	 * by the same build.
+	 * <br/>
+	 * The snapshot is first written in a temporary file, which then
+	 * replaces the existing one: a previous snapshot is never
+	 * overwritten in place, nor left half-written.
+	 * 
+	 * @param dataFile
+	 * 		File to create.
+	 * @param inputKey
+	 * 		Key identifying the inputs of this corpus.
+	 * 
+	 * @throws IOException
+	 * 		Problem while recording the file.
+	 */
+	public void writeToBinary(File dataFile, String inputKey) throws IOException
+	{	// number the authors (including those not registered in the corpus)
+		List<Author> authors = new ArrayList<Author>(authorsMap.values());
+		int registeredCount = authors.size();
+		Map<Author,Integer> authorIndices = new IdentityHashMap<Author,Integer>();
+		for(Author author: authors)
+			authorIndices.put(author, authorIndices.size());
+		Collection<Article> articles = articlesMap.values();
+		for(Article article: articles)
+		{	for(Author author: article.getAuthors())
+			{	if(!authorIndices.containsKey(author))
+				{	authorIndices.put(author, authorIndices.size());
+					authors.add(author);
 				}
 			}
 		}
 		
+		// number the articles, in the order of the map (which is not necessarily the order of their ids)
+		int[] articleIndices = new int[articleList.size()];
+		int index = 0;
+		for(Article article: articles)
+		{	articleIndices[article.articleId] = index;
+			index++;
+		}
+		
+		// record temporary file
+		File tempFile = new File(dataFile.getPath()+".tmp");
+		FileOutputStream out = new FileOutputStream(tempFile);
+		DataOutputStream dataOut = new DataOutputStream(new BufferedOutputStream(out));
+		try
+		{	// header
+			dataOut.writeInt(SNAPSHOT_MAGIC);
+			dataOut.writeInt(SNAPSHOT_VERSION);
+			writeString(dataOut, getBuildFingerprint());
+			writeString(dataOut, inputKey);
+			
+			// authors
+			dataOut.writeInt(authorCounter);
+			dataOut.writeInt(authors.size());
+			dataOut.writeInt(registeredCount);
+			for(Author author: authors)
+			{	dataOut.writeInt(author.authorId);
+				writeString(dataOut, author.lastname);
+				writeString(dataOut, author.firstnameInitials);
+				writeString(dataOut, author.normname);
+			}
+			
+			// articles
+			dataOut.writeInt(articles.size());
+			for(Article article: articles)
+			{	writeString(dataOut, article.bibtexKey);
+				dataOut.writeBoolean(article.core);
+				dataOut.writeBoolean(article.ignored);
+				dataOut.writeBoolean(article.present);
+				dataOut.writeInt(article.timesCited);
+				writeString(dataOut, article.getTitle());
+				writeString(dataOut, article.getNormTitle());
+				SourceType sourceType = article.getSourceType();
+				if(sourceType==null)
+					dataOut.writeByte(-1);
+				else
+					dataOut.writeByte(sourceType.ordinal());
+				writeString(dataOut, article.getSourceName());
+				writeString(dataOut, article.getNormSourceName());
+				List<Author> artAuthors = article.getAuthors();
+				dataOut.writeInt(artAuthors.size());
+				for(Author author: artAuthors)
+					dataOut.writeInt(authorIndices.get(author));
+				for(String value: getArticleFields(article))
+					writeString(dataOut, value);
+			}
+			
+			// citations (only the cited articles, the citing ones are deduced from them)
+			freezeCitations();
+			for(Article article: articles)
+			{	int id = article.articleId;
+				dataOut.writeInt(citedOffsets[id+1]-citedOffsets[id]);
+				for(int i=citedOffsets[id];i<citedOffsets[id+1];i++)
+					dataOut.writeInt(articleIndices[citedIds[i]]);
+			}
+		}
+		finally
+		{	dataOut.close();
+		}
+		
+		// replace the previous snapshot
+		FileTools.replaceFile(tempFile, dataFile);
+	}
+	
+	/**
+	 * Reads a corpus recorded with {@link #writeToBinary(File, String)}.
+	 * If the file does not exist, was recorded with another version of 
+	 * the format, by another build of the program, or for different inputs 
+	 * (i.e. with a different key), the method returns {@code null}.
+	 * <br/>
+	 * The file is entirely loaded in memory and closed before being
+	 * decoded, so that it can be replaced afterwards.
+	 * 
+	 * @param dataFile
+	 * 		Binary file to read.
+	 * @param inputKey
+	 * 		Key identifying the inputs of the expected corpus.
+	 * @return
+	 * 		A new {@code Corpus} object, or {@code null} if the
+	 * 		snapshot cannot be used.
+	 *  
+	 * @throws IOException
+	 * 		Problem while accessing the file, or invalid file. 
+	 */
+	public static Corpus readFromBinary(File dataFile, String inputKey) throws IOException
+	{	Corpus result = null;
+		
+		if(dataFile.exists())
+		{	ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(dataFile.toPath()));
+			
+			// header
+			int magic = buffer.getInt();
+			if(magic!=SNAPSHOT_MAGIC)
+				throw new IOException("Not a corpus snapshot file ("+dataFile+")");
+			int version = buffer.getInt();
+			if(version==SNAPSHOT_VERSION 
+					&& getBuildFingerprint().equals(readString(buffer))
+					&& inputKey.equals(readString(buffer)))
+			{	result = readSnapshot(buffer);
+				// the values are now shared by the articles
+				Article.clearValuePool();
+			}
+		}
+		
+		return result;
+	}
+	
+	/**
+	 * Reads the content of a corpus snapshot, located
+	 * after its header.
+	 * 
+	 * @param buffer
+	 * 		Buffer containing the snapshot.
+	 * @return
+	 * 		The corresponding corpus.
+	 */
+	private static Corpus readSnapshot(ByteBuffer buffer)
+	{	Corpus result = new Corpus();
+		
+		// authors
+		result.authorCounter = buffer.getInt();
+		Author[] authors = new Author[buffer.getInt()];
+		int registeredCount = buffer.getInt();
+		for(int i=0;i<authors.length;i++)
+		{	int authorId = buffer.getInt();
+			String lastname = readString(buffer);
+			String firstnameInitials = readString(buffer);
+			String normname = readString(buffer);
+			Author author = new Author(lastname, firstnameInitials, normname);
+			author.authorId = authorId;
+			authors[i] = author;
+			if(i<registeredCount)
+				result.authorsMap.put(author.normname, author);
+		}
+		
+		// articles
+		Article[] articles = new Article[buffer.getInt()];
+		for(int i=0;i<articles.length;i++)
+		{	Article article = new Article();
+			article.bibtexKey = readString(buffer);
+			article.core = buffer.get()!=0;
+			article.ignored = buffer.get()!=0;
+			article.present = buffer.get()!=0;
+			article.timesCited = buffer.getInt();
+			String title = readString(buffer);
+			String normTitle = readString(buffer);
+			article.restoreTitle(title, normTitle);
+			int sourceType = buffer.get();
+			String sourceName = readString(buffer);
+			String normSourceName = readString(buffer);
+			if(sourceType>=0)
+				article.restoreSource(SourceType.values()[sourceType], sourceName, normSourceName);
+			int authorCount = buffer.getInt();
+			for(int j=0;j<authorCount;j++)
+				article.getAuthors().add(authors[buffer.getInt()]);
+			String[] values = new String[ARTICLE_FIELD_COUNT];
+			for(int j=0;j<values.length;j++)
+				values[j] = readString(buffer);
+			setArticleFields(article, values);
+			articles[i] = article;
+			result.addArticle(article);
+		}
+		
+		// citations
+		for(Article article: articles)
+		{	int citedCount = buffer.getInt();
+			for(int j=0;j<citedCount;j++)
+				result.addCitation(article, articles[buffer.getInt()]);
+		}
+		
+		return result;
+	}
+	
+	/** Number of plain text fields of the articles recorded in the snapshots */
+	private final static int ARTICLE_FIELD_COUNT = 5 + ArticleField.values().length;
+	
+	/**
+	 * Returns the values of the plain text fields of the
+	 * specified article, in the order used in the snapshots:
+	 * first the identity fields, then the optional ones in
+	 * the order of {@link ArticleField}.
+	 * 
+	 * @param article
+	 * 		Article of interest.
+	 * @return
+	 * 		Values of its fields.
+	 */
+	private static String[] getArticleFields(Article article)
+	{	String[] result = new String[ARTICLE_FIELD_COUNT];
+		int i = 0;
+		result[i++] = article.volume;
+		result[i++] = article.issue;
+		result[i++] = article.page;
+		result[i++] = article.year;
+		result[i++] = article.doi;
+		for(ArticleField field: ArticleField.values())
+			result[i++] = article.getField(field);
+		return result;
+	}
+	
+	/**
+	 * Sets the plain text fields of the specified article,
+	 * using values in the order used in the snapshots.
+	 * 
+	 * @param article
+	 * 		Article to complete.
+	 * @param values
+	 * 		Values of its fields.
+	 */
+	private static void setArticleFields(Article article, String[] values)
+	{	int i = 0;
+		article.volume = values[i++];
+		article.issue = values[i++];
+		article.page = values[i++];
+		article.year = Article.internValue(values[i++]);
+		article.doi = values[i++];
+		for(ArticleField field: ArticleField.values())
+			article.setField(field, values[i++]);
+	}
+	
+	/**
+	 * Writes the specified string (possibly {@code null}) 
+	 * as its length in bytes followed by its UTF-8 bytes.
+	 * 
+	 * @param dataOut
+	 * 		Stream to write in.
+	 * @param str
+	 * 		String to write.
+	 * 
+	 * @throws IOException
+	 * 		Problem while writing the string.
+	 */
+	private static void writeString(DataOutputStream dataOut, String str) throws IOException
+	{	if(str==null)
+			dataOut.writeInt(-1);
+		else
+		{	byte[] bytes = str.getBytes(StandardCharsets.UTF_8);
+			dataOut.writeInt(bytes.length);
+			dataOut.write(bytes);
+		}
+	}
+	
+	/**
+	 * Reads a string written by {@link #writeString(DataOutputStream, String)}.
+	 * 
+	 * @param buffer
+	 * 		Buffer to read.
+	 * @return
+	 * 		The string read (possibly {@code null}).
+	 */
+	private static String readString(ByteBuffer buffer)
+	{	String result = null;
+		int length = buffer.getInt();
+		if(length>=0)
+		{	byte[] bytes = new byte[length];
+			buffer.get(bytes);
+			result = new String(bytes, StandardCharsets.UTF_8);
+		}
 		return result;
 	}
+	
+	/////////////////////////////////////////////////////////////////
+	// PARALLELISM		/////////////////////////////////////////////
+	/////////////////////////////////////////////////////////////////
+	/** Number of threads used to process the pairwise overlaps of the projection graphs */
+	private int threadNumber = 1;
+	
+	/**
+	 * Changes the number of threads used to process the pairwise overlaps
+	 * when building the projection graphs (article coauthorship, cociting
+	 * and cocited graphs). The value {@code 1} (default) means a sequential
+	 * processing. The built graphs do not depend on this parameter.
+	 * 
+	 * @param threadNumber
+	 * 		Number of threads.
+	 */
+	public void setThreadNumber(int threadNumber)
+	{	this.threadNumber = threadNumber;
+	}
+	
+	/**
+	 * Fork/join task counting the overlaps for a range of rows, i.e. 
+	 * the number of group elements shared by each article of the range 
+	 * and the articles located after it in the list. Large ranges are 
+	 * split into two halves processed in parallel. The result is the list
+	 * of the blocks of overlaps, ordered by row.
+	 */
+	@SuppressWarnings("serial")
+	private static class OverlapTask extends RecursiveTask<List<int[]>>
+	{	/** Maximal number of rows processed without splitting the range */
+		private final static int BLOCK_SIZE = 256;
+		
+		/**
+		 * Builds a task for the specified range of rows.
+		 * 
+		 * @param members
+		 * 		For each article, the ids of its group elements.
+		 * @param postings
+		 * 		For each group element, the sorted list of the articles containing it.
+		 * @param from
+		 * 		First row of the range (included).
+		 * @param to
+		 * 		Last row of the range (excluded).
+		 */
+		public OverlapTask(int[][] members, int[][] postings, int from, int to)
+		{	this.members = members;
+			this.postings = postings;
+			this.from = from;
+			this.to = to;
+		}
+		
+		/** For each article, the ids of its group elements */
+		private int[][] members;
+		/** For each group element, the sorted list of the articles containing it */
+		private int[][] postings;
+		/** First row of the range (included) */
+		private int from;
+		/** Last row of the range (excluded) */
+		private int to;
+		/** Counters of each thread */
+		private final static ThreadLocal<int[]> COUNTS = new ThreadLocal<int[]>();
+		
+		@Override
+		protected List<int[]> compute()
+		{	List<int[]> result;
+			if(to-from<=BLOCK_SIZE)
+			{	int[] counts = COUNTS.get();
+				if(counts==null || counts.length<members.length)
+				{	counts = new int[members.length];
+					COUNTS.set(counts);
+				}
+				int[] block = countOverlaps(members, postings, from, to, counts);
+				result = new ArrayList<int[]>();
+				result.add(block);
+			}
+			else
+			{	int middle = (from + to) / 2;
+				OverlapTask left = new OverlapTask(members, postings, from, middle);
+				OverlapTask right = new OverlapTask(members, postings, middle, to);
+				left.fork();
+				result = new ArrayList<int[]>(right.compute());
+				result.addAll(0, left.join());
+			}
+			return result;
+		}
+		
+		/**
+		 * Counts the overlaps for the specified range of rows. The result is
+		 * a sequence of triples (row, column, count), ordered by row then by 
+		 * first occurrence of the column, and ended by {@code -1} if the array
+		 * is not full.
+		 * 
+		 * @param members
+		 * 		For each article, the ids of its group elements.
+		 * @param postings
+		 * 		For each group element, the sorted list of the articles containing it.
+		 * @param from
+		 * 		First row of the range (included).
+		 * @param to
+		 * 		Last row of the range (excluded).
+		 * @param counts
+		 * 		Array of counters, all equal to zero.
+		 * @return
+		 * 		Array of overlap triples.
+		 */
+		private static int[] countOverlaps(int[][] members, int[][] postings, int from, int to, int[] counts)
+		{	int[] result = new int[3*64];
+			int size = 0;
+			int[] touched = new int[16];
+			for(int i=from;i<to;i++)
+			{	// count the common elements
+				int touchedNbr = 0;
+				for(int e: members[i])
+				{	// the list is sorted and contains i: only the following articles are considered
+					int[] posting = postings[e];
+					int start = Arrays.binarySearch(posting, i) + 1;
+					for(int k=start;k<posting.length;k++)
+					{	int j = posting[k];
+						if(counts[j]==0)
+						{	if(touchedNbr==touched.length)
+								touched = Arrays.copyOf(touched, 2*touched.length);
+							touched[touchedNbr] = j;
+							touchedNbr++;
+						}
+						counts[j]++;
+					}
+				}
+				
+				// record the overlaps and reset the counters
+				if(size+3*touchedNbr>result.length)
+					result = Arrays.copyOf(result, Math.max(2*result.length, size+3*touchedNbr));
+				for(int k=0;k<touchedNbr;k++)
+				{	int j = touched[k];
+					result[size] = i;
+					result[size+1] = j;
+					result[size+2] = counts[j];
+					size = size + 3;
+					counts[j] = 0;
+				}
+			}
+			if(size<result.length)
+				result[size] = -1;
+			return result;
+		}
+	}
 }
@@ -0,0 +1,72 @@
+package fr.univavignon.biblioproc.data.biblio;
+
+/*
+ * Biblio Process
+ * Copyright 2011-19 Vincent Labatut 
+ * 
+ * This file is part of Biblio Process.
+ * 
+ * Biblio Process is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 2 of the License, or
+ * (at your option) any later version.
+ * 
+ * Biblio Process is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with Biblio Process.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/**
+ * This type represents the various networks which
+ * can be extracted from a {@link Corpus}.  
+ */
+public enum GraphType
+{	/** Bipartite network of articles and authors */
+	AUTHORSHIP("authorship"),
+	
+	/** Citation network of articles */
+	ARTICLE_CITATION("article_citation"),
+	
+	/** Citation network of authors */
+	AUTHOR_CITATION("author_citation"),
+	
+	/** Coauthorship network of articles */
+	ARTICLE_COAUTHORSHIP("article_coauthorship"),
+	
+	/** Coauthorship network of authors */
+	AUTHOR_COAUTHORSHIP("author_coauthorship"),
+	
+	/** Cociting network of articles */
+	ARTICLE_COCITING("article_cociting"),
+	
+	/** Cocited network of articles */
+	ARTICLE_COCITED("article_cocited");
+	
+	/**
+	 * Builds a graph type.
+	 * 
+	 * @param fileName
+	 * 		Base name of the files containing this type of graph.
+	 */
+	GraphType(String fileName)
+	{	this.fileName = fileName;
+	}
+	
+	/** Base name of the files containing this type of graph */
+	private String fileName;
+	
+	/**
+	 * Returns the base name (without extension) of 
+	 * the files containing this type of graph.
+	 * 
+	 * @return
+	 * 		Base name of the files.
+	 */
+	public String getFileName()
+	{	return fileName;
+	}
+}
@@ -0,0 +1,178 @@
+package fr.univavignon.biblioproc.data.graph;
+
+/*
+ * Biblio Process
+ * Copyright 2011-19 Vincent Labatut 
+ * 
+ * This file is part of Biblio Process.
+ * 
+ * Biblio Process is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 2 of the License, or
+ * (at your option) any later version.
+ * 
+ * Biblio Process is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with Biblio Process.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+import java.io.BufferedOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Code shared by the graph exporters: opening
+ * (possibly compressed) files, and numbering the
+ * nodes. All exporters number the nodes the same way,
+ * following the lexicographic order of their names, so 
+ * that the files produced by different exporters can be
+ * matched.
+ * 
+ * @author Vincent Labatut
+ */
+public abstract class AbstractGraphExporter implements GraphExporter
+{
+	/////////////////////////////////////////////////////////////////
+	// FILES			/////////////////////////////////////////////
+	/////////////////////////////////////////////////////////////////
+	/** Extension added to compressed files */
+	protected final static String EX_GZIP = ".gz";
+	/** Size of the output buffers */
+	private final static int BUFFER_SIZE = 1 << 16;
+	
+	/**
+	 * Opens a byte stream to the specified file, adding the
+	 * gzip extension and compression if required.
+	 * 
+	 * @param path
+	 * 		Path of the file (with its extension).
+	 * @param compressed
+	 * 		Whether the file should be gzipped.
+	 * @return
+	 * 		A buffered stream to the file.
+	 * 
+	 * @throws IOException
+	 * 		Problem while opening the file.
+	 */
+	protected OutputStream openStream(String path, boolean compressed) throws IOException
+	{	OutputStream result;
+		if(compressed)
+		{	FileOutputStream out = new FileOutputStream(path+EX_GZIP);
+			result = new BufferedOutputStream(new GZIPOutputStream(out, BUFFER_SIZE), BUFFER_SIZE);
+		}
+		else
+		{	FileOutputStream out = new FileOutputStream(path);
+			result = new BufferedOutputStream(out, BUFFER_SIZE);
+		}
+		return result;
+	}
+	
+	/**
+	 * Opens a UTF-8 text stream to the specified file, adding the
+	 * gzip extension and compression if required.
+	 * 
+	 * @param path
+	 * 		Path of the file (with its extension).
+	 * @param compressed
+	 * 		Whether the file should be gzipped.
+	 * @return
+	 * 		A buffered writer to the file.
+	 * 
+	 * @throws IOException
+	 * 		Problem while opening the file.
+	 */
+	protected Writer openWriter(String path, boolean compressed) throws IOException
+	{	OutputStream out = openStream(path, compressed);
+		Writer result = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+		return result;
+	}
+	
+	/////////////////////////////////////////////////////////////////
+	// IDS				/////////////////////////////////////////////
+	/////////////////////////////////////////////////////////////////
+	/**
+	 * Returns the nodes of the specified graph,
+	 * in the order used to number them.
+	 * 
+	 * @param graph
+	 * 		Graph to export.
+	 * @return
+	 * 		Sorted list of nodes.
+	 */
+	protected List<Node> getSortedNodes(Graph graph)
+	{	List<Node> result = graph.getAllNodes();
+		Collections.sort(result);
+		return result;
+	}
+	
+	/**
+	 * Returns the links of the specified graph,
+	 * in the order used to write them.
+	 * 
+	 * @param graph
+	 * 		Graph to export.
+	 * @return
+	 * 		Sorted list of links.
+	 */
+	protected List<Link> getSortedLinks(Graph graph)
+	{	List<Link> result = graph.getAllLinks();
+		Collections.sort(result);
+		return result;
+	}
+	
+	/**
+	 * Numbers the specified nodes according to their
+	 * position in the list. The result is indexed by 
+	 * internal node id.
+	 * 
+	 * @param nodes
+	 * 		Sorted list of nodes.
+	 * @param first
+	 * 		Number of the first node (0 or 1 depending on the format).
+	 * @return
+	 * 		Array associating a number to each internal node id.
+	 */
+	protected int[] assignIds(List<Node> nodes, int first)
+	{	int[] result = new int[nodes.size()];
+		int i = first;
+		for(Node node: nodes)
+		{	result[node.getId()] = i;
+			i++;
+		}
+		return result;
+	}
+	
+	/////////////////////////////////////////////////////////////////
+	// VALUES			/////////////////////////////////////////////
+	/////////////////////////////////////////////////////////////////
+	/** Name of the link property used as a weight by the formats supporting it */
+	protected final static String PROP_WEIGHT = "weight";
+	
+	/**
+	 * Returns the column containing the link weights,
+	 * or {@code null} if the graph has no numerical 
+	 * weight property.
+	 * 
+	 * @param graph
+	 * 		Graph to export.
+	 * @return
+	 * 		Weight column, or {@code null}.
+	 */
+	protected PropertyColumn getWeightColumn(Graph graph)
+	{	PropertyColumn result = graph.getLinkColumns().get(PROP_WEIGHT);
+		if(result!=null && !result.isInteger() && !result.isReal())
+			result = null;
+		return result;
+	}
+}
@@ -0,0 +1,194 @@
+package fr.univavignon.biblioproc.data.graph;
+
+/*
+ * Biblio Process
+ * Copyright 2011-19 Vincent Labatut 
+ * 
+ * This file is part of Biblio Process.
+ * 
+ * Biblio Process is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 2 of the License, or
+ * (at your option) any later version.
+ * 
+ * Biblio Process is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with Biblio Process.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+/**
+ * Records a graph using the GEXF 1.2 format. The node and
+ * link properties are declared as GEXF attributes, and the
+ * {@code weight} link property, if any, is also used as the
+ * edge weight. The document is streamed, one element at a time.
+ * Nodes are numbered from 0, and their names are used as labels.
+ * 
+ * @author Vincent Labatut
+ */
+public class GexfGraphExporter extends AbstractGraphExporter
+{
+	/** Extension of the GEXF files */
+	public final static String EX_GEXF = ".gexf";
+	/** GEXF namespace */
+	private final static String NAMESPACE_URL = "http://www.gexf.net/1.2draft";
+	/** GEXF version */
+	private final static String VERSION = "1.2";
+	
+	@Override
+	public void export(Graph graph, String basePath, boolean compressed) throws IOException
+	{	List<Node> nodes = getSortedNodes(graph);
+		int[] ids = assignIds(nodes, 0);
+		PropertyColumn weights = getWeightColumn(graph);
+		List<PropertyColumn> nodeColumns = new ArrayList<PropertyColumn>(graph.getNodeColumns().values());
+		List<PropertyColumn> linkColumns = new ArrayList<PropertyColumn>(graph.getLinkColumns().values());
+		
+		OutputStream out = openStream(basePath+EX_GEXF, compressed);
+		try
+		{	XMLOutputFactory factory = XMLOutputFactory.newInstance();
+			XMLStreamWriter writer = factory.createXMLStreamWriter(out, "UTF-8");
+			writer.writeStartDocument("UTF-8", "1.0");
+			writer.writeCharacters("\n");
+			writer.writeStartElement("gexf");
+			writer.writeDefaultNamespace(NAMESPACE_URL);
+			writer.writeAttribute("version", VERSION);
+			writer.writeCharacters("\n");
+			
+			writer.writeStartElement("graph");
+			writer.writeAttribute("mode", "static");
+			if(graph.isDirected())
+				writer.writeAttribute("defaultedgetype", "directed");
+			else
+				writer.writeAttribute("defaultedgetype", "undirected");
+			writer.writeCharacters("\n");
+			
+			// attribute declarations
+			writeAttributes(writer, "node", graph.getNodeColumns());
+			writeAttributes(writer, "edge", graph.getLinkColumns());
+			
+			// nodes
+			writer.writeStartElement("nodes");
+			writer.writeCharacters("\n");
+			for(Node node: nodes)
+			{	writer.writeStartElement("node");
+				writer.writeAttribute("id", Integer.toString(ids[node.getId()]));
+				writer.writeAttribute("label", node.getName());
+				writeValues(writer, nodeColumns, node.getId());
+				writer.writeEndElement();
+				writer.writeCharacters("\n");
+			}
+			writer.writeEndElement();
+			writer.writeCharacters("\n");
+			
+			// edges
+			writer.writeStartElement("edges");
+			writer.writeCharacters("\n");
+			int id = 0;
+			for(Link link: getSortedLinks(graph))
+			{	writer.writeStartElement("edge");
+				writer.writeAttribute("id", Integer.toString(id));
+				writer.writeAttribute("source", Integer.toString(ids[link.getSource().getId()]));
+				writer.writeAttribute("target", Integer.toString(ids[link.getTarget().getId()]));
+				if(weights!=null)
+					writer.writeAttribute("weight", weights.getValue(link.getId()));
+				writeValues(writer, linkColumns, link.getId());
+				writer.writeEndElement();
+				writer.writeCharacters("\n");
+				id++;
+			}
+			writer.writeEndElement();
+			writer.writeCharacters("\n");
+			
+			writer.writeEndElement();
+			writer.writeCharacters("\n");
+			writer.writeEndElement();
+			writer.writeCharacters("\n");
+			writer.writeEndDocument();
+			writer.close();
+		}
+		catch(XMLStreamException e)
+		{	throw new IOException(e);
+		}
+		finally
+		{	out.close();
+		}
+	}
+	
+	/**
+	 * Declares the specified properties as GEXF attributes.
+	 * Their ids are their positions in the map.
+	 * 
+	 * @param writer
+	 * 		Stream used to write the file.
+	 * @param mode
+	 * 		Class of the attributes ({@code node} or {@code edge}).
+	 * @param columns
+	 * 		Property columns, indexed by property name.
+	 * 
+	 * @throws XMLStreamException
+	 * 		Problem while writing the file.
+	 */
+	private void writeAttributes(XMLStreamWriter writer, String mode, Map<String,PropertyColumn> columns) throws XMLStreamException
+	{	if(!columns.isEmpty())
+		{	writer.writeStartElement("attributes");
+			writer.writeAttribute("class", mode);
+			writer.writeCharacters("\n");
+			int id = 0;
+			for(Entry<String,PropertyColumn> entry: columns.entrySet())
+			{	PropertyColumn column = entry.getValue();
+				String type = "string";
+				if(column.isInteger())
+					type = "integer";
+				else if(column.isReal())
+					type = "float";
+				writer.writeEmptyElement("attribute");
+				writer.writeAttribute("id", Integer.toString(id));
+				writer.writeAttribute("title", entry.getKey());
+				writer.writeAttribute("type", type);
+				writer.writeCharacters("\n");
+				id++;
+			}
+			writer.writeEndElement();
+			writer.writeCharacters("\n");
+		}
+	}
+	
+	/**
+	 * Writes the attribute values of a node or link.
+	 * 
+	 * @param writer
+	 * 		Stream used to write the file.
+	 * @param columns
+	 * 		Property columns, in the order of the attribute ids.
+	 * @param id
+	 * 		Internal id of the node or link.
+	 * 
+	 * @throws XMLStreamException
+	 * 		Problem while writing the file.
+	 */
+	private void writeValues(XMLStreamWriter writer, List<PropertyColumn> columns, int id) throws XMLStreamException
+	{	if(!columns.isEmpty())
+		{	writer.writeStartElement("attvalues");
+			for(int i=0;i<columns.size();i++)
+			{	writer.writeEmptyElement("attvalue");
+				writer.writeAttribute("for", Integer.toString(i));
+				writer.writeAttribute("value", columns.get(i).getValue(id));
+			}
+			writer.writeEndElement();
+		}
+	}
+}
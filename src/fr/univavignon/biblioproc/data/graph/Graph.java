@@ -20,24 +20,39 @@ package fr.univavignon.biblioproc.data.graph;
  * along with Biblio Process.  If not, see <http://www.gnu.org/licenses/>.
  */
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
-import java.util.Set;
-import java.util.TreeSet;
 
-import org.jdom2.Comment;
-import org.jdom2.Element;
+import javax.xml.XMLConstants;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
 
 import fr.univavignon.biblioproc.tools.file.FileNames;
 
 import fr.univavignon.tools.time.TimeFormatting;
 import fr.univavignon.tools.xml.GraphmlTools;
-import fr.univavignon.tools.xml.XmlTools;
 
 /**
  * This class represents a graph, i.e.
@@ -130,74 +145,17 @@ public class Graph
 		properties.put(name, value);
 	}
 	
-	/**
-	 * Returns the appropriate init value
-	 * for the specified data type. This
-	 * method is used when creating new
-	 * properties.
-	 * 
-	 * @param type
-	 * 		Data type.
-	 * @return
-	 * 		Corresponding init value.
-	 */
-	private String selectInitValue(String type)
-	{	String result = null;
-		switch(type)
-		{	case "xsd:string":
-			case "string":
-				result = "NA";
-				break;
-			case "xsd:integer":
-			case "xsd:int":
-			case "integer":
-			case "int":
-				result = "0";
-				break;
-			case "xsd:float":
-			case "xsd:double":
-			case "float":
-			case "double":
-				result = "0";
-				break;
-			
-		}
-		return result;
-	}
-	
-	/**
-	 * Adds the property types to the specified element.
-	 * 
-	 * @param propertyTypes
-	 * 		Map of property types.
-	 * @param mode
-	 * 		Type of concerned object (graph, node, edge).
-	 * @param element
-	 * 		Root element of the Graphml document.
-	 */
-	private void exportPropertyTypes(Map<String,String> propertyTypes, String mode, Element element)
-	{	for(Entry<String,String> entry: propertyTypes.entrySet())
-		{	String property = entry.getKey();
-			String type = entry.getValue();
-			Element keyElt = new Element(GraphmlTools.ELT_KEY, GraphmlTools.NAMESPACE);
-			
-			String idStr = mode.subSequence(0,1) + "_" + property;
-			keyElt.setAttribute(GraphmlTools.ATT_ID,idStr);
-			keyElt.setAttribute(GraphmlTools.ATT_FOR,mode);
-			keyElt.setAttribute(GraphmlTools.ATT_ATTR_NAME,property);
-			keyElt.setAttribute(GraphmlTools.ATT_ATTR_TYPE,type);
-			
-			element.addContent(keyElt);
-		}
-	}
-	
 	/////////////////////////////////////////////////////////////////
 	// NODES			/////////////////////////////////////////////
 	/////////////////////////////////////////////////////////////////
 	/** Map containing all the graph nodes */
 	private final Map<String,Node> nodesByName = new HashMap<String, Node>();
+	/** List of all the graph nodes, indexed by their id */
+	private final List<Node> nodesById = new ArrayList<Node>();
 	/** Map containing all the node properties and their associated data types */
 	private final Map<String,String> nodePropertyTypes = new HashMap<String, String>();
+	/** Map containing all the node properties and their associated values */
+	private final Map<String,PropertyColumn> nodeColumns = new HashMap<String, PropertyColumn>();
 	
 	/**
 	 * Returns the node whose name is specified.
@@ -215,18 +173,16 @@ public class Graph
 		
 		// if none, create it
 		if(result==null)
-		{	result = new Node(name);
+		{	int id = nodesById.size();
+			result = new Node(this, id, name);
 		
-			// add to local map
+			// add to local structures
 			nodesByName.put(name,result);
+			nodesById.add(result);
 			
-			// set node properties
-			for(Entry<String,String> entry: nodePropertyTypes.entrySet())
-			{	String pName = entry.getKey();
-				String type = entry.getValue();
-				String value = selectInitValue(type);
-				result.properties.put(pName, value);
-			}
+			// make room for its property values
+			for(PropertyColumn column: nodeColumns.values())
+				column.ensureCapacity(id);
 		}
 		return result;
 	}
@@ -255,12 +211,41 @@ public class Graph
 	{	// add data type
 		nodePropertyTypes.put(name, type);
 		
-		// select init value
-		String value = selectInitValue(type);
-
-		// set the init value in each node
-		for(Node node: nodesByName.values())
-			node.properties.put(name, value);
+		// create the column of values
+		PropertyColumn column = new PropertyColumn(name, type);
+		if(!nodesById.isEmpty())
+			column.ensureCapacity(nodesById.size()-1);
+		nodeColumns.put(name, column);
+	}
+	
+	/**
+	 * Returns the column containing the values
+	 * of the specified node property.
+	 * 
+	 * @param name
+	 * 		Name of the property.
+	 * @return
+	 * 		Column of values.
+	 * 
+	 * @throws IllegalArgumentException
+	 * 		If the property was not declared.
+	 */
+	protected PropertyColumn getNodeColumn(String name)
+	{	PropertyColumn result = nodeColumns.get(name);
+		if(result==null)
+			throw new IllegalArgumentException("Unknown property ("+name+")");
+		return result;
+	}
+	
+	/**
+	 * Returns the columns containing the values
+	 * of the node properties, indexed by property name.
+	 * 
+	 * @return
+	 * 		Map of node property columns.
+	 */
+	protected Map<String,PropertyColumn> getNodeColumns()
+	{	return nodeColumns;
 	}
 	
 	/**
@@ -278,10 +263,14 @@ public class Graph
 	/////////////////////////////////////////////////////////////////
 	// LINKS			/////////////////////////////////////////////
 	/////////////////////////////////////////////////////////////////
-	/** Set of all links */
-	private final Set<Link> links = new TreeSet<Link>();
+	/** List of all links, indexed by their id */
+	private final List<Link> links = new ArrayList<Link>();
+	/** Table associating the (packed) ids of the connected nodes to the link id */
+	private final LinkTable linkIds = new LinkTable();
 	/** Map containing all the link properties and their associated data types */
 	private final Map<String,String> linkPropertyTypes = new HashMap<String, String>();
+	/** Map containing all the link properties and their associated values */
+	private final Map<String,PropertyColumn> linkColumns = new HashMap<String, PropertyColumn>();
 	
 	/**
 	 * Retrieve the link between the specified nodes.
@@ -315,50 +304,113 @@ public class Graph
 	 * 		Link connecting the source to the target nodes.
 	 */
 	public Link retrieveLink(Node source, Node target)
-	{	Link result = source.getLinkTo(target);
+	{	long key = getLinkKey(source, target);
+		int id = linkIds.get(key);
+		Link result;
 		
-		// link not found
-		if(result==null)
-		{	// if undirected graph, we look for the reverse link 
-			if(!directed)
-				result = target.getLinkTo(source);
-			
-			// link not found: we create it
-			if(result==null)
-			{	// directed graph
-				if(directed)
-				{	result = new Link(source,target);
-					source.addLink(result);
-				}
-				// undirected graph
-				else
-				{	// even for undirected graphs, we prefer to order nodes 
-					if(source.compareTo(target)<0)
-					{	result = new Link(source,target);
-						source.addLink(result);
-					}
-					else
-					{	result = new Link(target,source);
-						target.addLink(result);
-					}
-				}
-				
-				// add to local list
-				links.add(result);
-				
-				// set link properties
-				for(Entry<String,String> entry: linkPropertyTypes.entrySet())
-				{	String name = entry.getKey();
-					String type = entry.getValue();
-					String value = selectInitValue(type);
-					result.properties.put(name, value);
-				}
-			}
+		// link found
+		if(id>=0)
+			result = links.get(id);
+		
+		// link not found: we create it
+		else
+		{	// directed graph, or undirected with properly ordered nodes
+			if(directed || source.compareTo(target)<0)
+				result = createLink(source, target, key);
+			// undirected graph: even then, we prefer to order nodes
+			else
+				result = createLink(target, source, key);
 		}
 		
 		return result;
 	}
 	
+	/**
+	 * Creates a new link between the specified nodes, 
+	 * and registers it in this graph. The link is supposed
+	 * not to exist yet.
+	 * 
+	 * @param source
+	 * 		Source node of the link.
+	 * @param target
+	 * 		Target node of the link.
+	 * @param key
+	 * 		Key used to store the link.
+	 * @return
+	 * 		The new link.
+	 */
+	private Link createLink(Node source, Node target, long key)
+	{	int id = links.size();
+		Link result = new Link(this,id,source,target);
+		
+		// add to local structures
+		links.add(result);
+		linkIds.put(key, id);
+		
+		// make room for its property values
+		for(PropertyColumn column: linkColumns.values())
+			column.ensureCapacity(id);
+		
+		return result;
+	}
+	
+	/**
+	 * Returns the link going from the specified source
+	 * to the specified target, or {@code null} if there
+	 * is no such link. In an undirected graph, the link
+	 * is returned whatever its orientation.
+	 * 
+	 * @param source
+	 * 		Source node of the link.
+	 * @param target
+	 * 		Target node of the link.
+	 * @return
+	 * 		Link connecting the source to the target nodes, or {@code null}.
+	 */
+	protected Link getLink(Node source, Node target)
+	{	Link result = null;
+		long key = getLinkKey(source, target);
+		int id = linkIds.get(key);
+		if(id>=0)
+			result = links.get(id);
+		return result;
+	}
+	
+	/**
+	 * Returns the key used to store the link connecting
+	 * the specified nodes. In an undirected graph, the key
+	 * does not depend on the order of the nodes.
+	 * 
+	 * @param source
+	 * 		Source node of the link.
+	 * @param target
+	 * 		Target node of the link.
+	 * @return
+	 * 		Key representing the link.
+	 */
+	private long getLinkKey(Node source, Node target)
+	{	int sourceId = source.getId();
+		int targetId = target.getId();
+		long result;
+		if(directed || sourceId<targetId)
+			result = LinkTable.pack(sourceId, targetId);
+		else
+			result = LinkTable.pack(targetId, sourceId);
+		return result;
+	}
+	
+	/**
+	 * Returns the list of all links
+	 * in this graph.
+	 * 
+	 * @return
+	 * 		List of all links.
+	 */
+	public List<Link> getAllLinks()
+	{	List<Link> result = new ArrayList<Link>(links);
+		return result;
+	}
+	
 	/**
 	 * Creates a new property for the links.
 	 * 
@@ -371,12 +423,41 @@ public class Graph
 	{	// add data type
 		linkPropertyTypes.put(name, type);
 		
-		// select init value
-		String value = selectInitValue(type);
-
-		// set the init value in each link
-		for(Link link: links)
-			link.properties.put(name, value);
+		// create the column of values
+		PropertyColumn column = new PropertyColumn(name, type);
+		if(!links.isEmpty())
+			column.ensureCapacity(links.size()-1);
+		linkColumns.put(name, column);
+	}
+	
+	/**
+	 * Returns the column containing the values
+	 * of the specified link property.
+	 * 
+	 * @param name
+	 * 		Name of the property.
+	 * @return
+	 * 		Column of values.
+	 * 
+	 * @throws IllegalArgumentException
+	 * 		If the property was not declared.
+	 */
+	protected PropertyColumn getLinkColumn(String name)
+	{	PropertyColumn result = linkColumns.get(name);
+		if(result==null)
+			throw new IllegalArgumentException("Unknown property ("+name+")");
+		return result;
+	}
+	
+	/**
+	 * Returns the columns containing the values
+	 * of the link properties, indexed by property name.
+	 * 
+	 * @return
+	 * 		Map of link property columns.
+	 */
+	protected Map<String,PropertyColumn> getLinkColumns()
+	{	return linkColumns;
 	}
 	
 	/**
@@ -394,69 +475,360 @@ public class Graph
 	/////////////////////////////////////////////////////////////////
 	// GRAPHML			/////////////////////////////////////////////
 	/////////////////////////////////////////////////////////////////
-//	/**
-//	 * Processes the specified graphml element
-//	 * and extract the graph it contains.
-//	 * 
-//	 * @param graphElt
-//	 * 		Graphml element.
-//	 * @return
-//	 * 		A new {@code Graph} object.
-//	 */
-//	public static Graph readFromGraphml(Element graphElt)
-//	{	Graph result = null;
-//		// T O D O
-//		return result;
-//	}
-	
-	/**
-	 * Creates a Graphml element representing
-	 * this graph object.
+	/**
+	 * Reads the specified Graphml file and builds
+	 * the graph it contains. The file is processed
+	 * as a stream, so that the document is never
+	 * completely loaded in memory. The declared
+	 * properties are restored with their data types.
+	 * 
+	 * @param dataFile
+	 * 		Graphml file to read.
+	 * @return
+	 * 		A new {@code Graph} object.
+	 * 
+	 * @throws IOException
+	 * 		Problem while accessing or parsing the file. 
+	 */
+	public static Graph readFromGraphml(File dataFile) throws IOException
+	{	Graph result = null;
+		
+		FileInputStream in = new FileInputStream(dataFile);
+		BufferedInputStream inBuf = new BufferedInputStream(in);
+		try
+		{	XMLInputFactory factory = XMLInputFactory.newInstance();
+			factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+			factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+			XMLStreamReader reader = factory.createXMLStreamReader(inBuf);
+			result = readGraph(reader);
+			reader.close();
+		}
+		catch(XMLStreamException e)
+		{	throw new IOException(e);
+		}
+		finally
+		{	inBuf.close();
+		}
+		
+		return result;
+	}
+	
+	/**
+	 * Processes the Graphml document accessed through
+	 * the specified reader, and extracts the graph it 
+	 * contains.
 	 * 
+	 * @param reader
+	 * 		Stream used to read the file.
 	 * @return
-	 * 		A Graphml element.
+	 * 		A new {@code Graph} object.
+	 * 
+	 * @throws XMLStreamException
+	 * 		Problem while reading the file.
+	 */
+	private static Graph readGraph(XMLStreamReader reader) throws XMLStreamException
+	{	Graph result = null;
+		// properties declared before the graph element
+		Map<String,String[]> keys = new LinkedHashMap<String,String[]>();
+		// element currently containing the data values
+		Node node = null;
+		Link link = null;
+		
+		while(reader.hasNext())
+		{	int event = reader.next();
+			if(event==XMLStreamConstants.START_ELEMENT)
+			{	String elt = reader.getLocalName();
+				switch(elt)
+				{	case GraphmlTools.ELT_KEY:
+					{	String id = reader.getAttributeValue(null, GraphmlTools.ATT_ID);
+						String mode = reader.getAttributeValue(null, GraphmlTools.ATT_FOR);
+						String name = reader.getAttributeValue(null, GraphmlTools.ATT_ATTR_NAME);
+						String type = reader.getAttributeValue(null, GraphmlTools.ATT_ATTR_TYPE);
+						if(name==null)
+							name = id;
+						if(type==null)
+							type = "string";
+						keys.put(id, new String[]{mode,name,type});
+						break;
+					}
+					case GraphmlTools.ELT_GRAPH:
+					{	String name = reader.getAttributeValue(null, GraphmlTools.ATT_ID);
+						String edgedefault = reader.getAttributeValue(null, GraphmlTools.ATT_EDGEDEFAULT);
+						boolean directed = !GraphmlTools.VAL_UNDIRECTED.equals(edgedefault);
+						result = new Graph(name, directed);
+						for(String[] key: keys.values())
+						{	String mode = key[0];
+							if(mode==null || mode.equals("all") || mode.equals("node"))
+								result.addNodeProperty(key[1], key[2]);
+							if(mode==null || mode.equals("all") || mode.equals("edge"))
+								result.addLinkProperty(key[1], key[2]);
+						}
+						break;
+					}
+					case GraphmlTools.ELT_NODE:
+					{	String name = reader.getAttributeValue(null, GraphmlTools.ATT_ID);
+						node = result.retrieveNode(name);
+						break;
+					}
+					case GraphmlTools.ELT_EDGE:
+					{	String sourceName = reader.getAttributeValue(null, GraphmlTools.ATT_SOURCE);
+						String targetName = reader.getAttributeValue(null, GraphmlTools.ATT_TARGET);
+						Node source = result.retrieveNode(sourceName);
+						Node target = result.retrieveNode(targetName);
+						link = result.retrieveLink(source, target);
+						break;
+					}
+					case GraphmlTools.ELT_DATA:
+					{	String id = reader.getAttributeValue(null, GraphmlTools.ATT_KEY);
+						String[] key = keys.get(id);
+						if(key==null)
+							throw new XMLStreamException("Undeclared key ("+id+")", reader.getLocation());
+						String value = reader.getElementText();
+						if(node!=null)
+							node.setProperty(key[1], value);
+						else if(link!=null)
+							link.setProperty(key[1], value);
+						else if(result!=null)
+							result.setProperty(key[1], key[2], value);
+						break;
+					}
+				}
+			}
+			else if(event==XMLStreamConstants.END_ELEMENT)
+			{	String elt = reader.getLocalName();
+				if(elt.equals(GraphmlTools.ELT_NODE))
+					node = null;
+				else if(elt.equals(GraphmlTools.ELT_EDGE))
+					link = null;
+			}
+		}
+		
+		if(result==null)
+			throw new XMLStreamException("No graph element in the document");
+		return result;
+	}
+	
+	/** Line separator used in Graphml files */
+	private final static String GRAPHML_NEWLINE = "\r\n";
+	/** Indentation used in Graphml files */
+	private final static String GRAPHML_INDENT = "\t";
+	
+	/**
+	 * Starts a new line in the Graphml file, 
+	 * with the appropriate indentation.
+	 * 
+	 * @param writer
+	 * 		Stream used to write the file.
+	 * @param depth
+	 * 		Indentation level of the new line.
+	 * 
+	 * @throws XMLStreamException
+	 * 		Problem while writing the file.
 	 */
-	private Element exportGraph()
-	{	// init the root element
-	    Element result = new Element(GraphmlTools.ELT_GRAPHML, GraphmlTools.NAMESPACE);
+	private static void writeNewLine(XMLStreamWriter writer, int depth) throws XMLStreamException
+	{	StringBuilder sb = new StringBuilder(GRAPHML_NEWLINE);
+		for(int i=0;i<depth;i++)
+			sb.append(GRAPHML_INDENT);
+		writer.writeCharacters(sb.toString());
+	}
+	
+	/**
+	 * Writes the declaration of the specified properties,
+	 * as Graphml {@code key} elements.
+	 * 
+	 * @param writer
+	 * 		Stream used to write the file.
+	 * @param propertyTypes
+	 * 		Map of property types.
+	 * @param mode
+	 * 		Type of concerned object (graph, node, edge).
+	 * 
+	 * @throws XMLStreamException
+	 * 		Problem while writing the file.
+	 */
+	private static void writePropertyTypes(XMLStreamWriter writer, Map<String,String> propertyTypes, String mode) throws XMLStreamException
+	{	for(Entry<String,String> entry: propertyTypes.entrySet())
+		{	String property = entry.getKey();
+			String type = entry.getValue();
+			writeNewLine(writer, 1);
+			writer.writeEmptyElement(GraphmlTools.ELT_KEY);
+			
+			String idStr = mode.subSequence(0,1) + "_" + property;
+			writer.writeAttribute(GraphmlTools.ATT_ID,idStr);
+			writer.writeAttribute(GraphmlTools.ATT_FOR,mode);
+			writer.writeAttribute(GraphmlTools.ATT_ATTR_NAME,property);
+			writer.writeAttribute(GraphmlTools.ATT_ATTR_TYPE,type);
+		}
+	}
+	
+	/**
+	 * Writes a property value, as a Graphml {@code data} element.
+	 * 
+	 * @param writer
+	 * 		Stream used to write the file.
+	 * @param property
+	 * 		Name of the property.
+	 * @param value
+	 * 		Value of the property.
+	 * @param mode
+	 * 		Type of concerned object (graph, node, edge).
+	 * @param depth
+	 * 		Indentation level of the element.
+	 * 
+	 * @throws XMLStreamException
+	 * 		Problem while writing the file.
+	 */
+	private static void writePropertyValue(XMLStreamWriter writer, String property, String value, String mode, int depth) throws XMLStreamException
+	{	String keyStr = mode.subSequence(0,1) + "_" + property;
+		String text = value.trim();
+		writeNewLine(writer, depth);
+		if(text.isEmpty())
+		{	writer.writeEmptyElement(GraphmlTools.ELT_DATA);
+			writer.writeAttribute(GraphmlTools.ATT_KEY,keyStr);
+		}
+		else
+		{	writer.writeStartElement(GraphmlTools.ELT_DATA);
+			writer.writeAttribute(GraphmlTools.ATT_KEY,keyStr);
+			writer.writeCharacters(text);
+			writer.writeEndElement();
+		}
+	}
+	
+	/**
+	 * Writes the specified node as a Graphml element.
+	 * 
+	 * @param writer
+	 * 		Stream used to write the file.
+	 * @param node
+	 * 		Node to write.
+	 * 
+	 * @throws XMLStreamException
+	 * 		Problem while writing the file.
+	 */
+	private void writeNode(XMLStreamWriter writer, Node node) throws XMLStreamException
+	{	writeNewLine(writer, 2);
+		if(nodeColumns.isEmpty())
+			writer.writeEmptyElement(GraphmlTools.ELT_NODE);
+		else
+			writer.writeStartElement(GraphmlTools.ELT_NODE);
+		// add unique name
+		writer.writeAttribute(GraphmlTools.ATT_ID,node.getName());
+		
+		// add other properties
+		if(!nodeColumns.isEmpty())
+		{	int id = node.getId();
+			for(Entry<String,PropertyColumn> entry: nodeColumns.entrySet())
+			{	String property = entry.getKey();
+				String value = entry.getValue().getValue(id);
+				writePropertyValue(writer, property, value, "node", 3);
+			}
+			writeNewLine(writer, 2);
+			writer.writeEndElement();
+		}
+	}
+	
+	/**
+	 * Writes the specified link as a Graphml element.
+	 * 
+	 * @param writer
+	 * 		Stream used to write the file.
+	 * @param link
+	 * 		Link to write.
+	 * 
+	 * @throws XMLStreamException
+	 * 		Problem while writing the file.
+	 */
+	private void writeLink(XMLStreamWriter writer, Link link) throws XMLStreamException
+	{	writeNewLine(writer, 2);
+		if(linkColumns.isEmpty())
+			writer.writeEmptyElement(GraphmlTools.ELT_EDGE);
+		else
+			writer.writeStartElement(GraphmlTools.ELT_EDGE);
+		// add source and target
+		writer.writeAttribute(GraphmlTools.ATT_SOURCE,link.getSource().getName());
+		writer.writeAttribute(GraphmlTools.ATT_TARGET,link.getTarget().getName());
+		
+		// add other properties
+		if(!linkColumns.isEmpty())
+		{	int id = link.getId();
+			for(Entry<String,PropertyColumn> entry: linkColumns.entrySet())
+			{	String property = entry.getKey();
+				String value = entry.getValue().getValue(id);
+				writePropertyValue(writer, property, value, "edge", 3);
+			}
+			writeNewLine(writer, 2);
+			writer.writeEndElement();
+		}
+	}
+	
+	/**
+	 * Writes this graph in the specified stream, using
+	 * the Graphml format. The document is written element
+	 * by element, without building it in memory.
+	 * 
+	 * @param writer
+	 * 		Stream used to write the file.
+	 * @param schemaAttribute
+	 * 		Name of the {@code xsi} attribute locating the schema.
+	 * @param schemaLocation
+	 * 		Value of this attribute.
+	 * 
+	 * @throws XMLStreamException
+	 * 		Problem while writing the file.
+	 */
+	private void writeGraph(XMLStreamWriter writer, String schemaAttribute, String schemaLocation) throws XMLStreamException
+	{	writer.writeStartDocument("UTF-8", "1.0");
+		writer.writeCharacters(GRAPHML_NEWLINE);
+		
+		// init the root element
+		writer.writeStartElement(GraphmlTools.ELT_GRAPHML);
+		writer.writeDefaultNamespace(GraphmlTools.NAMESPACE_URL);
+		writer.writeNamespace("xsi", XMLConstants.W3C_XML_SCHEMA_INSTANCE_NS_URI);
+		writer.writeAttribute("xsi", XMLConstants.W3C_XML_SCHEMA_INSTANCE_NS_URI, schemaAttribute, schemaLocation);
 		
 		// add the property types
-		exportPropertyTypes(propertyTypes, "graph", result);
-		exportPropertyTypes(nodePropertyTypes, "node", result);
-		exportPropertyTypes(linkPropertyTypes, "edge", result);
+		writePropertyTypes(writer, propertyTypes, "graph");
+		writePropertyTypes(writer, nodePropertyTypes, "node");
+		writePropertyTypes(writer, linkPropertyTypes, "edge");
 		
 		// put the signature
-		Comment comment = new Comment("File generated by Nerwip on "+TimeFormatting.formatCurrentXmlTime());
-		result.addContent(comment);
+		writeNewLine(writer, 1);
+		writer.writeComment("File generated by Nerwip on "+TimeFormatting.formatCurrentXmlTime());
 		
 		// add graph element
-		Element graphElt = new Element(GraphmlTools.ELT_GRAPH, GraphmlTools.NAMESPACE);
-		graphElt.setAttribute(GraphmlTools.ATT_ID,name);
+		writeNewLine(writer, 1);
+		writer.writeStartElement(GraphmlTools.ELT_GRAPH);
+		writer.writeAttribute(GraphmlTools.ATT_ID,name);
 		String edgedefaultStr = GraphmlTools.VAL_DIRECTED;
 		if(!directed)
 			edgedefaultStr = GraphmlTools.VAL_UNDIRECTED;
-		graphElt.setAttribute(GraphmlTools.ATT_EDGEDEFAULT,edgedefaultStr);
-		GraphmlTools.exportPropertyValues(properties, "graph", graphElt);
-		result.addContent(graphElt);
-
+		writer.writeAttribute(GraphmlTools.ATT_EDGEDEFAULT,edgedefaultStr);
+		for(Entry<String,String> entry: properties.entrySet())
+			writePropertyValue(writer, entry.getKey(), entry.getValue(), "graph", 2);
+		
 		// add node elements
-		comment = new Comment("Node list");
-		graphElt.addContent(comment);
-		TreeSet<Node> nodes = new TreeSet<Node>(nodesByName.values());
-		for(Node node: nodes)
-		{	Element nodeElt = node.exportNode();
-			graphElt.addContent(nodeElt);
-		}
+		writeNewLine(writer, 2);
+		writer.writeComment("Node list");
+		List<Node> sortedNodes = getAllNodes();
+		Collections.sort(sortedNodes);
+		for(Node node: sortedNodes)
+			writeNode(writer, node);
 		
 		// add link elements
-		comment = new Comment("Link list");
-		graphElt.addContent(comment);
-		for(Link link: links)
-		{	Element linkElt = link.exportLink();
-			graphElt.addContent(linkElt);
-		}
-
-		return result;
+		writeNewLine(writer, 2);
+		writer.writeComment("Link list");
+		List<Link> sortedLinks = getAllLinks();
+		Collections.sort(sortedLinks);
+		for(Link link: sortedLinks)
+			writeLink(writer, link);
+		
+		// close the graph and root elements
+		writeNewLine(writer, 1);
+		writer.writeEndElement();
+		writeNewLine(writer, 0);
+		writer.writeEndElement();
+		writer.writeCharacters(GRAPHML_NEWLINE);
+		writer.writeEndDocument();
 	}
 	
 	/**
@@ -470,27 +842,309 @@ public class Graph
 	 */
 	public void writeToXml(File dataFile) throws IOException
 	{	boolean local = false;
-	
+		String schemaAttribute;
+		String schemaLocation;
+		
 		// local schema version
 		if(local)
 		{	// schema file
 			String schemaPath = FileNames.FO_SCHEMA + File.separator + FileNames.FI_GRAPHML_SCHEMA;
-			File schemaFile = new File(schemaPath);
-			
-			// build xml document
-			Element element = exportGraph();
-			
-			// record file
-			XmlTools.makeFileFromRoot(dataFile,schemaFile,element);
+			File tempFile = new File(dataFile.getPath()).getParentFile();
+			while(tempFile!=null)
+			{	tempFile = tempFile.getParentFile();
+				schemaPath = ".."+File.separator+schemaPath;
+			}
+			schemaAttribute = "noNamespaceSchemaLocation";
+			schemaLocation = schemaPath;
 		}
 		
 		// online schema version
 		else
-		{	// build xml document
-			Element element = exportGraph();
+		{	schemaAttribute = "schemaLocation";
+			schemaLocation = GraphmlTools.NAMESPACE_URL + " " + GraphmlTools.SCHEMA_URL;
+		}
+		
+		// record file
+		FileOutputStream out = new FileOutputStream(dataFile);
+		BufferedOutputStream outBuf = new BufferedOutputStream(out);
+		try
+		{	XMLOutputFactory factory = XMLOutputFactory.newInstance();
+			XMLStreamWriter writer = factory.createXMLStreamWriter(outBuf, "UTF-8");
+			writeGraph(writer, schemaAttribute, schemaLocation);
+			writer.close();
+		}
+		catch(XMLStreamException e)
+		{	throw new IOException(e);
+		}
+		finally
+		{	outBuf.close();
+		}
+	}
+
+	/////////////////////////////////////////////////////////////////
+	// BINARY			/////////////////////////////////////////////
+	/////////////////////////////////////////////////////////////////
+	/** Code identifying the binary graph files */
+	private final static int BINARY_MAGIC = 0x42504752;
+	/** Version of the binary format */
+	private final static int BINARY_VERSION = 2;
+	
+	/**
+	 * Export this graph as a binary file. The file
+	 * contains, in this order:
+	 * <ul>
+	 * 		<li>A header: format code and version, directedness, numbers of nodes and links;</li>
+	 * 		<li>A string table containing all the node names, property names and types, and string values;</li>
+	 * 		<li>The graph name ({@code -1} if it has none);</li>
+	 * 		<li>The graph properties, and the declarations of the node and link properties;</li>
+	 * 		<li>The node names, in the order of the node ids;</li>
+	 * 		<li>The links, in CSR form: offsets of each source node, then targets;</li>
+	 * 		<li>The node property columns, then the link property columns (in CSR order).</li>
+	 * </ul>
+	 * All numbers are written in big-endian order, and strings are
+	 * replaced by their position in the string table.
+	 * 
+	 * @param dataFile
+	 * 		File object to create.
+	 *  
+	 * @throws IOException
+	 * 		Problem while accessing a file. 
+	 */
+	public void writeToBinary(File dataFile) throws IOException
+	{	int nodeCount = nodesById.size();
+		int linkCount = links.size();
+		
+		// order the links by source (CSR)
+		int[] offsets = new int[nodeCount+1];
+		for(Link link: links)
+			offsets[link.getSource().getId()+1]++;
+		for(int i=0;i<nodeCount;i++)
+			offsets[i+1] = offsets[i+1] + offsets[i];
+		int[] positions = Arrays.copyOf(offsets, nodeCount);
+		int[] linkOrder = new int[linkCount];
+		int[] targets = new int[linkCount];
+		for(Link link: links)
+		{	int pos = positions[link.getSource().getId()]++;
+			linkOrder[pos] = link.getId();
+			targets[pos] = link.getTarget().getId();
+		}
+		int[] nodeOrder = new int[nodeCount];
+		for(int i=0;i<nodeCount;i++)
+			nodeOrder[i] = i;
+		
+		// build the string table
+		StringTable table = new StringTable();
+		if(name!=null)
+			table.add(name);
+		for(Entry<String,String> entry: properties.entrySet())
+		{	table.add(entry.getKey());
+			table.add(propertyTypes.get(entry.getKey()));
+			if(entry.getValue()!=null)
+				table.add(entry.getValue());
+		}
+		for(PropertyColumn column: nodeColumns.values())
+			table.add(column.getType());
+		for(String pName: nodeColumns.keySet())
+			table.add(pName);
+		for(PropertyColumn column: linkColumns.values())
+			table.add(column.getType());
+		for(String pName: linkColumns.keySet())
+			table.add(pName);
+		for(Node node: nodesById)
+			table.add(node.getName());
+		for(PropertyColumn column: nodeColumns.values())
+			column.collectStrings(nodeCount, table);
+		for(PropertyColumn column: linkColumns.values())
+			column.collectStrings(linkCount, table);
+		
+		// record file
+		FileOutputStream out = new FileOutputStream(dataFile);
+		DataOutputStream dataOut = new DataOutputStream(new BufferedOutputStream(out));
+		try
+		{	// header
+			dataOut.writeInt(BINARY_MAGIC);
+			dataOut.writeInt(BINARY_VERSION);
+			dataOut.writeBoolean(directed);
+			dataOut.writeInt(nodeCount);
+			dataOut.writeInt(linkCount);
+			
+			// strings
+			table.write(dataOut);
+			if(name==null)
+				dataOut.writeInt(-1);
+			else
+				dataOut.writeInt(table.getIndex(name));
+			
+			// property declarations
+			dataOut.writeInt(properties.size());
+			for(Entry<String,String> entry: properties.entrySet())
+			{	dataOut.writeInt(table.getIndex(entry.getKey()));
+				dataOut.writeInt(table.getIndex(propertyTypes.get(entry.getKey())));
+				if(entry.getValue()==null)
+					dataOut.writeInt(-1);
+				else
+					dataOut.writeInt(table.getIndex(entry.getValue()));
+			}
+			dataOut.writeInt(nodeColumns.size());
+			for(Entry<String,PropertyColumn> entry: nodeColumns.entrySet())
+			{	dataOut.writeInt(table.getIndex(entry.getKey()));
+				dataOut.writeInt(table.getIndex(entry.getValue().getType()));
+			}
+			dataOut.writeInt(linkColumns.size());
+			for(Entry<String,PropertyColumn> entry: linkColumns.entrySet())
+			{	dataOut.writeInt(table.getIndex(entry.getKey()));
+				dataOut.writeInt(table.getIndex(entry.getValue().getType()));
+			}
+			
+			// nodes
+			for(Node node: nodesById)
+				dataOut.writeInt(table.getIndex(node.getName()));
+			
+			// links
+			for(int offset: offsets)
+				dataOut.writeInt(offset);
+			for(int target: targets)
+				dataOut.writeInt(target);
 			
-			// record file
-			XmlTools.makeFileFromRoot(dataFile,GraphmlTools.NAMESPACE_URL, GraphmlTools.SCHEMA_URL, element);
+			// property values
+			for(PropertyColumn column: nodeColumns.values())
+				column.writeValues(dataOut, nodeOrder, table);
+			for(PropertyColumn column: linkColumns.values())
+				column.writeValues(dataOut, linkOrder, table);
 		}
+		finally
+		{	dataOut.close();
+		}
+	}
+	
+	/**
+	 * Reads a graph recorded with {@link #writeToBinary(File)}.
+	 * The file is memory-mapped: the nodes and links are created
+	 * from the CSR arrays, but the property values are not decoded.
+	 * Each column serves its values directly from the mapped file, 
+	 * until it is modified (it then gets its own copy). The file
+	 * should therefore not be replaced while the graph is in use.
+	 * 
+	 * @param dataFile
+	 * 		Binary file to read.
+	 * @return
+	 * 		A new {@code Graph} object.
+	 *  
+	 * @throws IOException
+	 * 		Problem while accessing the file, or invalid file. 
+	 */
+	public static Graph readFromBinary(File dataFile) throws IOException
+	{	Graph result;
+		
+		FileChannel channel = FileChannel.open(dataFile.toPath(), StandardOpenOption.READ);
+		try
+		{	long fileSize = channel.size();
+			if(fileSize>Integer.MAX_VALUE)
+				throw new IOException("File too large to be mapped ("+fileSize+" bytes)");
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, fileSize);
+			
+			// header
+			int magic = buffer.getInt();
+			if(magic!=BINARY_MAGIC)
+				throw new IOException("Not a binary graph file ("+dataFile+")");
+			int version = buffer.getInt();
+			if(version!=BINARY_VERSION)
+				throw new IOException("Unsupported binary graph version ("+version+")");
+			boolean directed = buffer.get()!=0;
+			int nodeCount = buffer.getInt();
+			int linkCount = buffer.getInt();
+			
+			// strings
+			String[] table = StringTable.read(buffer);
+			int nameIdx = buffer.getInt();
+			String name = null;
+			if(nameIdx>=0)
+				name = table[nameIdx];
+			result = new Graph(name, directed);
+			
+			// property declarations
+			int propertyCount = buffer.getInt();
+			for(int i=0;i<propertyCount;i++)
+			{	String pName = table[buffer.getInt()];
+				String type = table[buffer.getInt()];
+				int valueIdx = buffer.getInt();
+				String value = null;
+				if(valueIdx>=0)
+					value = table[valueIdx];
+				result.setProperty(pName, type, value);
+			}
+			List<PropertyColumn> nodeCols = new ArrayList<PropertyColumn>();
+			propertyCount = buffer.getInt();
+			for(int i=0;i<propertyCount;i++)
+			{	String pName = table[buffer.getInt()];
+				String type = table[buffer.getInt()];
+				result.addNodeProperty(pName, type);
+				nodeCols.add(result.nodeColumns.get(pName));
+			}
+			List<PropertyColumn> linkCols = new ArrayList<PropertyColumn>();
+			propertyCount = buffer.getInt();
+			for(int i=0;i<propertyCount;i++)
+			{	String pName = table[buffer.getInt()];
+				String type = table[buffer.getInt()];
+				result.addLinkProperty(pName, type);
+				linkCols.add(result.linkColumns.get(pName));
+			}
+			
+			// property values (attached before creating the nodes and links, so that the columns do not allocate their arrays)
+			ByteBuffer values = buffer.duplicate();
+			values.position(buffer.position() + 4*nodeCount + 4*(nodeCount+1) + 4*linkCount);
+			for(PropertyColumn column: nodeCols)
+				column.readValues(values, nodeCount, table);
+			for(PropertyColumn column: linkCols)
+				column.readValues(values, linkCount, table);
+			
+			// nodes
+			for(int i=0;i<nodeCount;i++)
+				result.retrieveNode(table[buffer.getInt()]);
+			
+			// links
+			int[] offsets = new int[nodeCount+1];
+			buffer.asIntBuffer().get(offsets);
+			buffer.position(buffer.position() + 4*offsets.length);
+			int[] targets = new int[linkCount];
+			buffer.asIntBuffer().get(targets);
+			buffer.position(buffer.position() + 4*targets.length);
+			for(int s=0;s<nodeCount;s++)
+			{	Node source = result.nodesById.get(s);
+				for(int k=offsets[s];k<offsets[s+1];k++)
+				{	Node target = result.nodesById.get(targets[k]);
+					long key = result.getLinkKey(source, target);
+					result.createLink(source, target, key);
+				}
+			}
+		}
+		catch(BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException e)
+		{	throw new IOException("Invalid binary graph file ("+dataFile+")", e);
+		}
+		finally
+		{	channel.close();
+		}
+		
+		return result;
+	}
+
+	/////////////////////////////////////////////////////////////////
+	// EXPORT			/////////////////////////////////////////////
+	/////////////////////////////////////////////////////////////////
+	/**
+	 * Records this graph using the specified exporter.
+	 * 
+	 * @param exporter
+	 * 		Object handling the output format.
+	 * @param basePath
+	 * 		Path of the produced file(s), without extension.
+	 * @param compressed
+	 * 		Whether the produced file(s) should be gzipped.
+	 * 
+	 * @throws IOException
+	 * 		Problem while writing a file.
+	 */
+	public void export(GraphExporter exporter, String basePath, boolean compressed) throws IOException
+	{	exporter.export(this, basePath, compressed);
 	}
 }
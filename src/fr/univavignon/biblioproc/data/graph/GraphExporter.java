@@ -0,0 +1,51 @@
+package fr.univavignon.biblioproc.data.graph;
+
+/*
+ * Biblio Process
+ * Copyright 2011-19 Vincent Labatut 
+ * 
+ * This file is part of Biblio Process.
+ * 
+ * Biblio Process is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 2 of the License, or
+ * (at your option) any later version.
+ * 
+ * Biblio Process is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with Biblio Process.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+import java.io.IOException;
+
+/**
+ * Interface for the classes able to record a graph
+ * in a given file format. Exporters write the graph
+ * directly to the file, in a single pass, without
+ * building an intermediate document.
+ * 
+ * @author Vincent Labatut
+ */
+public interface GraphExporter
+{
+	/**
+	 * Records the specified graph. The exporter adds its own 
+	 * extension(s) to the specified path, and {@code .gz} when 
+	 * the output is compressed.
+	 * 
+	 * @param graph
+	 * 		Graph to record.
+	 * @param basePath
+	 * 		Path of the produced file(s), without extension.
+	 * @param compressed
+	 * 		Whether the produced file(s) should be gzipped.
+	 * 
+	 * @throws IOException
+	 * 		Problem while writing a file.
+	 */
+	public void export(Graph graph, String basePath, boolean compressed) throws IOException;
+}
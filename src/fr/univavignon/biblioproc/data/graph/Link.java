@@ -20,13 +20,6 @@ package fr.univavignon.biblioproc.data.graph;
  * along with Biblio Process.  If not, see <http://www.gnu.org/licenses/>.
  */
 
-import java.util.HashMap;
-import java.util.Map;
-
-import org.jdom2.Element;
-
-import fr.univavignon.tools.xml.GraphmlTools;
-
 /**
  * This class represents a graph link.
  * 
@@ -37,16 +30,41 @@ public class Link implements Comparable<Link>
 	/**
 	 * Creates a new link.
 	 * 
+	 * @param graph
+	 * 		Graph containing the link.
+	 * @param id
+	 * 		Internal id of the link in its graph.
 	 * @param source
 	 * 		Source node of the link.
 	 * @param target
 	 * 		Target node of the link.
 	 */
-	protected Link(Node source, Node target)
-	{	this.source = source;
+	protected Link(Graph graph, int id, Node source, Node target)
+	{	this.graph = graph;
+		this.id = id;
+		this.source = source;
 		this.target = target;
 	}
 
+	/////////////////////////////////////////////////////////////////
+	// GRAPH			/////////////////////////////////////////////
+	/////////////////////////////////////////////////////////////////
+	/** Graph containing this link */
+	private Graph graph;
+	/** Internal id of this link, used to access its property values */
+	private int id;
+	
+	/**
+	 * Returns the internal id of this link,
+	 * which is unique in its graph.
+	 * 
+	 * @return
+	 * 		Id of this link.
+	 */
+	public int getId()
+	{	return id;
+	}
+
 	/////////////////////////////////////////////////////////////////
 	// SOURCE			/////////////////////////////////////////////
 	/////////////////////////////////////////////////////////////////
@@ -82,9 +100,6 @@ public class Link implements Comparable<Link>
 	/////////////////////////////////////////////////////////////////
 	// PROPERTIES		/////////////////////////////////////////////
 	/////////////////////////////////////////////////////////////////
-	/** Additional properties */
-	protected final Map<String,String> properties = new HashMap<String, String>();
-	
 	/**
 	 * Sets the specified property with the
 	 * specified value. Note the property itself
@@ -97,11 +112,8 @@ public class Link implements Comparable<Link>
 	 * 		Value associated to the property.
 	 */
 	public void setProperty(String name, String value)
-	{	String oldValue = properties.get(name);
-		if(oldValue==null)
-			throw new IllegalArgumentException("Unknown property ("+name+")");
-		else
-		properties.put(name, value);
+	{	PropertyColumn column = graph.getLinkColumn(name);
+		column.setValue(id, value);
 	}
 	
 	/**
@@ -113,10 +125,8 @@ public class Link implements Comparable<Link>
 	 * 		Name of the property.
 	 */
 	public void incrementIntProperty(String name)
-	{	String valueStr = properties.get(name);
-		int value = Integer.parseInt(valueStr) + 1;
-		valueStr = Integer.toString(value);
-		properties.put(name, valueStr);
+	{	PropertyColumn column = graph.getLinkColumn(name);
+		column.incrementInt(id, 1);
 	}
 	
 	/**
@@ -130,10 +140,8 @@ public class Link implements Comparable<Link>
 	 *      The increment value
 	 */
 	public void incrementIntProperty(String name, int delta)
-	{	String valueStr = properties.get(name);
-		int value = Integer.parseInt(valueStr) + delta;
-		valueStr = Integer.toString(value);
-		properties.put(name, valueStr);
+	{	PropertyColumn column = graph.getLinkColumn(name);
+		column.incrementInt(id, delta);
 	}
 	
 	/**
@@ -147,48 +155,35 @@ public class Link implements Comparable<Link>
 	 *      The increment value
 	 */
 	public void incrementFloatProperty(String name, float delta)
-	{	String valueStr = properties.get(name);
-		float value = Float.parseFloat(valueStr) + delta;
-		valueStr = Float.toString(value);
-		properties.put(name, valueStr);
+	{	PropertyColumn column = graph.getLinkColumn(name);
+		column.incrementFloat(id, delta);
 	}
 	
-	/////////////////////////////////////////////////////////////////
-	// GRAPHML			/////////////////////////////////////////////
-	/////////////////////////////////////////////////////////////////
-//	/**
-//	 * Processes the specified graphml element
-//	 * and extract the link it contains.
-//	 * 
-//	 * @param linkElt
-//	 * 		Graphml element.
-//	 * @return
-//	 * 		A new {@code Link} object.
-//	 */
-//	public static Link importFromGraphml(Element linkElt)
-//	{	Link result = null;
-//		// TODO
-//		return result;
-//	}
+	/**
+	 * Returns the value of the specified integer property.
+	 * 
+	 * @param name
+	 * 		Name of the property.
+	 * @return
+	 * 		Value of the property for this link.
+	 */
+	public int getIntProperty(String name)
+	{	PropertyColumn column = graph.getLinkColumn(name);
+		int result = column.getInt(id);
+		return result;
+	}
 	
 	/**
-	 * Creates a graphml element representing
-	 * this link object.
+	 * Returns the value of the specified real property.
 	 * 
+	 * @param name
+	 * 		Name of the property.
 	 * @return
-	 * 		A Graphml element.
+	 * 		Value of the property for this link.
 	 */
-	public Element exportLink()
-	{	// create element
-		Element result = new Element(GraphmlTools.ELT_EDGE, GraphmlTools.NAMESPACE);
-		// add source and target
-		String sourceName = source.getName();
-		result.setAttribute(GraphmlTools.ATT_SOURCE,sourceName);
-		String targetName = target.getName();
-		result.setAttribute(GraphmlTools.ATT_TARGET,targetName);
-		// add other properties
-		GraphmlTools.exportPropertyValues(properties, "edge", result);
-		
+	public float getFloatProperty(String name)
+	{	PropertyColumn column = graph.getLinkColumn(name);
+		float result = column.getFloat(id);
 		return result;
 	}
 	
@@ -206,11 +201,52 @@ public class Link implements Comparable<Link>
 		return result;
 	}
 	
+	/**
+	 * Returns the character located at the specified position
+	 * in the internal name of this link, without actually 
+	 * building this name.
+	 * 
+	 * @param sourceName
+	 * 		Name of the source node.
+	 * @param targetName
+	 * 		Name of the target node.
+	 * @param index
+	 * 		Position of the character in the link name.
+	 * @return
+	 * 		The character at this position.
+	 */
+	private static char getNameChar(String sourceName, String targetName, int index)
+	{	char result;
+		int length = sourceName.length();
+		if(index<length)
+			result = sourceName.charAt(index);
+		else if(index==length)
+			result = '>';
+		else
+			result = targetName.charAt(index-length-1);
+		return result;
+	}
+	
 	@Override
 	public int compareTo(Link link)
-	{	String name1 = getName();
-		String name2 = link.getName();
-		int result = name1.compareTo(name2);
+	{	// same order as when comparing the link names, but without creating them
+		String source1 = source.getName();
+		String target1 = target.getName();
+		String source2 = link.source.getName();
+		String target2 = link.target.getName();
+		int length1 = source1.length() + 1 + target1.length();
+		int length2 = source2.length() + 1 + target2.length();
+		int length = Math.min(length1, length2);
+		int result = 0;
+		int i = 0;
+		while(result==0 && i<length)
+		{	char c1 = getNameChar(source1, target1, i);
+			char c2 = getNameChar(source2, target2, i);
+			result = c1 - c2;
+			i++;
+		}
+		if(result==0)
+			result = length1 - length2;
 		return result;
 	}
 	
@@ -0,0 +1,169 @@
+package fr.univavignon.biblioproc.data.graph;
+
+/*
+ * Biblio Process
+ * Copyright 2011-19 Vincent Labatut 
+ * 
+ * This file is part of Biblio Process.
+ * 
+ * Biblio Process is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 2 of the License, or
+ * (at your option) any later version.
+ * 
+ * Biblio Process is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with Biblio Process.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+import java.util.Arrays;
+
+/**
+ * Hash table associating a pair of node ids to
+ * the id of the link connecting them. The pair is 
+ * packed in a single {@code long}, and the table uses 
+ * open addressing (linear probing), so that looking for
+ * a link requires neither object creation nor string
+ * hashing.
+ * 
+ * @author Vincent Labatut
+ */
+class LinkTable
+{
+	/**
+	 * Creates a new, empty, table.
+	 */
+	LinkTable()
+	{	keys = new long[INIT_CAPACITY];
+		Arrays.fill(keys, EMPTY);
+		values = new int[INIT_CAPACITY];
+		mask = INIT_CAPACITY - 1;
+	}
+	
+	/////////////////////////////////////////////////////////////////
+	// KEYS				/////////////////////////////////////////////
+	/////////////////////////////////////////////////////////////////
+	/** Marks an empty slot (node ids are non-negative, so no valid key is negative) */
+	private final static long EMPTY = -1L;
+	
+	/**
+	 * Packs the specified node ids into
+	 * a single key.
+	 * 
+	 * @param sourceId
+	 * 		Id of the source node.
+	 * @param targetId
+	 * 		Id of the target node.
+	 * @return
+	 * 		The corresponding key.
+	 */
+	static long pack(int sourceId, int targetId)
+	{	long result = ((long)sourceId << 32) | (targetId & 0xFFFFFFFFL);
+		return result;
+	}
+	
+	/**
+	 * Returns the slot at which the search for
+	 * the specified key must start.
+	 * 
+	 * @param key
+	 * 		Packed node ids.
+	 * @return
+	 * 		Position in the table.
+	 */
+	private int slot(long key)
+	{	long h = key * 0x9E3779B97F4A7C15L;
+		int result = (int)(h ^ (h >>> 32)) & mask;
+		return result;
+	}
+	
+	/////////////////////////////////////////////////////////////////
+	// CONTENT			/////////////////////////////////////////////
+	/////////////////////////////////////////////////////////////////
+	/** Initial capacity of the table (must be a power of 2) */
+	private final static int INIT_CAPACITY = 64;
+	/** Packed node ids */
+	private long[] keys;
+	/** Link ids */
+	private int[] values;
+	/** Mask used to get a position from a hash code */
+	private int mask;
+	/** Number of pairs in the table */
+	private int size = 0;
+	
+	/**
+	 * Returns the id of the link associated to the
+	 * specified key, or {@code -1} if there is none.
+	 * 
+	 * @param key
+	 * 		Packed node ids.
+	 * @return
+	 * 		Id of the corresponding link, or {@code -1}.
+	 */
+	int get(long key)
+	{	int result = -1;
+		int pos = slot(key);
+		while(keys[pos]!=EMPTY && result<0)
+		{	if(keys[pos]==key)
+				result = values[pos];
+			else
+				pos = (pos + 1) & mask;
+		}
+		return result;
+	}
+	
+	/**
+	 * Associates the specified link id to the specified
+	 * key. The key is supposed to be absent from the table.
+	 * 
+	 * @param key
+	 * 		Packed node ids.
+	 * @param value
+	 * 		Id of the link.
+	 */
+	void put(long key, int value)
+	{	if(2*(size+1) > keys.length)
+			grow();
+		insert(key, value);
+		size++;
+	}
+	
+	/**
+	 * Puts a pair in the table, without
+	 * checking its capacity.
+	 * 
+	 * @param key
+	 * 		Packed node ids.
+	 * @param value
+	 * 		Id of the link.
+	 */
+	private void insert(long key, int value)
+	{	int pos = slot(key);
+		while(keys[pos]!=EMPTY)
+			pos = (pos + 1) & mask;
+		keys[pos] = key;
+		values[pos] = value;
+	}
+	
+	/**
+	 * Doubles the capacity of the table,
+	 * and re-inserts its current content.
+	 */
+	private void grow()
+	{	long[] oldKeys = keys;
+		int[] oldValues = values;
+		int capacity = 2 * oldKeys.length;
+		keys = new long[capacity];
+		Arrays.fill(keys, EMPTY);
+		values = new int[capacity];
+		mask = capacity - 1;
+		for(int i=0;i<oldKeys.length;i++)
+		{	if(oldKeys[i]!=EMPTY)
+				insert(oldKeys[i], oldValues[i]);
+		}
+	}
+}
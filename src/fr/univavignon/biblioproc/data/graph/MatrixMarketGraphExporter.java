@@ -0,0 +1,98 @@
+package fr.univavignon.biblioproc.data.graph;
+
+/*
+ * Biblio Process
+ * Copyright 2011-19 Vincent Labatut 
+ * 
+ * This file is part of Biblio Process.
+ * 
+ * Biblio Process is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 2 of the License, or
+ * (at your option) any later version.
+ * 
+ * Biblio Process is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with Biblio Process.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+
+/**
+ * Records the adjacency matrix of a graph using the
+ * Matrix Market coordinate format ({@code .mtx}). The 
+ * {@code weight} link property, if any, gives the 
+ * entry values (integer or real matrix, depending on
+ * the type of the property), otherwise only the 
+ * non-zero positions are listed (pattern matrix). 
+ * Undirected graphs are recorded as symmetric matrices, 
+ * using only the lower triangle. Nodes are numbered from 1,
+ * in the same order as for the other exporters.
+ * 
+ * @author Vincent Labatut
+ */
+public class MatrixMarketGraphExporter extends AbstractGraphExporter
+{
+	/** Extension of the Matrix Market files */
+	public final static String EX_MTX = ".mtx";
+	/** Line separator */
+	private final static char NEWLINE = '\n';
+	
+	@Override
+	public void export(Graph graph, String basePath, boolean compressed) throws IOException
+	{	List<Node> nodes = getSortedNodes(graph);
+		int[] ids = assignIds(nodes, 1);
+		PropertyColumn weights = getWeightColumn(graph);
+		boolean directed = graph.isDirected();
+		
+		Writer writer = openWriter(basePath+EX_MTX, compressed);
+		try
+		{	// header
+			String field = "pattern";
+			if(weights!=null)
+			{	if(weights.isInteger())
+					field = "integer";
+				else
+					field = "real";
+			}
+			String symmetry = "symmetric";
+			if(directed)
+				symmetry = "general";
+			writer.write("%%MatrixMarket matrix coordinate "+field+" "+symmetry);
+			writer.write(NEWLINE);
+			writer.write("% "+graph.getName()+": nodes numbered by lexicographic order of their names");
+			writer.write(NEWLINE);
+			writer.write(nodes.size()+" "+nodes.size()+" "+graph.getLinkSize());
+			writer.write(NEWLINE);
+			
+			// entries
+			for(Link link: getSortedLinks(graph))
+			{	int row = ids[link.getSource().getId()];
+				int col = ids[link.getTarget().getId()];
+				// symmetric matrix: lower triangle only
+				if(!directed && row<col)
+				{	int temp = row;
+					row = col;
+					col = temp;
+				}
+				writer.write(Integer.toString(row));
+				writer.write(' ');
+				writer.write(Integer.toString(col));
+				if(weights!=null)
+				{	writer.write(' ');
+					writer.write(weights.getValue(link.getId()));
+				}
+				writer.write(NEWLINE);
+			}
+		}
+		finally
+		{	writer.close();
+		}
+	}
+}
@@ -20,13 +20,6 @@ package fr.univavignon.biblioproc.data.graph;
  * along with Biblio Process.  If not, see <http://www.gnu.org/licenses/>.
  */
 
-import java.util.HashMap;
-import java.util.Map;
-
-import org.jdom2.Element;
-
-import fr.univavignon.tools.xml.GraphmlTools;
-
 /**
  * This class represents a graph node.
  * 
@@ -37,11 +30,36 @@ public class Node implements Comparable<Node>
 	/**
 	 * Creates a new node.
 	 * 
+	 * @param graph
+	 * 		Graph containing the node.
+	 * @param id
+	 * 		Internal id of the node in its graph.
 	 * @param name
 	 * 		Name of the node.
 	 */
-	protected Node(String name)
-	{	this.name = name;
+	protected Node(Graph graph, int id, String name)
+	{	this.graph = graph;
+		this.id = id;
+		this.name = name;
+	}
+
+	/////////////////////////////////////////////////////////////////
+	// GRAPH			/////////////////////////////////////////////
+	/////////////////////////////////////////////////////////////////
+	/** Graph containing this node */
+	private Graph graph;
+	/** Internal id of this node, used to access its property values */
+	private int id;
+	
+	/**
+	 * Returns the internal id of this node,
+	 * which is unique in its graph.
+	 * 
+	 * @return
+	 * 		Id of this node.
+	 */
+	public int getId()
+	{	return id;
 	}
 
 	/////////////////////////////////////////////////////////////////
@@ -63,9 +81,6 @@ public class Node implements Comparable<Node>
 	/////////////////////////////////////////////////////////////////
 	// LINKS			/////////////////////////////////////////////
 	/////////////////////////////////////////////////////////////////
-	/** Map containing all the links whose source is this node */
-	private final Map<Node, Link> linksByTarget = new HashMap<Node, Link>();
-	
 	/**
 	 * Returns the links connecting this node
 	 * to the specified target, if such a link
@@ -77,27 +92,15 @@ public class Node implements Comparable<Node>
 	 * 		The link connecting this node to the target.
 	 */
 	public Link getLinkTo(Node target)
-	{	Link result = linksByTarget.get(target);
+	{	Link result = graph.getLink(this, target);
+		if(result!=null && result.getSource()!=this)
+			result = null;
 		return result;
 	}
 	
-	/**
-	 * Adds a link to this node.
-	 * 
-	 * @param link
-	 * 		New link (its source should be this node).
-	 */
-	protected void addLink(Link link)
-	{	Node target = link.getTarget();
-		linksByTarget.put(target, link);
-	}
-	
 	/////////////////////////////////////////////////////////////////
 	// PROPERTIES		/////////////////////////////////////////////
 	/////////////////////////////////////////////////////////////////
-	/** Additional properties */
-	protected final Map<String,String> properties = new HashMap<String, String>();
-	
 	/**
 	 * Sets the specified property with the
 	 * specified value. Note the property itself
@@ -110,11 +113,8 @@ public class Node implements Comparable<Node>
 	 * 		Value associated to the property.
 	 */
 	public void setProperty(String name, String value)
-	{	String oldValue = properties.get(name);
-		if(oldValue==null)
-			throw new IllegalArgumentException("Unknown property ("+name+")");
-		else
-		properties.put(name, value);
+	{	PropertyColumn column = graph.getNodeColumn(name);
+		column.setValue(id, value);
 	}
 	
 	/**
@@ -126,46 +126,8 @@ public class Node implements Comparable<Node>
 	 * 		Name of the property.
 	 */
 	public void incrementIntProperty(String name)
-	{	String valueStr = properties.get(name);
-		int value = Integer.parseInt(valueStr) + 1;
-		valueStr = Integer.toString(value);
-		properties.put(name, valueStr);
-	}
-	
-	/////////////////////////////////////////////////////////////////
-	// GRAPHML			/////////////////////////////////////////////
-	/////////////////////////////////////////////////////////////////
-//	/**
-//	 * Processes the specified graphml element
-//	 * and extract the node it contains.
-//	 * 
-//	 * @param nodeElt
-//	 * 		Graphml element.
-//	 * @return
-//	 * 		A new {@code Node} object.
-//	 */
-//	public static Node importFromGraphml(Element nodeElt)
-//	{	Node result = null;
-//		// TODO
-//		return result;
-//	}
-	
-	/**
-	 * Creates a graphml element representing
-	 * this node object.
-	 * 
-	 * @return
-	 * 		A Graphml element.
-	 */
-	public Element exportNode()
-	{	// create element
-		Element result = new Element(GraphmlTools.ELT_NODE, GraphmlTools.NAMESPACE);
-		// add unique name
-		result.setAttribute(GraphmlTools.ATT_ID,name);
-		// add other properties
-		GraphmlTools.exportPropertyValues(properties, "node", result);
-		
-		return result;
+	{	PropertyColumn column = graph.getNodeColumn(name);
+		column.incrementInt(id, 1);
 	}
 	
 	/////////////////////////////////////////////////////////////////
@@ -0,0 +1,78 @@
+package fr.univavignon.biblioproc.data.graph;
+
+/*
+ * Biblio Process
+ * Copyright 2011-19 Vincent Labatut 
+ * 
+ * This file is part of Biblio Process.
+ * 
+ * Biblio Process is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 2 of the License, or
+ * (at your option) any later version.
+ * 
+ * Biblio Process is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with Biblio Process.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+
+/**
+ * Records a graph using the Pajek {@code .net} format: 
+ * the list of vertices with their names, then the list 
+ * of arcs (directed graph) or edges (undirected graph).
+ * The {@code weight} link property, if any, is used as 
+ * the link weight. Nodes are numbered from 1. 
+ * 
+ * @author Vincent Labatut
+ */
+public class PajekGraphExporter extends AbstractGraphExporter
+{
+	/** Extension of the Pajek files */
+	public final static String EX_PAJEK = ".net";
+	/** Line separator (Pajek expects Windows line breaks) */
+	private final static String NEWLINE = "\r\n";
+	
+	@Override
+	public void export(Graph graph, String basePath, boolean compressed) throws IOException
+	{	List<Node> nodes = getSortedNodes(graph);
+		int[] ids = assignIds(nodes, 1);
+		PropertyColumn weights = getWeightColumn(graph);
+		
+		Writer writer = openWriter(basePath+EX_PAJEK, compressed);
+		try
+		{	// vertices
+			writer.write("*Vertices "+nodes.size()+NEWLINE);
+			for(Node node: nodes)
+			{	String name = node.getName().replace('"', '\'');
+				writer.write(ids[node.getId()]+" \""+name+"\""+NEWLINE);
+			}
+			
+			// links
+			if(graph.isDirected())
+				writer.write("*Arcs"+NEWLINE);
+			else
+				writer.write("*Edges"+NEWLINE);
+			for(Link link: getSortedLinks(graph))
+			{	writer.write(Integer.toString(ids[link.getSource().getId()]));
+				writer.write(' ');
+				writer.write(Integer.toString(ids[link.getTarget().getId()]));
+				if(weights!=null)
+				{	writer.write(' ');
+					writer.write(weights.getValue(link.getId()));
+				}
+				writer.write(NEWLINE);
+			}
+		}
+		finally
+		{	writer.close();
+		}
+	}
+}
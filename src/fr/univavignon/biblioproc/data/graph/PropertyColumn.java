@@ -0,0 +1,589 @@
+package fr.univavignon.biblioproc.data.graph;
+
+/*
+ * Biblio Process
+ * Copyright 2011-19 Vincent Labatut 
+ * 
+ * This file is part of Biblio Process.
+ * 
+ * Biblio Process is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 2 of the License, or
+ * (at your option) any later version.
+ * 
+ * Biblio Process is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with Biblio Process.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * This class stores the values of a node or link property,
+ * for all the nodes (or links) of a graph. The values are stored
+ * in a typed array indexed by the node (or link) id, so that 
+ * numerical values can be updated without parsing or formatting 
+ * strings. Strings are only produced when exporting the graph.
+ * <br/>
+ * When the graph is read from a binary file, the values are not
+ * copied: they are served directly from the file buffer, until the
+ * column is modified for the first time.
+ * 
+ * @author Vincent Labatut
+ */
+class PropertyColumn
+{
+	/**
+	 * Creates a new column for the specified data type.
+	 * 
+	 * @param name
+	 * 		Name of the property.
+	 * @param type
+	 * 		Data type of the property values.
+	 */
+	PropertyColumn(String name, String type)
+	{	this.name = name;
+		this.type = type;
+		switch(type)
+		{	case "xsd:integer":
+			case "xsd:int":
+			case "integer":
+			case "int":
+				kind = KIND_INT;
+				ints = new int[INIT_CAPACITY];
+				break;
+			case "xsd:float":
+			case "xsd:double":
+			case "float":
+			case "double":
+				kind = KIND_FLOAT;
+				floats = new float[INIT_CAPACITY];
+				texts = new String[INIT_CAPACITY];
+				assigned = new BitSet();
+				break;
+			default:
+				kind = KIND_STRING;
+				strings = new String[INIT_CAPACITY];
+		}
+	}
+	
+	/////////////////////////////////////////////////////////////////
+	// TYPE				/////////////////////////////////////////////
+	/////////////////////////////////////////////////////////////////
+	/** String values */
+	private final static int KIND_STRING = 0;
+	/** Integer values */
+	private final static int KIND_INT = 1;
+	/** Real values */
+	private final static int KIND_FLOAT = 2;
+	/** Name of the property */
+	private String name;
+	/** Data type of the property, as declared */
+	private String type;
+	/** Kind of values stored in this column */
+	private int kind;
+	
+	/**
+	 * Returns the data type of this property,
+	 * as it was declared.
+	 * 
+	 * @return
+	 * 		Data type of the property.
+	 */
+	String getType()
+	{	return type;
+	}
+	
+	/**
+	 * Indicates whether this column contains integer values.
+	 * 
+	 * @return
+	 * 		{@code true} iff the values are integers.
+	 */
+	boolean isInteger()
+	{	return kind==KIND_INT;
+	}
+	
+	/**
+	 * Indicates whether this column contains real values.
+	 * 
+	 * @return
+	 * 		{@code true} iff the values are reals.
+	 */
+	boolean isReal()
+	{	return kind==KIND_FLOAT;
+	}
+	
+	/////////////////////////////////////////////////////////////////
+	// VALUES			/////////////////////////////////////////////
+	/////////////////////////////////////////////////////////////////
+	/** Initial capacity of the arrays */
+	private final static int INIT_CAPACITY = 16;
+	/** Default value of the string properties */
+	private final static String INIT_STRING = "NA";
+	/** Default value of the numerical properties */
+	private final static String INIT_NUMBER = "0";
+	/** Values of an integer property */
+	private int[] ints = null;
+	/** Values of a real property */
+	private float[] floats = null;
+	/** Indicates which real values were explicitly set */
+	private BitSet assigned = null;
+	/** Original representation of the real values set as strings ({@code null} for computed values) */
+	private String[] texts = null;
+	/** Values of a string property ({@code null} means default value) */
+	private String[] strings = null;
+	
+	/**
+	 * Makes sure the column can store the
+	 * value of the specified id.
+	 * 
+	 * @param id
+	 * 		Id of a node or link.
+	 */
+	void ensureCapacity(int id)
+	{	if(mapped!=null)
+		{	if(id<mappedSize)
+				return;
+			materialize();
+		}
+		switch(kind)
+		{	case KIND_INT:
+				if(id>=ints.length)
+					ints = Arrays.copyOf(ints, Math.max(2*ints.length, id+1));
+				break;
+			case KIND_FLOAT:
+				if(id>=floats.length)
+				{	floats = Arrays.copyOf(floats, Math.max(2*floats.length, id+1));
+					texts = Arrays.copyOf(texts, floats.length);
+				}
+				break;
+			default:
+				if(id>=strings.length)
+					strings = Arrays.copyOf(strings, Math.max(2*strings.length, id+1));
+		}
+	}
+	
+	/**
+	 * Returns the value associated to the specified id,
+	 * under the form of a string.
+	 * 
+	 * @param id
+	 * 		Id of a node or link.
+	 * @return
+	 * 		The string representation of its value.
+	 */
+	String getValue(int id)
+	{	String result;
+		switch(kind)
+		{	case KIND_INT:
+				result = Integer.toString(intAt(id));
+				break;
+			case KIND_FLOAT:
+				result = textAt(id);
+				if(result==null)
+				{	if(isAssigned(id))
+						result = Float.toString(floatAt(id));
+					else
+						result = INIT_NUMBER;
+				}
+				break;
+			default:
+				result = stringAt(id);
+				if(result==null)
+					result = INIT_STRING;
+		}
+		return result;
+	}
+	
+	/**
+	 * Changes the value associated to the specified id.
+	 * Numerical values are parsed: a missing value (empty
+	 * string or {@value #INIT_STRING}) resets the default value. 
+	 * The original representation of real values is kept, and 
+	 * used when exporting the graph (until they are incremented).
+	 * 
+	 * @param id
+	 * 		Id of a node or link.
+	 * @param value
+	 * 		String representation of the new value.
+	 * 
+	 * @throws IllegalArgumentException
+	 * 		If the value cannot be parsed according to the type of the property.
+	 */
+	void setValue(int id, String value)
+	{	materialize();
+		boolean missing = value==null || value.isEmpty() || value.equals(INIT_STRING);
+		try
+		{	switch(kind)
+			{	case KIND_INT:
+					if(missing)
+						ints[id] = 0;
+					else
+						ints[id] = Integer.parseInt(value);
+					break;
+				case KIND_FLOAT:
+					if(missing)
+					{	floats[id] = 0;
+						texts[id] = null;
+						assigned.clear(id);
+					}
+					else
+					{	floats[id] = Float.parseFloat(value);
+						texts[id] = value;
+						assigned.set(id);
+					}
+					break;
+				default:
+					strings[id] = value;
+			}
+		}
+		catch(NumberFormatException e)
+		{	throw new IllegalArgumentException("Value \""+value+"\" cannot be parsed for property "+name+" ("+type+")", e);
+		}
+	}
+	
+	/**
+	 * Returns the integer value associated to the specified id.
+	 * 
+	 * @param id
+	 * 		Id of a node or link.
+	 * @return
+	 * 		Integer value.
+	 */
+	int getInt(int id)
+	{	if(kind!=KIND_INT)
+			throw new IllegalArgumentException("Property "+name+" is not an integer ("+type+")");
+		return intAt(id);
+	}
+	
+	/**
+	 * Returns the real value associated to the specified id.
+	 * 
+	 * @param id
+	 * 		Id of a node or link.
+	 * @return
+	 * 		Real value.
+	 */
+	float getFloat(int id)
+	{	if(kind!=KIND_FLOAT)
+			throw new IllegalArgumentException("Property "+name+" is not a real ("+type+")");
+		return floatAt(id);
+	}
+	
+	/**
+	 * Increments the integer value associated to the
+	 * specified id.
+	 * 
+	 * @param id
+	 * 		Id of a node or link.
+	 * @param delta
+	 * 		Increment.
+	 */
+	void incrementInt(int id, int delta)
+	{	if(kind!=KIND_INT)
+			throw new IllegalArgumentException("Property "+name+" is not an integer ("+type+")");
+		materialize();
+		ints[id] = ints[id] + delta;
+	}
+	
+	/**
+	 * Increments the real value associated to the
+	 * specified id.
+	 * 
+	 * @param id
+	 * 		Id of a node or link.
+	 * @param delta
+	 * 		Increment.
+	 */
+	void incrementFloat(int id, float delta)
+	{	if(kind!=KIND_FLOAT)
+			throw new IllegalArgumentException("Property "+name+" is not a real ("+type+")");
+		materialize();
+		floats[id] = floats[id] + delta;
+		texts[id] = null;
+		assigned.set(id);
+	}
+	
+	/////////////////////////////////////////////////////////////////
+	// BINARY			/////////////////////////////////////////////
+	/////////////////////////////////////////////////////////////////
+	/**
+	 * Adds the string values of this column to the
+	 * specified string table (including the original
+	 * representation of the real values).
+	 * 
+	 * @param size
+	 * 		Number of values in the column.
+	 * @param table
+	 * 		String table to complete.
+	 */
+	void collectStrings(int size, StringTable table)
+	{	if(kind!=KIND_INT)
+		{	for(int i=0;i<size;i++)
+			{	String str;
+				if(kind==KIND_STRING)
+					str = stringAt(i);
+				else
+					str = textAt(i);
+				if(str!=null)
+					table.add(str);
+			}
+		}
+	}
+	
+	/**
+	 * Writes the values of this column to the specified
+	 * stream, using the specified order. Strings are
+	 * replaced by their position in the string table
+	 * ({@code -1} for the default value). Real values are
+	 * followed by the flags indicating which ones were set, 
+	 * and by the positions of their original representations 
+	 * ({@code -1} for computed values).
+	 * 
+	 * @param out
+	 * 		Stream to write in.
+	 * @param order
+	 * 		Ids of the nodes/links, in the order in which they must be written. 
+	 * @param table
+	 * 		String table of the file.
+	 * 
+	 * @throws IOException
+	 * 		Problem while writing the stream.
+	 */
+	void writeValues(DataOutputStream out, int[] order, StringTable table) throws IOException
+	{	switch(kind)
+		{	case KIND_INT:
+				for(int id: order)
+					out.writeInt(intAt(id));
+				break;
+			case KIND_FLOAT:
+				BitSet bits = new BitSet(order.length);
+				for(int i=0;i<order.length;i++)
+				{	int id = order[i];
+					out.writeFloat(floatAt(id));
+					if(isAssigned(id))
+						bits.set(i);
+				}
+				long[] words = bits.toLongArray();
+				out.writeInt(words.length);
+				for(long word: words)
+					out.writeLong(word);
+				for(int id: order)
+				{	String text = textAt(id);
+					if(text==null)
+						out.writeInt(-1);
+					else
+						out.writeInt(table.getIndex(text));
+				}
+				break;
+			default:
+				for(int id: order)
+				{	String str = stringAt(id);
+					if(str==null)
+						out.writeInt(-1);
+					else
+						out.writeInt(table.getIndex(str));
+				}
+		}
+	}
+	
+	/////////////////////////////////////////////////////////////////
+	// MAPPED VALUES	/////////////////////////////////////////////
+	/////////////////////////////////////////////////////////////////
+	/** Values read from a binary file, as written by {@link #writeValues(DataOutputStream, int[], StringTable)} ({@code null} if the arrays are used) */
+	private ByteBuffer mapped = null;
+	/** Number of values in the mapped buffer */
+	private int mappedSize = 0;
+	/** Flags of the mapped real values */
+	private LongBuffer mappedAssigned = null;
+	/** Position of the original representations of the mapped real values */
+	private int mappedTexts = 0;
+	/** String table of the binary file containing the mapped values */
+	private String[] mappedTable = null;
+	
+	/**
+	 * Attaches the values of this column located in the specified buffer,
+	 * as written by {@link #writeValues(DataOutputStream, int[], StringTable)}.
+	 * The ids of the nodes/links are their positions in the buffer. The 
+	 * values are not copied: they are read from the buffer when needed, 
+	 * until the column is modified.
+	 * 
+	 * @param buffer
+	 * 		Buffer to read, positioned at the start of the values, and
+	 * 		then moved after them.
+	 * @param size
+	 * 		Number of values in the column.
+	 * @param table
+	 * 		String table of the file.
+	 */
+	void readValues(ByteBuffer buffer, int size, String[] table)
+	{	int length = 4*size;
+		if(kind==KIND_FLOAT)
+		{	int wordCount = buffer.getInt(buffer.position()+length);
+			ByteBuffer view = buffer.duplicate();
+			view.position(buffer.position()+length+4);
+			mappedAssigned = view.slice().asLongBuffer();
+			mappedAssigned.limit(wordCount);
+			mappedTexts = length + 4 + 8*wordCount;
+			length = mappedTexts + 4*size;
+		}
+		ByteBuffer slice = buffer.slice();
+		slice.limit(length);
+		buffer.position(buffer.position()+length);
+		
+		mapped = slice;
+		mappedSize = size;
+		mappedTable = table;
+	}
+	
+	/**
+	 * Copies the mapped values (if any) to the arrays
+	 * of this column, so that they can be modified.
+	 */
+	private void materialize()
+	{	if(mapped!=null)
+		{	ByteBuffer buffer = mapped;
+			int size = mappedSize;
+			mapped = null;
+			if(size>0)
+				ensureCapacity(size-1);
+			switch(kind)
+			{	case KIND_INT:
+					buffer.asIntBuffer().get(ints, 0, size);
+					break;
+				case KIND_FLOAT:
+					buffer.asFloatBuffer().get(floats, 0, size);
+					long[] words = new long[mappedAssigned.limit()];
+					mappedAssigned.get(words);
+					assigned = BitSet.valueOf(words);
+					for(int i=0;i<size;i++)
+					{	int index = buffer.getInt(mappedTexts+4*i);
+						if(index>=0)
+							texts[i] = mappedTable[index];
+					}
+					break;
+				default:
+					for(int i=0;i<size;i++)
+					{	int index = buffer.getInt(4*i);
+						if(index>=0)
+							strings[i] = mappedTable[index];
+					}
+			}
+			mappedAssigned = null;
+			mappedTable = null;
+		}
+	}
+	
+	/**
+	 * Returns the integer value associated to the
+	 * specified id, wherever it is stored.
+	 * 
+	 * @param id
+	 * 		Id of a node or link.
+	 * @return
+	 * 		Integer value.
+	 */
+	private int intAt(int id)
+	{	int result;
+		if(mapped==null)
+			result = ints[id];
+		else
+			result = mapped.getInt(4*id);
+		return result;
+	}
+	
+	/**
+	 * Returns the real value associated to the
+	 * specified id, wherever it is stored.
+	 * 
+	 * @param id
+	 * 		Id of a node or link.
+	 * @return
+	 * 		Real value.
+	 */
+	private float floatAt(int id)
+	{	float result;
+		if(mapped==null)
+			result = floats[id];
+		else
+			result = mapped.getFloat(4*id);
+		return result;
+	}
+	
+	/**
+	 * Indicates whether the real value associated to 
+	 * the specified id was explicitly set.
+	 * 
+	 * @param id
+	 * 		Id of a node or link.
+	 * @return
+	 * 		{@code true} iff the value was set.
+	 */
+	private boolean isAssigned(int id)
+	{	boolean result;
+		if(mapped==null)
+			result = assigned.get(id);
+		else
+		{	int word = id >> 6;
+			result = word<mappedAssigned.limit() 
+				&& ((mappedAssigned.get(word) >>> (id & 63)) & 1L)!=0;
+		}
+		return result;
+	}
+	
+	/**
+	 * Returns the original representation of the real value
+	 * associated to the specified id, wherever it is stored.
+	 * 
+	 * @param id
+	 * 		Id of a node or link.
+	 * @return
+	 * 		Original representation, or {@code null} for a computed value.
+	 */
+	private String textAt(int id)
+	{	String result;
+		if(mapped==null)
+			result = texts[id];
+		else
+		{	int index = mapped.getInt(mappedTexts+4*id);
+			if(index<0)
+				result = null;
+			else
+				result = mappedTable[index];
+		}
+		return result;
+	}
+	
+	/**
+	 * Returns the string value associated to the
+	 * specified id, wherever it is stored.
+	 * 
+	 * @param id
+	 * 		Id of a node or link.
+	 * @return
+	 * 		String value, or {@code null} for the default value.
+	 */
+	private String stringAt(int id)
+	{	String result;
+		if(mapped==null)
+			result = strings[id];
+		else
+		{	int index = mapped.getInt(4*id);
+			if(index<0)
+				result = null;
+			else
+				result = mappedTable[index];
+		}
+		return result;
+	}
+}
@@ -0,0 +1,126 @@
+package fr.univavignon.biblioproc.data.graph;
+
+/*
+ * Biblio Process
+ * Copyright 2011-19 Vincent Labatut 
+ * 
+ * This file is part of Biblio Process.
+ * 
+ * Biblio Process is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 2 of the License, or
+ * (at your option) any later version.
+ * 
+ * Biblio Process is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with Biblio Process.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Table of distinct strings used when recording
+ * a graph in the binary format: each string is
+ * written once, and then referred to through its 
+ * position in the table.
+ * 
+ * @author Vincent Labatut
+ */
+class StringTable
+{
+	/////////////////////////////////////////////////////////////////
+	// CONTENT			/////////////////////////////////////////////
+	/////////////////////////////////////////////////////////////////
+	/** Strings of the table, in order of insertion */
+	private final List<String> strings = new ArrayList<String>();
+	/** Position of each string in the table */
+	private final Map<String,Integer> indices = new HashMap<String,Integer>();
+	
+	/**
+	 * Adds the specified string to the table,
+	 * if it is not already present.
+	 * 
+	 * @param str
+	 * 		String to add.
+	 * 
+	 * @throws IllegalArgumentException
+	 * 		If the string is {@code null}, which cannot be recorded.
+	 */
+	void add(String str)
+	{	if(str==null)
+			throw new IllegalArgumentException("Cannot add a null string to the table");
+		if(!indices.containsKey(str))
+		{	indices.put(str, strings.size());
+			strings.add(str);
+		}
+	}
+	
+	/**
+	 * Returns the position of the specified string
+	 * in the table. The string must have been added before.
+	 * 
+	 * @param str
+	 * 		String of interest.
+	 * @return
+	 * 		Its position in the table.
+	 */
+	int getIndex(String str)
+	{	Integer result = indices.get(str);
+		if(result==null)
+			throw new IllegalArgumentException("String not in the table ("+str+")");
+		return result;
+	}
+	
+	/////////////////////////////////////////////////////////////////
+	// BINARY			/////////////////////////////////////////////
+	/////////////////////////////////////////////////////////////////
+	/**
+	 * Writes the table to the specified stream: number of strings,
+	 * then each string as a byte length followed by its UTF-8 bytes.
+	 * 
+	 * @param out
+	 * 		Stream to write in.
+	 * 
+	 * @throws IOException
+	 * 		Problem while writing the stream.
+	 */
+	void write(DataOutputStream out) throws IOException
+	{	out.writeInt(strings.size());
+		for(String str: strings)
+		{	byte[] bytes = str.getBytes(StandardCharsets.UTF_8);
+			out.writeInt(bytes.length);
+			out.write(bytes);
+		}
+	}
+	
+	/**
+	 * Reads a table written by {@link #write(DataOutputStream)}.
+	 * 
+	 * @param buffer
+	 * 		Buffer to read, positioned at the start of the table.
+	 * @return
+	 * 		Strings of the table, in order.
+	 */
+	static String[] read(ByteBuffer buffer)
+	{	int size = buffer.getInt();
+		String[] result = new String[size];
+		for(int i=0;i<size;i++)
+		{	int length = buffer.getInt();
+			byte[] bytes = new byte[length];
+			buffer.get(bytes);
+			result[i] = new String(bytes, StandardCharsets.UTF_8);
+		}
+		return result;
+	}
+}
@@ -0,0 +1,173 @@
+package fr.univavignon.biblioproc.data.graph;
+
+/*
+ * Biblio Process
+ * Copyright 2011-19 Vincent Labatut 
+ * 
+ * This file is part of Biblio Process.
+ * 
+ * Biblio Process is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 2 of the License, or
+ * (at your option) any later version.
+ * 
+ * Biblio Process is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with Biblio Process.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+/**
+ * Records a graph as two tab-separated tables:
+ * a node table ({@code .nodes.tsv}) containing the node number, 
+ * name and properties, and an edge list ({@code .edges.tsv}) 
+ * containing the source and target numbers and the link properties.
+ * Both tables start with a header line. Nodes are numbered from 0.
+ * 
+ * @author Vincent Labatut
+ */
+public class TsvGraphExporter extends AbstractGraphExporter
+{
+	/** Extension of the node table */
+	public final static String EX_NODES = ".nodes.tsv";
+	/** Extension of the edge list */
+	public final static String EX_EDGES = ".edges.tsv";
+	/** Separator between the columns */
+	private final static char SEPARATOR = '\t';
+	/** Line separator */
+	private final static char NEWLINE = '\n';
+	
+	@Override
+	public void export(Graph graph, String basePath, boolean compressed) throws IOException
+	{	List<Node> nodes = getSortedNodes(graph);
+		int[] ids = assignIds(nodes, 0);
+		
+		// node table
+		List<String> names = new ArrayList<String>();
+		List<PropertyColumn> columns = new ArrayList<PropertyColumn>();
+		splitColumns(graph.getNodeColumns(), names, columns);
+		Writer writer = openWriter(basePath+EX_NODES, compressed);
+		try
+		{	writer.write("id");
+			writer.write(SEPARATOR);
+			writer.write("name");
+			writeHeader(writer, names);
+			for(Node node: nodes)
+			{	writer.write(Integer.toString(ids[node.getId()]));
+				writer.write(SEPARATOR);
+				writer.write(clean(node.getName()));
+				writeValues(writer, columns, node.getId());
+			}
+		}
+		finally
+		{	writer.close();
+		}
+		
+		// edge list
+		names.clear();
+		columns.clear();
+		splitColumns(graph.getLinkColumns(), names, columns);
+		writer = openWriter(basePath+EX_EDGES, compressed);
+		try
+		{	writer.write("source");
+			writer.write(SEPARATOR);
+			writer.write("target");
+			writeHeader(writer, names);
+			for(Link link: getSortedLinks(graph))
+			{	writer.write(Integer.toString(ids[link.getSource().getId()]));
+				writer.write(SEPARATOR);
+				writer.write(Integer.toString(ids[link.getTarget().getId()]));
+				writeValues(writer, columns, link.getId());
+			}
+		}
+		finally
+		{	writer.close();
+		}
+	}
+	
+	/**
+	 * Separates the property names and columns, so that
+	 * they are processed in the same order for the header
+	 * and for each line.
+	 * 
+	 * @param map
+	 * 		Map of property columns.
+	 * @param names
+	 * 		List to complete with the property names.
+	 * @param columns
+	 * 		List to complete with the corresponding columns.
+	 */
+	private void splitColumns(Map<String,PropertyColumn> map, List<String> names, List<PropertyColumn> columns)
+	{	for(Entry<String,PropertyColumn> entry: map.entrySet())
+		{	names.add(entry.getKey());
+			columns.add(entry.getValue());
+		}
+	}
+	
+	/**
+	 * Completes and ends the header line.
+	 * 
+	 * @param writer
+	 * 		Writer of the table.
+	 * @param names
+	 * 		Names of the properties.
+	 * 
+	 * @throws IOException
+	 * 		Problem while writing the file.
+	 */
+	private void writeHeader(Writer writer, List<String> names) throws IOException
+	{	for(String name: names)
+		{	writer.write(SEPARATOR);
+			writer.write(clean(name));
+		}
+		writer.write(NEWLINE);
+	}
+	
+	/**
+	 * Completes and ends a line with the property
+	 * values of a node or link.
+	 * 
+	 * @param writer
+	 * 		Writer of the table.
+	 * @param columns
+	 * 		Property columns.
+	 * @param id
+	 * 		Internal id of the node or link.
+	 * 
+	 * @throws IOException
+	 * 		Problem while writing the file.
+	 */
+	private void writeValues(Writer writer, List<PropertyColumn> columns, int id) throws IOException
+	{	for(PropertyColumn column: columns)
+		{	writer.write(SEPARATOR);
+			writer.write(clean(column.getValue(id)));
+		}
+		writer.write(NEWLINE);
+	}
+	
+	/**
+	 * Replaces the tabulations and line breaks
+	 * of the specified value by spaces.
+	 * 
+	 * @param value
+	 * 		Original value.
+	 * @return
+	 * 		Value which can be put in a table cell.
+	 */
+	private String clean(String value)
+	{	String result = value;
+		if(value.indexOf('\t')>=0 || value.indexOf('\n')>=0 || value.indexOf('\r')>=0)
+			result = value.replace('\t', ' ').replace('\n', ' ').replace('\r', ' ');
+		return result;
+	}
+}
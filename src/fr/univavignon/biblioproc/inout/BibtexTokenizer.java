@@ -0,0 +1,586 @@
+package fr.univavignon.biblioproc.inout;
+
+/*
+ * Biblio Process
+ * Copyright 2011-19 Vincent Labatut 
+ * 
+ * This file is part of Biblio Process.
+ * 
+ * Biblio Process is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 2 of the License, or
+ * (at your option) any later version.
+ * 
+ * Biblio Process is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with Biblio Process.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Locale;
+
+import fr.univavignon.tools.file.FileTools;
+
+/**
+ * Tokenizer reading BibTex entries directly from the bytes of a
+ * (memory-mapped) UTF-8 file. The tokenizer only records the 
+ * positions of the entry types, keys, field names and field values:
+ * strings are created only when a value is explicitly requested. 
+ * Field values can be delimited by braces (possibly nested), by 
+ * double quotes, or be bare tokens (numbers, macros), and they 
+ * can span several lines.
+ * <br/>
+ * The tokenizer stops at the first {@code @Comment} entry, which
+ * marks the beginning of the JabRef commands.
+ * 
+ * @author Vincent Labatut
+ */
+class BibtexTokenizer
+{
+	/**
+	 * Creates a tokenizer processing the specified
+	 * region of the buffer.
+	 * 
+	 * @param buffer
+	 * 		Buffer containing the BibTex file.
+	 * @param start
+	 * 		Position of the first byte to process.
+	 * @param end
+	 * 		Position following the last byte to process.
+	 */
+	BibtexTokenizer(ByteBuffer buffer, int start, int end)
+	{	this.buffer = buffer;
+		this.pos = start;
+		this.end = end;
+	}
+	
+	/////////////////////////////////////////////////////////////////
+	// FILE				/////////////////////////////////////////////
+	/////////////////////////////////////////////////////////////////
+	/**
+	 * Maps the specified file in memory.
+	 * 
+	 * @param path
+	 * 		Path of the file.
+	 * @return
+	 * 		A read-only buffer containing the file bytes.
+	 * 
+	 * @throws IOException
+	 * 		Problem while accessing the file.
+	 */
+	static MappedByteBuffer mapFile(String path) throws IOException
+	{	MappedByteBuffer result;
+		FileChannel channel = FileChannel.open(Paths.get(path), StandardOpenOption.READ);
+		try
+		{	long size = channel.size();
+			if(size>Integer.MAX_VALUE)
+				throw new IOException("File too large to be mapped ("+path+")");
+			result = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+		}
+		finally
+		{	channel.close();
+		}
+		return result;
+	}
+	
+	/**
+	 * Returns the (decoded) text located between
+	 * the specified positions of the buffer.
+	 * 
+	 * @param from
+	 * 		Position of the first byte.
+	 * @param to
+	 * 		Position following the last byte.
+	 * @return
+	 * 		The corresponding string.
+	 */
+	String getText(int from, int to)
+	{	byte[] data = getBytes(to - from);
+		for(int i=from;i<to;i++)
+			data[i-from] = buffer.get(i);
+		String result = new String(data, 0, to-from, StandardCharsets.UTF_8);
+		return result;
+	}
+	
+	/////////////////////////////////////////////////////////////////
+	// POSITION			/////////////////////////////////////////////
+	/////////////////////////////////////////////////////////////////
+	/** Buffer containing the file */
+	private final ByteBuffer buffer;
+	/** Current position in the buffer */
+	private int pos;
+	/** End of the processed region */
+	private final int end;
+	/** Position of the {@code @Comment} entry ending the BibTex part, or {@code -1} if none was met */
+	private int commentStart = -1;
+	
+	/**
+	 * Returns the position of the {@code @Comment} entry marking
+	 * the beginning of the JabRef commands, or {@code -1} if the 
+	 * tokenizer did not meet such an entry.
+	 * 
+	 * @return
+	 * 		Position of the JabRef commands.
+	 */
+	int getCommentStart()
+	{	return commentStart;
+	}
+	
+	/**
+	 * Returns the number of the line containing the
+	 * current position, used in error messages.
+	 * 
+	 * @return
+	 * 		Current line number (starting from 1).
+	 */
+	private int getLineNumber()
+	{	int result = 1;
+		for(int i=0;i<pos && i<buffer.limit();i++)
+		{	if(buffer.get(i)=='\n')
+				result++;
+		}
+		return result;
+	}
+	
+	/**
+	 * Indicates whether the specified position is located
+	 * at the beginning of a line, possibly after some spaces.
+	 * 
+	 * @param position
+	 * 		Position in the buffer.
+	 * @return
+	 * 		{@code true} iff only spaces separate the position from the previous line break.
+	 */
+	private boolean isLineStart(int position)
+	{	int i = position - 1;
+		while(i>=0 && (buffer.get(i)==' ' || buffer.get(i)=='\t'))
+			i--;
+		boolean result = i<0 || buffer.get(i)=='\n' || buffer.get(i)=='\r';
+		return result;
+	}
+	
+	/**
+	 * Moves the position to the next non-whitespace byte.
+	 */
+	private void skipSpaces()
+	{	while(pos<end && isSpace(buffer.get(pos)))
+			pos++;
+	}
+	
+	/**
+	 * Indicates whether the specified byte is a whitespace.
+	 * 
+	 * @param b
+	 * 		Byte to test.
+	 * @return
+	 * 		{@code true} iff the byte is a space, tabulation or line break.
+	 */
+	private static boolean isSpace(byte b)
+	{	return b==' ' || b=='\t' || b=='\n' || b=='\r';
+	}
+	
+	/**
+	 * Checks the current byte is the expected one,
+	 * and moves past it.
+	 * 
+	 * @param expected
+	 * 		Expected byte.
+	 */
+	private void expect(char expected)
+	{	skipSpaces();
+		if(pos>=end || buffer.get(pos)!=expected)
+			throw new IllegalArgumentException("Expecting '"+expected+"' in the BibTex file, line "+getLineNumber());
+		pos++;
+	}
+	
+	/////////////////////////////////////////////////////////////////
+	// ENTRIES			/////////////////////////////////////////////
+	/////////////////////////////////////////////////////////////////
+	/** BibTex entry type used for comments */
+	private static final String TYPE_COMMENT = "comment";
+	/** BibTex entry type used for string definitions */
+	private static final String TYPE_STRING = "string";
+	/** BibTex entry type used for preambles */
+	private static final String TYPE_PREAMBLE = "preamble";
+	/** Type of the current entry */
+	private String entryType;
+	/** Key of the current entry */
+	private String entryKey;
+	/** Whether all the fields of the current entry were read */
+	private boolean entryEnded = true;
+	/** Position of the {@code @} starting the current entry */
+	private int entryStart;
+	
+	/**
+	 * Moves to the next BibTex entry, and reads its type and key.
+	 * Any text located between entries is ignored, as well as 
+	 * the fields of the previous entry not read yet, and the
+	 * {@code @String} and {@code @Preamble} entries.
+	 * 
+	 * @return
+	 * 		{@code false} if there is no more entry, or if the
+	 * 		next one is an {@code @Comment}.
+	 */
+	boolean nextEntry()
+	{	boolean result = false;
+		
+		// skip the rest of the previous entry
+		skipEntry();
+		
+		boolean found = false;
+		while(!found && pos<end)
+		{	// look for an @ starting a line
+			int at = findEntryStart(pos, end);
+			if(at<0)
+				pos = end;
+			else
+			{	pos = at + 1;
+				int typeStart = pos;
+				while(pos<end && buffer.get(pos)!='{' && buffer.get(pos)!='(' && !isSpace(buffer.get(pos)))
+					pos++;
+				entryType = getText(typeStart, pos);
+				String lower = entryType.toLowerCase(Locale.ENGLISH);
+				if(lower.equals(TYPE_COMMENT))
+				{	commentStart = at;
+					pos = end;
+				}
+				else if(lower.equals(TYPE_STRING) || lower.equals(TYPE_PREAMBLE))
+				{	skipSpaces();
+					skipDelimited();
+				}
+				else
+				{	found = true;
+					entryStart = at;
+					expect('{');
+					skipSpaces();
+					int keyStart = pos;
+					while(pos<end && buffer.get(pos)!=',' && buffer.get(pos)!='}' && !isSpace(buffer.get(pos)))
+						pos++;
+					entryKey = getText(keyStart, pos);
+					skipSpaces();
+					if(pos<end && buffer.get(pos)==',')
+						pos++;
+					entryEnded = false;
+					result = true;
+				}
+			}
+		}
+		
+		return result;
+	}
+	
+	/**
+	 * Looks for the first {@code @} located at the beginning
+	 * of a line (possibly after some whitespaces), in the 
+	 * specified region of the buffer.
+	 * 
+	 * @param from
+	 * 		Start of the region.
+	 * @param to
+	 * 		End of the region.
+	 * @return
+	 * 		Position of the {@code @}, or {@code -1} if none.
+	 */
+	int findEntryStart(int from, int to)
+	{	int result = -1;
+		boolean lineStart = isLineStart(from);
+		int i = from;
+		while(result<0 && i<to)
+		{	byte b = buffer.get(i);
+			if(b=='@' && lineStart)
+				result = i;
+			else if(b=='\n')
+				lineStart = true;
+			else if(b!=' ' && b!='\t' && b!='\r')
+				lineStart = false;
+			i++;
+		}
+		return result;
+	}
+	
+	/**
+	 * Splits the remaining part of the processed region into
+	 * chunks of approximately the specified size, whose boundaries 
+	 * are beginnings of BibTex entries. The entries are located
+	 * by tracking the brace depth, so an {@code @} appearing in 
+	 * a field value is not mistaken for an entry beginning.
+	 * The position of the tokenizer is not modified.
+	 * 
+	 * @param chunkSize
+	 * 		Approximate number of bytes in a chunk.
+	 * @return
+	 * 		Positions of the chunk beginnings, followed by the end of the region.
+	 */
+	int[] findChunkBounds(int chunkSize)
+	{	int[] result = new int[16];
+		int size = 0;
+		result[size] = pos;
+		size++;
+		
+		int depth = 0;
+		boolean lineStart = isLineStart(pos);
+		int next = pos + chunkSize;
+		for(int i=pos;i<end;i++)
+		{	byte b = buffer.get(i);
+			if(b=='{')
+				depth++;
+			else if(b=='}')
+			{	if(depth>0)
+					depth--;
+			}
+			else if(b=='@' && lineStart && depth==0 && i>=next)
+			{	if(size==result.length)
+					result = Arrays.copyOf(result, 2*size);
+				result[size] = i;
+				size++;
+				next = i + chunkSize;
+			}
+			if(b=='\n')
+				lineStart = true;
+			else if(b!=' ' && b!='\t' && b!='\r')
+				lineStart = false;
+		}
+		
+		result = Arrays.copyOf(result, size+1);
+		result[size] = end;
+		return result;
+	}
+	
+	/**
+	 * Returns the type of the current entry.
+	 * 
+	 * @return
+	 * 		Entry type, e.g. {@code Article}.
+	 */
+	String getEntryType()
+	{	return entryType;
+	}
+	
+	/**
+	 * Returns the BibTex key of the current entry.
+	 * 
+	 * @return
+	 * 		Key of the current entry.
+	 */
+	String getEntryKey()
+	{	return entryKey;
+	}
+	
+	/**
+	 * Returns the position of the {@code @} starting
+	 * the current entry.
+	 * 
+	 * @return
+	 * 		Beginning of the current entry.
+	 */
+	int getEntryStart()
+	{	return entryStart;
+	}
+	
+	/**
+	 * Skips the fields of the current entry not read yet,
+	 * without decoding their values.
+	 * 
+	 * @return
+	 * 		Position following the current entry.
+	 */
+	int skipEntry()
+	{	while(!entryEnded)
+			nextField();
+		return pos;
+	}
+	
+	/**
+	 * Computes a hash of the bytes located between the
+	 * specified positions of the buffer, which allows 
+	 * detecting the modification of an entry.
+	 * 
+	 * @param from
+	 * 		Position of the first byte.
+	 * @param to
+	 * 		Position following the last byte.
+	 * @return
+	 * 		Hexadecimal representation of the hash.
+	 */
+	String hashText(int from, int to)
+	{	byte[] data = getBytes(to - from);
+		for(int i=from;i<to;i++)
+			data[i-from] = buffer.get(i);
+		String result = FileTools.hashBytes(data, 0, to-from);
+		return result;
+	}
+	
+	/////////////////////////////////////////////////////////////////
+	// FIELDS			/////////////////////////////////////////////
+	/////////////////////////////////////////////////////////////////
+	/** Start of the current field name */
+	private int nameStart;
+	/** End of the current field name */
+	private int nameEnd;
+	/** Start of the current field value (without delimiters) */
+	private int valueStart;
+	/** End of the current field value (without delimiters) */
+	private int valueEnd;
+	/** Buffer used to decode the strings */
+	private byte[] bytes = new byte[256];
+	
+	/**
+	 * Moves to the next field of the current entry, and
+	 * records the positions of its name and value.
+	 * 
+	 * @return
+	 * 		{@code false} iff the end of the entry was reached.
+	 */
+	boolean nextField()
+	{	boolean result = false;
+		if(!entryEnded)
+		{	skipSpaces();
+			if(pos>=end)
+				throw new IllegalArgumentException("Unexpected end of the BibTex file in entry "+entryKey);
+			if(buffer.get(pos)=='}')
+			{	pos++;
+				entryEnded = true;
+			}
+			else
+			{	// name
+				nameStart = pos;
+				while(pos<end && buffer.get(pos)!='=' && !isSpace(buffer.get(pos)))
+					pos++;
+				nameEnd = pos;
+				expect('=');
+				skipSpaces();
+				
+				// value
+				byte b = pos<end? buffer.get(pos) : 0;
+				if(b=='{' || b=='"')
+				{	valueStart = pos + 1;
+					skipDelimited();
+					valueEnd = pos - 1;
+				}
+				else
+				{	valueStart = pos;
+					while(pos<end && buffer.get(pos)!=',' && buffer.get(pos)!='}' && buffer.get(pos)!='\n')
+						pos++;
+					valueEnd = pos;
+				}
+				
+				// separator
+				skipSpaces();
+				if(pos<end && buffer.get(pos)==',')
+					pos++;
+				result = true;
+			}
+		}
+		return result;
+	}
+	
+	/**
+	 * Moves the position after the block starting at the
+	 * current position, which is delimited either by braces
+	 * (taking nesting into account) or by double quotes.
+	 */
+	private void skipDelimited()
+	{	byte open = buffer.get(pos);
+		byte close = open=='{'? (byte)'}' : open=='('? (byte)')' : open;
+		int depth = 0;
+		pos++;
+		boolean done = false;
+		while(!done)
+		{	if(pos>=end)
+				throw new IllegalArgumentException("Unbalanced delimiters in entry "+entryKey);
+			byte b = buffer.get(pos);
+			if(b==close && depth==0)
+				done = true;
+			else if(b=='{')
+				depth++;
+			else if(b=='}')
+				depth--;
+			pos++;
+		}
+	}
+	
+	/**
+	 * Returns the name of the current field.
+	 * 
+	 * @return
+	 * 		Field name.
+	 */
+	String getFieldName()
+	{	String result = getText(nameStart, nameEnd);
+		return result;
+	}
+	
+	/**
+	 * Returns the value of the current field, without its
+	 * delimiters. When the value spans several lines, each 
+	 * line is trimmed and the lines are joined with a space.
+	 * 
+	 * @return
+	 * 		Field value.
+	 */
+	String getFieldValue()
+	{	// trim the value
+		int from = valueStart;
+		int to = valueEnd;
+		while(from<to && isSpace(buffer.get(from)))
+			from++;
+		while(to>from && isSpace(buffer.get(to-1)))
+			to--;
+		
+		// copy the bytes, merging the lines
+		byte[] data = getBytes(to - from);
+		int length = 0;
+		int i = from;
+		while(i<to)
+		{	byte b = buffer.get(i);
+			if(b=='\n' || b=='\r')
+			{	// remove the spaces ending the line
+				while(length>0 && (data[length-1]==' ' || data[length-1]=='\t'))
+					length--;
+				// skip the line break
+				if(b=='\r' && i+1<to && buffer.get(i+1)=='\n')
+					i++;
+				i++;
+				// skip the spaces starting the next line
+				while(i<to && (buffer.get(i)==' ' || buffer.get(i)=='\t'))
+					i++;
+				data[length] = ' ';
+				length++;
+			}
+			else
+			{	data[length] = b;
+				length++;
+				i++;
+			}
+		}
+		
+		String result = new String(data, 0, length, StandardCharsets.UTF_8);
+		return result;
+	}
+	
+	/**
+	 * Returns a byte array large enough to contain
+	 * the specified number of bytes.
+	 * 
+	 * @param length
+	 * 		Required length.
+	 * @return
+	 * 		Reusable byte array.
+	 */
+	private byte[] getBytes(int length)
+	{	if(bytes.length<length)
+			bytes = new byte[Math.max(length, 2*bytes.length)];
+		return bytes;
+	}
+}
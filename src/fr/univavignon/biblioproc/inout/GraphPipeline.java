@@ -0,0 +1,341 @@
+package fr.univavignon.biblioproc.inout;
+
+/*
+ * Biblio Process
+ * Copyright 2011-19 Vincent Labatut 
+ * 
+ * This file is part of Biblio Process.
+ * 
+ * Biblio Process is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 2 of the License, or
+ * (at your option) any later version.
+ * 
+ * Biblio Process is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with Biblio Process.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import fr.univavignon.biblioproc.data.biblio.Corpus;
+import fr.univavignon.biblioproc.data.biblio.GraphType;
+import fr.univavignon.biblioproc.data.graph.Graph;
+import fr.univavignon.biblioproc.data.graph.GraphExporter;
+import fr.univavignon.biblioproc.tools.file.FileNames;
+
+import fr.univavignon.tools.log.HierarchicalLogger;
+import fr.univavignon.tools.log.HierarchicalLoggerManager;
+
+/**
+ * Class dedicated to the extraction and concurrent recording of the
+ * networks of a corpus. All the requested graphs are first extracted 
+ * during a single pass over the corpus (see {@link Corpus#buildGraphs(Set)}).
+ * Each graph is then recorded by a separate task, so that the serialization
+ * of the graphs is done in parallel. The tasks are executed by a pool 
+ * containing a configurable number of threads, which log their messages 
+ * through the logger of the calling thread.
+ * <br/>
+ * Each graph is recorded by a single task in its own file, so the produced
+ * files do not depend on the number of threads or on the order in which the
+ * tasks are executed.
+ * <br/>
+ * The pipeline can also convert the graphs recorded during a previous run
+ * to other formats (see {@link #convert(Set, String, List, boolean)}), without
+ * processing the corpus again.
+ *  
+ * @author Vincent Labatut
+ */
+public class GraphPipeline
+{	
+	/**
+	 * Creates a new pipeline for the specified corpus.
+	 * 
+	 * @param corpus
+	 * 		Collection of articles and authors.
+	 * @param threadNumber
+	 * 		Number of threads used to record the graphs.
+	 */
+	public GraphPipeline(Corpus corpus, int threadNumber)
+	{	this.corpus = corpus;
+		this.threadNumber = threadNumber;
+	}
+	
+	/**
+	 * Creates a new pipeline without corpus, which can only
+	 * convert previously recorded graphs.
+	 * 
+	 * @param threadNumber
+	 * 		Number of threads used to convert the graphs.
+	 */
+	public GraphPipeline(int threadNumber)
+	{	this(null, threadNumber);
+	}
+	
+	/////////////////////////////////////////////////////////////////
+	// LOGGER		/////////////////////////////////////////////////
+	/////////////////////////////////////////////////////////////////
+	/** Common object used for logging */
+	private HierarchicalLogger logger = HierarchicalLoggerManager.getHierarchicalLogger();
+	
+	/////////////////////////////////////////////////////////////////
+	// DATA			/////////////////////////////////////////////////
+	/////////////////////////////////////////////////////////////////
+	/** Collection of articles */
+	private Corpus corpus;
+	/** Number of threads used to record the graphs */
+	private int threadNumber;
+	
+	/////////////////////////////////////////////////////////////////
+	// PROCESSING	/////////////////////////////////////////////////
+	/////////////////////////////////////////////////////////////////
+	/**
+	 * Extracts the graphs of the specified types, and records them
+	 * as Graphml files in the specified folder. The method returns 
+	 * once all the graphs have been recorded, and logs the time
+	 * spent recording each one of them.
+	 * 
+	 * @param types
+	 * 		Types of the graphs to process.
+	 * @param folder
+	 * 		Folder in which to record the graphs.
+	 * @return
+	 * 		Map containing the recording duration (in ms) of each graph.
+	 * 
+	 * @throws IOException
+	 * 		Problem while recording a graph.
+	 */
+	public Map<GraphType,Long> process(Set<GraphType> types, String folder) throws IOException
+	{	if(corpus==null)
+			throw new IllegalArgumentException("No corpus to extract the graphs from");
+		logger.log("Extracting "+types.size()+" graph(s) in a single pass, then recording them using "+threadNumber+" thread(s)");
+		logger.increaseOffset();
+		long start = System.currentTimeMillis();
+		
+		// extract all the graphs at once
+		Map<GraphType,Graph> graphs = corpus.buildGraphs(types);
+		long extraction = System.currentTimeMillis() - start;
+		logger.log("Graphs extracted in "+extraction+" ms");
+		
+		// submit one recording task per graph
+		ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(threadNumber, graphs.size())));
+		Thread owner = Thread.currentThread();
+		Map<GraphType,Future<Long>> futures = new EnumMap<GraphType,Future<Long>>(GraphType.class);
+		for(Entry<GraphType,Graph> entry: graphs.entrySet())
+		{	GraphType type = entry.getKey();
+			File file = new File(folder + File.separator + type.getFileName() + FileNames.EX_GRAPHML);
+			Callable<Long> task = buildTask(type, entry.getValue(), file, owner);
+			Future<Long> future = executor.submit(task);
+			futures.put(type, future);
+		}
+		executor.shutdown();
+		
+		// wait for the tasks, in a fixed order
+		Map<GraphType,Long> result = waitForTasks(executor, futures, "Recording durations:");
+		
+		long duration = System.currentTimeMillis() - start;
+		logger.log("All graphs processed in "+duration+" ms");
+		logger.decreaseOffset();
+		return result;
+	}
+	
+	/**
+	 * Waits for the specified tasks to complete, in the order of the
+	 * graph types, and logs their durations. If a task fails, the 
+	 * remaining ones are cancelled and its exception is rethrown.
+	 * 
+	 * @param executor
+	 * 		Executor running the tasks.
+	 * @param futures
+	 * 		Pending results of the tasks.
+	 * @param title
+	 * 		First line of the logged durations.
+	 * @return
+	 * 		Map containing the duration (in ms) of each task.
+	 * 
+	 * @throws IOException
+	 * 		Problem while processing a graph.
+	 */
+	private Map<GraphType,Long> waitForTasks(ExecutorService executor, Map<GraphType,Future<Long>> futures, String title) throws IOException
+	{	Map<GraphType,Long> result = new EnumMap<GraphType,Long>(GraphType.class);
+		List<String> msg = new ArrayList<String>();
+		msg.add(title);
+		try
+		{	for(Entry<GraphType,Future<Long>> entry: futures.entrySet())
+			{	GraphType type = entry.getKey();
+				long duration = entry.getValue().get();
+				result.put(type, duration);
+				msg.add(type + ": " + duration + " ms");
+			}
+		}
+		catch(InterruptedException e)
+		{	executor.shutdownNow();
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while waiting for the graphs", e);
+		}
+		catch(ExecutionException e)
+		{	executor.shutdownNow();
+			Throwable cause = e.getCause();
+			if(cause instanceof IOException)
+				throw (IOException)cause;
+			else if(cause instanceof RuntimeException)
+				throw (RuntimeException)cause;
+			else
+				throw new IOException(cause);
+		}
+		logger.log(msg);
+		return result;
+	}
+	
+	/**
+	 * Builds the task in charge of recording the specified
+	 * graph. The task returns the recording duration (in ms).
+	 * 
+	 * @param type
+	 * 		Type of the graph.
+	 * @param graph
+	 * 		Graph to record.
+	 * @param file
+	 * 		File in which to record the graph.
+	 * @param owner
+	 * 		Thread whose logger is used by the task.
+	 * @return
+	 * 		The task.
+	 */
+	private Callable<Long> buildTask(final GraphType type, final Graph graph, final File file, final Thread owner)
+	{	Callable<Long> result = new Callable<Long>()
+		{	@Override
+			public Long call() throws IOException
+			{	logger.shareLogger(owner);
+				logger.log("Recording graph "+type+" in "+file);
+				long start = System.currentTimeMillis();
+				graph.writeToXml(file);
+				long result = System.currentTimeMillis() - start;
+				logger.log("Graph "+type+" done ("+graph.getNodeSize()+" nodes, "+graph.getLinkSize()+" links)");
+				return result;
+			}
+		};
+		return result;
+	}
+	
+	/////////////////////////////////////////////////////////////////
+	// CONVERSION	/////////////////////////////////////////////////
+	/////////////////////////////////////////////////////////////////
+	/**
+	 * Converts the graphs of the specified types, previously recorded as
+	 * Graphml files in the specified folder, using the specified exporters. 
+	 * The corpus is not needed. Each Graphml file is parsed only once: the 
+	 * graph is then cached in the binary format, next to the Graphml file, 
+	 * and the binary file is used instead as long as it is more recent 
+	 * than the Graphml file. Graphs whose Graphml file is missing are skipped.
+	 * 
+	 * @param types
+	 * 		Types of the graphs to process.
+	 * @param folder
+	 * 		Folder containing the graphs, and in which to record the converted files.
+	 * @param exporters
+	 * 		Objects handling the target formats.
+	 * @param compressed
+	 * 		Whether the produced files should be gzipped.
+	 * @return
+	 * 		Map containing the conversion duration (in ms) of each graph.
+	 * 
+	 * @throws IOException
+	 * 		Problem while reading or recording a graph.
+	 */
+	public Map<GraphType,Long> convert(Set<GraphType> types, String folder, List<GraphExporter> exporters, boolean compressed) throws IOException
+	{	logger.log("Converting "+types.size()+" graph(s) to "+exporters.size()+" format(s) using "+threadNumber+" thread(s)");
+		logger.increaseOffset();
+		long start = System.currentTimeMillis();
+		
+		// submit one conversion task per graph
+		ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(threadNumber, types.size())));
+		Thread owner = Thread.currentThread();
+		Map<GraphType,Future<Long>> futures = new EnumMap<GraphType,Future<Long>>(GraphType.class);
+		for(GraphType type: types)
+		{	String basePath = folder + File.separator + type.getFileName();
+			File xmlFile = new File(basePath + FileNames.EX_GRAPHML);
+			if(!xmlFile.exists())
+				logger.log("No Graphml file for graph "+type+" ("+xmlFile+"): skipping it");
+			else
+			{	Callable<Long> task = buildConversionTask(type, basePath, exporters, compressed, owner);
+				Future<Long> future = executor.submit(task);
+				futures.put(type, future);
+			}
+		}
+		executor.shutdown();
+		
+		// wait for the tasks, in a fixed order
+		Map<GraphType,Long> result = waitForTasks(executor, futures, "Conversion durations:");
+		
+		long duration = System.currentTimeMillis() - start;
+		logger.log("All graphs converted in "+duration+" ms");
+		logger.decreaseOffset();
+		return result;
+	}
+	
+	/**
+	 * Builds the task in charge of converting the specified graph. 
+	 * The task returns the conversion duration (in ms).
+	 * 
+	 * @param type
+	 * 		Type of the graph.
+	 * @param basePath
+	 * 		Path of the graph files, without extension.
+	 * @param exporters
+	 * 		Objects handling the target formats.
+	 * @param compressed
+	 * 		Whether the produced files should be gzipped.
+	 * @param owner
+	 * 		Thread whose logger is used by the task.
+	 * @return
+	 * 		The task.
+	 */
+	private Callable<Long> buildConversionTask(final GraphType type, final String basePath, final List<GraphExporter> exporters, final boolean compressed, final Thread owner)
+	{	Callable<Long> result = new Callable<Long>()
+		{	@Override
+			public Long call() throws IOException
+			{	logger.shareLogger(owner);
+				long start = System.currentTimeMillis();
+				
+				// load the graph, preferably from its binary version
+				File xmlFile = new File(basePath + FileNames.EX_GRAPHML);
+				File binFile = new File(basePath + FileNames.EX_BIN);
+				Graph graph;
+				if(binFile.exists() && binFile.lastModified()>=xmlFile.lastModified())
+				{	logger.log("Loading graph "+type+" from "+binFile);
+					graph = Graph.readFromBinary(binFile);
+				}
+				else
+				{	logger.log("Loading graph "+type+" from "+xmlFile+" (and caching it in "+binFile+")");
+					graph = Graph.readFromGraphml(xmlFile);
+					graph.writeToBinary(binFile);
+				}
+				
+				// record it in each format
+				for(GraphExporter exporter: exporters)
+					graph.export(exporter, basePath, compressed);
+				long result = System.currentTimeMillis() - start;
+				logger.log("Graph "+type+" converted ("+graph.getNodeSize()+" nodes, "+graph.getLinkSize()+" links)");
+				return result;
+			}
+		};
+		return result;
+	}
+}
@@ -23,21 +23,39 @@ import java.io.File;
  */
 
 import java.io.FileNotFoundException;
+import java.io.IOException;
 import java.io.PrintWriter;
 import java.io.UnsupportedEncodingException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Scanner;
 import java.util.Set;
+import java.util.TreeMap;
 import java.util.TreeSet;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.RecursiveTask;
 
 import fr.univavignon.biblioproc.data.biblio.Article;
+import fr.univavignon.biblioproc.data.biblio.ArticleField;
 import fr.univavignon.biblioproc.data.biblio.Author;
 import fr.univavignon.biblioproc.data.biblio.Corpus;
 import fr.univavignon.biblioproc.data.biblio.SourceType;
@@ -79,6 +97,8 @@ public class IsiFileHandler
 	/////////////////////////////////////////////////////////////////
 	/** Collection of articles */
 	public Corpus corpus = new Corpus();
+	/** Articles already retrieved for the short references processed so far, indexed by reference */
+	private final Map<String,Article> resolvedReferences = new HashMap<String,Article>();
 	/** String used to create new BibTex keys */
 	private final static String NEW_KEY = "NewKey";
 	/** List of series of proceedings ignored during certain processing steps */
@@ -91,15 +111,34 @@ public class IsiFileHandler
 	/////////////////////////////////////////////////////////////////
 	// SHORT NAMES	/////////////////////////////////////////////////
 	/////////////////////////////////////////////////////////////////
-	/** Stores the long name of a journal/conference based on its short name */
-	public final static Map<String,List<String>> SHORT_NAMES = new HashMap<String,List<String>>();
+	/** Stores the long name of a journal/conference based on its short name (concurrent, since the ISI records can be processed in parallel) */
+	public final static Map<String,List<String>> SHORT_NAMES = new ConcurrentHashMap<String,List<String>>();
+	
+	/** Short names learned while loading the current ISI file, not recorded yet */
+	private final List<String> learnedShortNames = new ArrayList<String>();
+	/** Size (in bytes) above which the journal of learned names is merged into the short names file */
+	private final static long JOURNAL_MAX_SIZE = 16*1024;
 	
 	/**
-	 * Loads the map of journal/conference names.
+	 * Loads the map of journal/conference names, completed with
+	 * the names learned since the last update of the file.
 	 */
 	static
+	{	loadShortNames(FileNames.FI_ISI_NAMES);
+		if(new File(FileNames.FI_ISI_NAMES_JOURNAL).exists())
+			loadShortNames(FileNames.FI_ISI_NAMES_JOURNAL);
+	}
+	
+	/**
+	 * Adds the journal/conference names contained in the 
+	 * specified file to the map of short names.
+	 * 
+	 * @param path
+	 * 		File containing the names.
+	 */
+	private static void loadShortNames(String path)
 	{	try
-		{	Scanner sc = FileTools.openTextFileRead(FileNames.FI_ISI_NAMES, "UTF-8");
+		{	Scanner sc = FileTools.openTextFileRead(path, "UTF-8");
 			while(sc.hasNextLine())
 			{	String line = sc.nextLine();
 				String tmp[] = line.split("\t");
@@ -121,23 +160,64 @@ public class IsiFileHandler
 		}
 	}
 	
+	/**
+	 * Returns the line representing the specified short
+	 * name and its long names, in the short names files.
+	 * 
+	 * @param shortName
+	 * 		Short name of the journal/conference.
+	 * @return
+	 * 		The corresponding line.
+	 */
+	private static String formatShortName(String shortName)
+	{	StringBuilder result = new StringBuilder(shortName);
+		List<String> longNames = SHORT_NAMES.get(shortName);
+		for(String longName: longNames)
+			result.append("\t").append(longName);
+		return result.toString();
+	}
+	
+	/**
+	 * Appends the short names learned while loading the current 
+	 * ISI file to the journal of learned names. The journal is 
+	 * loaded together with the short names file, until the next
+	 * call to {@link #compactShortNames()}, which happens as soon 
+	 * as the journal gets larger than {@value #JOURNAL_MAX_SIZE} bytes.
+	 */
+	private void recordLearnedShortNames()
+	{	if(!learnedShortNames.isEmpty())
+		{	logger.log("Recording "+learnedShortNames.size()+" new ISI short name(s)");
+			try 
+			{	PrintWriter pw = FileTools.openTextFileAppend(FileNames.FI_ISI_NAMES_JOURNAL, "UTF-8");
+				for(String shortName: learnedShortNames)
+					pw.println(formatShortName(shortName));
+				pw.close();
+				learnedShortNames.clear();
+			} 
+			catch (UnsupportedEncodingException e) 
+			{	e.printStackTrace();
+			} 
+			catch (FileNotFoundException e) 
+			{	e.printStackTrace();
+			}
+		}
+	}
+	
 	/**
 	 * Update the file containing the conversion from short 
-	 * conference/journal names to long ones.
+	 * conference/journal names to long ones, so that it
+	 * includes all the learned names, and empties the journal.
 	 */
-	private void recordShortNames()
-	{	logger.log("Updating ISI shortnales file");
+	public void compactShortNames()
+	{	logger.log("Updating ISI short names file");
+		recordLearnedShortNames();
 		try 
 		{	PrintWriter pw = FileTools.openTextFileWrite(FileNames.FI_ISI_NAMES, "UTF-8");
 			Set<String> shortNames = new TreeSet<String>(SHORT_NAMES.keySet());
 			for(String shortName: shortNames)
-			{	String line = shortName;
-				List<String> longNames = SHORT_NAMES.get(shortName);
-				for(String longName: longNames)
-					line = line + "\t" + longName;
-				pw.println(line);
-			}
+				pw.println(formatShortName(shortName));
 			pw.close();
+			FileTools.delete(new File(FileNames.FI_ISI_NAMES_JOURNAL));
 		} 
 		catch (UnsupportedEncodingException e) 
 		{	e.printStackTrace();
@@ -232,6 +312,8 @@ public class IsiFileHandler
 	private final static String PFX_PAGE = "AR";
 	/** CIW prefix for starting page */
 	private final static String PFX_PAGE_START = "BP";
+	/** CIW prefix for ending page */
+	private final static String PFX_PAGE_END = "EP";
 	/** CIW prefix for reference list */
 	private final static String PFX_REFERENCES = "CR";
 	/** CIW prefix for the article series */
@@ -255,75 +337,134 @@ public class IsiFileHandler
 	/**
 	 * Loads the specified ISI file, and complete the current maps of 
 	 * articles and authors.
+	 * <br/>
+	 * The references which could not be found in the corpus are listed
+	 * in {@code missing_refs.txt}, grouped by citing article, the articles 
+	 * being sorted by bibtex key. Older versions listed them in the order 
+	 * of a hash map of articles, which depended on the hash function and 
+	 * thus could not be kept when the references became resolved concurrently.
 	 * 
 	 * @param path
-	 * 		Jabref file.
+	 * 		ISI file.
 	 * 
-	 * @throws FileNotFoundException
-	 * 		Problem while accessing the Jabref file.
-	 * @throws UnsupportedEncodingException 
-	 * 		Problem while accessing the Jabref file.
+	 * @throws IOException
+	 * 		Problem while accessing the ISI file.
 	 */
-	public void loadIsiFile(String path) throws FileNotFoundException, UnsupportedEncodingException
+	public void loadIsiFile(String path) throws IOException
 	{	logger.log("Start loading ISI file " + path);
 		logger.increaseOffset();
 		
 		// open the ISI file
 		logger.log("Open the file " + path);
-		Scanner scanner = FileTools.openTextFileRead(path,null);
+		IsiRecordReader reader = new IsiRecordReader(path);
 		
-		// parse the ISI file
-		Map<Article,List<String>> tempRef = new HashMap<Article, List<String>>();
-		logger.log("Processing each entry in the file");
-		logger.increaseOffset();
-		{	Article article = null;
-			int count = 0;
-			do
-			{	count++;
-				article = processIsiArticle(scanner, tempRef);
-				logger.log("Processing " + count + " :"+article);
-			}
-			while(scanner.hasNext());
-			scanner.close();
-		}
-		logger.log("Done reading the file");
-		logger.decreaseOffset();
+		// possibly get the resolutions of the previous run
+		if(incremental)
+			loadPreviousResolutions();
+		recordProblems.clear();
+		referenceProblems.clear();
 		
-		// resolve the (short) references
-		PrintWriter pw = FileTools.openTextFileWrite(FileNames.FO_OUTPUT+File.separator+"missing_refs.txt", "UTF-8");
-		logger.log("Resolve the short references");
-		logger.increaseOffset();
-		{	int i = 1;
-			for(Entry<Article,List<String>> entry: tempRef.entrySet())
-			{	Article article = entry.getKey();
-				logger.log("Processing article ("+i+"/"+tempRef.size()+") "+article);
-				logger.increaseOffset();
-				{	pw.println("\n"+i+". "+article.bibtexKey);
-					int j = 1;
-					List<String> refs = entry.getValue();
-					for(String ref: refs)
-					{	logger.log("Processing reference ("+j+"/"+refs.size()+") "+ref);
-						logger.increaseOffset();
-						{	Article r = retrieveArticle(ref);
-							if(r!=null)
-							{	if(article.citedArticles.contains(r))
-									throw new IllegalArgumentException("Trying to insert twice the same reference for this article");
-								article.citedArticles.add(r);
-								r.citingArticles.add(article);
-								if(r.bibtexKey.startsWith(NEW_KEY))
-									pw.println(ref);
+		try
+		{	// parse the ISI file
+			Map<Article,List<String>> tempRef = new LinkedHashMap<Article, List<String>>();
+			logger.log("Processing each entry in the file");
+			logger.increaseOffset();
+			try
+			{	if(threadNumber>1)
+					processIsiRecordsConcurrently(reader, tempRef);
+				else
+				{	int count = 0;
+					Map<String,List<String>> record = reader.nextRecord();
+					while(record!=null)
+					{	count++;
+						processIsiArticle(record, count, tempRef);
+						record = reader.nextRecord();
+					}
+				}
+			}
+			finally
+			{	reader.close();
+				recordLearnedShortNames();
+				// merge the journal into the short names file when it gets too large
+				if(new File(FileNames.FI_ISI_NAMES_JOURNAL).length()>JOURNAL_MAX_SIZE)
+					compactShortNames();
+			}
+			logger.log("Done reading the file");
+			logger.decreaseOffset();
+			
+			// resolve the (short) references
+			Map<String,List<String>> missingRefs = new TreeMap<String,List<String>>();	// sorted by bibtex key, so that the file does not depend on the processing order (see above)
+			logger.log("Resolve the short references");
+			logger.increaseOffset();
+			{	List<Entry<Article,List<String>>> entries = new ArrayList<Entry<Article,List<String>>>(tempRef.entrySet());
+				List<List<ResolvedReference>> resolutions = null;
+				if(threadNumber>1 && !entries.isEmpty())
+				{	logger.log("Resolving the references concurrently");
+					List<List<String>> references = new ArrayList<List<String>>();
+					for(Entry<Article,List<String>> entry: entries)
+						references.add(entry.getValue());
+					resolutions = resolveReferencesConcurrently(references);
+				}
+				int i = 1;
+				for(Entry<Article,List<String>> entry: entries)
+				{	Article article = entry.getKey();
+					logger.log("Processing article ("+i+"/"+tempRef.size()+") "+article);
+					logger.increaseOffset();
+					{	List<String> missing = new ArrayList<String>();
+						missingRefs.put(article.bibtexKey, missing);
+						int j = 1;
+						List<String> refs = entry.getValue();
+						for(String ref: refs)
+						{	logger.log("Processing reference ("+j+"/"+refs.size()+") "+ref);
+							logger.increaseOffset();
+							{	ResolvedReference resolved = null;
+								if(resolutions!=null)
+									resolved = resolutions.get(i-1).get(j-1);
+								Article r = retrieveArticle(ref, resolved);
+								if(r!=null && corpus.containsCitation(article, r))
+								{	String message = "Trying to insert twice the same reference for this article";
+									if(!collectProblems)
+										throw new IllegalArgumentException(message);
+									addReferenceProblem(ProblemType.DUPLICATE_REFERENCE, ref, message, Arrays.asList(r));
+									r = null;
+								}
+								if(collectProblems && (r==null || r.bibtexKey.startsWith(NEW_KEY)))
+								{	ResolutionProblem problem = referenceProblems.get(ref);
+									if(problem!=null)
+										problem.citing.add(article.bibtexKey);
+								}
+								if(r!=null)
+								{	corpus.addCitation(article, r);
+									if(r.bibtexKey.startsWith(NEW_KEY))
+										missing.add(ref);
+								}
 							}
+							logger.decreaseOffset();
+							j++;
 						}
-						logger.decreaseOffset();
-						j++;
 					}
+					logger.decreaseOffset();
+					i++;
 				}
-				logger.decreaseOffset();
+			}
+			logger.decreaseOffset();
+			
+			// record the references of each article which could not be found in the corpus
+			PrintWriter pw = FileTools.openTextFileWrite(FileNames.FO_OUTPUT+File.separator+"missing_refs.txt", "UTF-8");
+			int i = 1;
+			for(Entry<String,List<String>> entry: missingRefs.entrySet())
+			{	pw.println("\n"+i+". "+entry.getKey());
+				for(String ref: entry.getValue())
+					pw.println(ref);
 				i++;
 			}
+			pw.close();
+		}
+		finally
+		{	// record the resolutions for the next run
+			if(incremental)
+				recordResolutions();
 		}
-		logger.decreaseOffset();
-		pw.close();
 		
 		// display the DOIs of missing articles
 		logger.log("List of missing DOIs:");
@@ -338,7 +479,7 @@ public class IsiFileHandler
 					}
 				}
 			}
-			if(count>0)
+			if(count>0 && !collectProblems)
 				throw new IllegalArgumentException("Some articles whose DOI is known are missing from the corpus");
 		}
 		logger.decreaseOffset();
@@ -354,47 +495,150 @@ public class IsiFileHandler
 					logger.log(count + ". " + article);
 				}
 			}
-			if(count>0)
+			if(count>0 && !collectProblems)
 				throw new IllegalArgumentException("Some short references could not be matched to existing full references");
 		}
 		logger.decreaseOffset();
 		
+		// report the records and references which could not be resolved
+		if(collectProblems)
+		{	int count = recordProblemReport();
+			if(count>0)
+				throw new IllegalArgumentException(count+" ISI record(s) or reference(s) could not be resolved (see "+FileNames.FI_UNRESOLVED_REPORT+")");
+		}
+		
 		// complete with the manually annotated references
 		completeReferences();
 		
+		// the values are now shared by the articles
+		Article.clearValuePool();
 		logger.decreaseOffset();
 	}
 	
 	/**
-	 * Parses one article from the ISI file, matches it with
+	 * Processes one record of the ISI file, matches it with
 	 * one of the previously loaded Jabref articles, and merge
-	 * them. It becomes a <i>core</i> article.
+	 * them. It becomes a <i>core</i> article. In incremental mode,
+	 * the match of the previous run is reused if possible.
 	 * 
-	 * @param scanner
-	 * 		Scanner giving access to the text.
+	 * @param record
+	 * 		Map associating each tag of the ISI record to its values.
+	 * @param count
+	 * 		Number of the record in the file.
 	 * @param references
 	 * 		Temporary map containing the references associated to each retrieved article.
 	 * @return
-	 * 		The corresponding article instance.
+	 * 		The corresponding article instance, or {@code null} if
+	 * 		the record could not be resolved (only when collecting
+	 * 		the problems).
 	 */
-	private Article processIsiArticle(Scanner scanner, Map<Article,List<String>> references)
-	{	Article result = new Article();
-		
-		if(!scanner.hasNextLine())
-			throw new IllegalArgumentException("Empty scanner when reading next ISI article");
-		String line = scanner.nextLine();
+	private Article processIsiArticle(Map<String,List<String>> record, int count, Map<Article,List<String>> references)
+	{	ParsedRecord parsed = readIsiRecord(record);
+		Article result = registerIsiRecord(parsed, count, references);
+		return result;
+	}
+	
+	/**
+	 * Parses the specified record and matches it with the corpus 
+	 * (or reuses the match of the previous run). The corpus is not
+	 * modified, so this method can be called concurrently. The errors
+	 * are not thrown, but recorded in the result.
+	 * 
+	 * @param record
+	 * 		Map associating each tag of the ISI record to its values.
+	 * @return
+	 * 		The processed record.
+	 */
+	private ParsedRecord readIsiRecord(Map<String,List<String>> record)
+	{	ParsedRecord result = null;
+		int offset = logger.getOffset();
+		try
+		{	String hash = null;
+			if(incremental)
+			{	hash = IsiRecordReader.hashRecord(record);
+				result = reuseIsiRecord(record, hash);
+			}
+			if(result==null)
+			{	result = parseIsiRecord(record);
+				result.hash = hash;
+				matchIsiArticle(result);
+			}
+		}
+		catch(RuntimeException e)
+		{	// the error may have interrupted the processing before the offset was restored
+			logger.setOffset(offset);
+			if(result==null)
+				result = new ParsedRecord();
+			result.error = e;
+		}
+		return result;
+	}
+	
+	/**
+	 * Checks the short name of the specified processed record,
+	 * and registers the matched article as a <i>core</i> article.
+	 * The possible error which occurred while processing the record
+	 * is thrown, or recorded if the problems are collected.
+	 * 
+	 * @param parsed
+	 * 		Processed record.
+	 * @param count
+	 * 		Number of the record in the file.
+	 * @param references
+	 * 		Temporary map containing the references associated to each retrieved article.
+	 * @return
+	 * 		The corresponding article instance, or {@code null} if
+	 * 		the record could not be resolved (only when collecting
+	 * 		the problems).
+	 */
+	private Article registerIsiRecord(ParsedRecord parsed, int count, Map<Article,List<String>> references)
+	{	Article result = null;
+		try
+		{	if(parsed.article==null && !parsed.reused)
+				throw parsed.error;
+			if(parsed.shortSrc!=null)
+				checkShortName(parsed.shortSrc, parsed.normSourceName);
+			if(parsed.error!=null)
+				throw parsed.error;
+			result = parsed.match;
+			result.core = true;
+			references.put(result, parsed.citedArticles);
+			if(incremental)
+				recordIsiResolution(parsed);
+		}
+		catch(RuntimeException e)
+		{	if(!collectProblems)
+				throw e;
+			addRecordProblem(parsed, count, e);
+		}
+		logger.log("Processing " + count + " :"+result);
+		return result;
+	}
+	
+	/**
+	 * Parses one record of the ISI file, and builds the corresponding
+	 * article. The fixes from the external file are applied to the article.
+	 * This method does not modify the corpus nor the short names, so it
+	 * can be called concurrently.
+	 * 
+	 * @param record
+	 * 		Map associating each tag of the ISI record to its values.
+	 * @return
+	 * 		The parsed record.
+	 */
+	private ParsedRecord parseIsiRecord(Map<String,List<String>> record)
+	{	ParsedRecord result = new ParsedRecord();
+		Article article = new Article();
+		result.article = article;
 		
 		// get authors
 		logger.log("Getting the authors");
 		logger.increaseOffset();
-		while(!line.startsWith(PFX_AUTHOR_SHORT+" "))
-		{	line = scanner.nextLine();
-			if(line.startsWith(PFX_SEPARATOR))
-				throw new IllegalArgumentException("Could not find the article authors (current state: "+result+")");
-		}
-		do
-		{	String authorStr = line.substring(3).trim();
-			logger.log("Raw author name: "+authorStr);
+		List<String> authorStrs = record.get(PFX_AUTHOR_SHORT);
+		if(authorStrs==null)
+			throw new IllegalArgumentException("Could not find the article authors (current state: "+article+")");
+		for(String authorStr: authorStrs)
+		{	logger.log("Raw author name: "+authorStr);
 			String tmp[] = authorStr.split(",");
 			String lastname = tmp[0].trim();
 			String firstnameInitials = tmp[1].trim();
@@ -404,50 +648,28 @@ public class IsiFileHandler
 				firstnameInitials = firstnameInitials + ".";											// adding the final dot if not already there
 			Author author = new Author(lastname, firstnameInitials);
 			logger.log("Processed author name: "+author);
-			result.addAuthor(author);
-			line = scanner.nextLine();
+			article.addAuthor(author);
 		}
-		while(line.startsWith(" "));
 		logger.decreaseOffset();
 		
 		// get title
-		while(!line.startsWith(PFX_TITLE+" "))
-		{	line = scanner.nextLine();
-			if(line.startsWith(PFX_SEPARATOR))
-				throw new IllegalArgumentException("Could not find the article title (current state: "+result+")");
-		}
-		String title = "";
-		do
-		{	String temp = line.substring(3).trim();
-			title = title + temp + " ";
-			line = scanner.nextLine();
-		}
-		while(line.startsWith(" "));
-		title = title.trim();
+		String title = IsiRecordReader.getText(record, PFX_TITLE);
+		if(title==null)
+			throw new IllegalArgumentException("Could not find the article title (current state: "+article+")");
 		if(title.toUpperCase(Locale.ENGLISH).equals(title))
 		{	String initial = title.substring(0,1).toUpperCase();
 			String rest = title.substring(1).toLowerCase(Locale.ENGLISH);
 			title = initial + rest;
 		}
 		logger.log("Title: "+title);
-		result.setTitle(title);
+		article.setTitle(title);
 		
 		// get source
 		logger.log("Getting the source name");
 		logger.increaseOffset();
-		while(!line.startsWith(PFX_JOURNAL_LONG+" "))
-		{	line = scanner.nextLine();
-			if(line.startsWith(PFX_SEPARATOR))
-				throw new IllegalArgumentException("Could not find the article source (current state: "+result+")");
-		}
-		String sourceName = "";
-		do
-		{	String temp = line.substring(3).trim();
-			sourceName = sourceName + temp + " ";
-			line = scanner.nextLine();
-		}
-		while(line.startsWith(" "));
-		sourceName = sourceName.trim();
+		String sourceName = IsiRecordReader.getText(record, PFX_JOURNAL_LONG);
+		if(sourceName==null)
+			throw new IllegalArgumentException("Could not find the article source (current state: "+article+")");
 		sourceName = sourceName.replace("&","\\&");
 		logger.log("Raw source name: "+sourceName);
 		if(sourceName.toUpperCase(Locale.ENGLISH).equals(sourceName))
@@ -460,30 +682,14 @@ public class IsiFileHandler
 		logger.decreaseOffset();
 		
 		// get series
-		while(!line.startsWith(PFX_SERIES+" ")
-				&& !line.startsWith(PFX_TYPE+" "))
-			line = scanner.nextLine();
-		String series = null;
-		if(line.startsWith(PFX_SERIES+" "))
-		{	series = "";
-			do
-			{	String temp = line.substring(3).trim();
-				series = series + temp + " ";
-				line = scanner.nextLine();
-			}
-			while(line.startsWith(" "));
-			series = StringTools.normalize(series);
-		}
+		String series = StringTools.normalize(IsiRecordReader.getText(record, PFX_SERIES));
 		
 		// get type
 		logger.log("Determining source type");
 		logger.increaseOffset();
-		while(!line.startsWith(PFX_TYPE+" "))
-		{	line = scanner.nextLine();
-			if(line.startsWith(PFX_SEPARATOR))
-				throw new IllegalArgumentException("Could not find the article type (current state: "+result+")");
-		}
-		String typeStr = line.substring(3).trim();
+		String typeStr = IsiRecordReader.getFirst(record, PFX_TYPE);
+		if(typeStr==null)
+			throw new IllegalArgumentException("Could not find the article type (current state: "+article+")");
 		logger.log("Source type code: "+typeStr);
 		SourceType sourceType = null;
 		switch(typeStr)
@@ -496,19 +702,9 @@ public class IsiFileHandler
 			case "Article; Proceedings Paper":
 				logger.increaseOffset();
 				sourceType = SourceType.IN_PROCEEDINGS;
-				while(!line.startsWith(PFX_CONFERENCE+" "))
-				{	line = scanner.nextLine();
-					if(line.startsWith(PFX_SEPARATOR))
-						throw new IllegalArgumentException("Could not find the conference name (current state: "+result+")");
-				}
-				sourceName = "";
-				do
-				{	String temp = line.substring(3).trim();
-					sourceName = sourceName + temp + " ";
-					line = scanner.nextLine();
-				}
-				while(line.startsWith(" "));
-				sourceName = sourceName.trim();
+				sourceName = IsiRecordReader.getText(record, PFX_CONFERENCE);
+				if(sourceName==null)
+					throw new IllegalArgumentException("Could not find the conference name (current state: "+article+")");
 				logger.log("Raw conference name: "+sourceName);
 				sourceName = sourceName.replace("&","\\&");
 				// remove a possible ending string between parenthesis (typically for conferences)
@@ -540,47 +736,23 @@ public class IsiFileHandler
 				throw new IllegalArgumentException("Unknown ISI article type: "+typeStr);
 		}
 		logger.log("Source type: "+sourceType);
-		result.setSource(sourceType, sourceName);
+		article.setSource(sourceType, sourceName);
 		logger.decreaseOffset();
 		
 		// get abstract
-		while(!line.startsWith(PFX_ABSTRACT+" ")
-				&& !line.startsWith(PFX_REFERENCES+" "))
-		{	line = scanner.nextLine();
-			if(line.startsWith(PFX_SEPARATOR))
-				throw new IllegalArgumentException("Could not find the article abstract (current state: "+result+")");
-		}
-		if(line.startsWith(PFX_ABSTRACT+" "))
-		{	String abstrct = "";
-			do
-			{	String temp = line.substring(3).trim();
-				abstrct = abstrct + temp + " ";
-				line = scanner.nextLine();
-			}
-			while(line.startsWith(" "));
-			result.abstrct = abstrct.trim();
-		}
+		String abstrct = IsiRecordReader.getText(record, PFX_ABSTRACT);
+		if(abstrct!=null)
+			article.setField(ArticleField.ABSTRACT, abstrct);
 		
 		// get references
-		while(!line.startsWith(PFX_REFERENCES+" "))
-		{	line = scanner.nextLine();
-			if(line.startsWith(PFX_SEPARATOR))
-				throw new IllegalArgumentException("Could not find the article references (current state: "+result+")");
-		}
-		List<String> citedArticles = new ArrayList<String>(); 
-		do
-		{	String articleCitation = line.substring(3).trim();
-			citedArticles.add(articleCitation);
-			line = scanner.nextLine();
-		}
-		while(line.startsWith(" "));
+		result.citedArticles = record.get(PFX_REFERENCES);
+		if(result.citedArticles==null)
+			throw new IllegalArgumentException("Could not find the article references (current state: "+article+")");
 		
 		// possibly get the short source name
-		while(!line.startsWith(PFX_JOURNAL_SHORT+" ") 
-				&& !line.startsWith(PFX_YEAR))
-			line = scanner.nextLine();
-		if(line.startsWith(PFX_JOURNAL_SHORT))
-		{	String shortSrc = StringTools.normalize(line.substring(3));
+		String shortSrc = IsiRecordReader.getFirst(record, PFX_JOURNAL_SHORT);
+		if(shortSrc!=null)
+		{	shortSrc = StringTools.normalize(shortSrc);
 			logger.log("Short source name: "+shortSrc);
 			if(!IGNORED_SERIES.contains(series))
 			{	String normSourceName = StringTools.normalize(sourceName).replace(".","");
@@ -589,89 +761,54 @@ public class IsiFileHandler
 				{	int pos = normSourceName.indexOf(" ");
 					normSourceName = normSourceName.substring(pos).trim();
 				}
-				List<String> existingLongSrcs = SHORT_NAMES.get(shortSrc);
-				if(existingLongSrcs!=null)
-				{	boolean found = false;
-					Iterator<String> it = existingLongSrcs.iterator();
-					while(it.hasNext() && !found)
-					{	String srcName = it.next();
-						srcName = StringTools.normalize(srcName).replace(".","");
-						found = srcName.equalsIgnoreCase(normSourceName);
-					}
-					if(!found)
-						throw new IllegalArgumentException("Found an unknown long name for source \""+shortSrc+"\" (\""+existingLongSrcs.get(0)+"\"): \""+normSourceName+"\"");
-				}
-				else
-				{	List<String> list = new ArrayList<String>();
-					list.add(normSourceName);
-					SHORT_NAMES.put(shortSrc, list);
-					recordShortNames();
-				}
+				result.shortSrc = shortSrc;
+				result.normSourceName = normSourceName;
 			}
 		}
 		
 		// get year
-		while(!line.startsWith(PFX_YEAR+" "))
-		{	line = scanner.nextLine();
-			if(line.startsWith(PFX_SEPARATOR))
-				throw new IllegalArgumentException("Could not find the article year (current state: "+result+")");
-		}
-		result.year = line.substring(3).trim();
-		logger.log("Year: "+result.year);
+		article.year = Article.internValue(IsiRecordReader.getFirst(record, PFX_YEAR));
+		if(article.year==null)
+			throw new IllegalArgumentException("Could not find the article year (current state: "+article+")");
+		logger.log("Year: "+article.year);
 		
 		// get volume
-		while(!line.startsWith(PFX_VOLUME+" ")
-				&& !line.startsWith(PFX_ISSUE+" ") 
-				&& !line.startsWith(PFX_PAGE_START+" ")  && !line.startsWith(PFX_PAGE+" ") 
-				&& !line.startsWith(PFX_DOI+" ") && !line.startsWith(PFX_SEPARATOR))
-			line = scanner.nextLine();
-		if(line.startsWith(PFX_VOLUME+" "))
-		{	result.volume = line.substring(3).trim();
-			logger.log("Volume: "+result.volume);
+		String volume = IsiRecordReader.getFirst(record, PFX_VOLUME);
+		if(volume!=null)
+		{	article.volume = volume;
+			logger.log("Volume: "+article.volume);
 		}
 		
 		// get issue
-		while(!line.startsWith(PFX_ISSUE+" ") 
-				&& !line.startsWith(PFX_PAGE_START+" ")  && !line.startsWith(PFX_PAGE+" ") 
-				&& !line.startsWith(PFX_DOI+" ") && !line.startsWith(PFX_SEPARATOR))
-			line = scanner.nextLine();
-		if(line.startsWith(PFX_ISSUE+" "))
-		{	result.issue = line.substring(3).trim();
-			logger.log("Volume: "+result.volume);
+		String issue = IsiRecordReader.getFirst(record, PFX_ISSUE);
+		if(issue!=null)
+		{	article.issue = issue;
+			logger.log("Issue: "+article.issue);
 		}
 		
 		// get pages
-		while(!line.startsWith(PFX_PAGE_START+" ")  && !line.startsWith(PFX_PAGE+" ") 
-				&& !line.startsWith(PFX_DOI+" ") && !line.startsWith(PFX_SEPARATOR))
-			line = scanner.nextLine();
-		if(line.startsWith(PFX_PAGE_START+" "))
-		{	String startPage = line.substring(3).trim();
-			line = scanner.nextLine();
-			String endPage = line.substring(3).trim();
-			result.page = startPage+"-"+endPage;
-			logger.log("Page: "+result.page);
-		}
-		else if(line.startsWith(PFX_PAGE+" "))
-		{	result.page = line.substring(3).trim();
-			logger.log("Page: "+result.page);
+		String startPage = IsiRecordReader.getFirst(record, PFX_PAGE_START);
+		String articleNumber = IsiRecordReader.getFirst(record, PFX_PAGE);
+		if(startPage!=null)
+		{	String endPage = IsiRecordReader.getFirst(record, PFX_PAGE_END);
+			if(endPage==null)
+				article.page = startPage;
+			else
+				article.page = startPage+"-"+endPage;
+			logger.log("Page: "+article.page);
+		}
+		else if(articleNumber!=null)
+		{	article.page = articleNumber;
+			logger.log("Page: "+article.page);
 		}
 		
 		// get doi
-		while(!line.startsWith(PFX_DOI+" ") && !line.startsWith(PFX_SEPARATOR))
-			line = scanner.nextLine();
-		if(line.startsWith(PFX_DOI+" "))
-		{	String doi = line.substring(3).trim();
-			doi = doi.replaceAll("//+", "/");
-			result.doi = doi;
-			logger.log("DOI: "+result.doi);
+		String doiStr = IsiRecordReader.getFirst(record, PFX_DOI);
+		if(doiStr!=null)
+		{	article.doi = doiStr.replaceAll("//+", "/");
+			logger.log("DOI: "+article.doi);
 		}
-		
-		// finish reference
-		logger.log("Article read: "+result);
-		while(!line.startsWith(PFX_SEPARATOR))
-			line = scanner.nextLine();
-		for(int i=0;i<2;i++)
-			line = scanner.nextLine();
+		logger.log("Article read: "+article);
 		
 		String normStr = StringTools.normalize(title).replace(".", "");
 		List<String> fixes = ERROR_FIXES.get(normStr);
@@ -682,7 +819,7 @@ public class IsiFileHandler
 			{	if(str.startsWith(PFX_TITLE+"="))
 				{	title = str.substring(PFX_TITLE.length()+1);
 					logger.log("Title: "+title);
-					result.setTitle(title);
+					article.setTitle(title);
 				}
 //				else if(str.startsWith(PFX_AUTHOR_SHORT+"="))
 //				{	String authorStr = str.substring(PFX_AUTHOR_SHORT.length()+1);
@@ -691,97 +828,270 @@ public class IsiFileHandler
 				else if(str.startsWith(PFX_DOI+"="))
 				{	String doi = str.substring(PFX_DOI.length()+1);
 					doi = doi.replaceAll("//+", "/");
-					result.doi = doi;
-					logger.log("DOI: "+result.doi);
+					article.doi = doi;
+					logger.log("DOI: "+article.doi);
 				}
 				else if(str.startsWith(PFX_ISSUE+"="))
-				{	result.issue = str.substring(PFX_ISSUE.length()+1);
-					logger.log("Issue: "+result.issue);
+				{	article.issue = str.substring(PFX_ISSUE.length()+1);
+					logger.log("Issue: "+article.issue);
 				}
 				else if(str.startsWith(PFX_VOLUME+"="))
-				{	result.volume = str.substring(PFX_VOLUME.length()+1);
-					logger.log("Volume: "+result.volume);
+				{	article.volume = str.substring(PFX_VOLUME.length()+1);
+					logger.log("Volume: "+article.volume);
 				}
 				else if(str.startsWith(PFX_YEAR+"="))
-				{	result.year = str.substring(PFX_YEAR.length()+1);
-					logger.log("Year: "+result.year);
+				{	article.year = Article.internValue(str.substring(PFX_YEAR.length()+1));
+					logger.log("Year: "+article.year);
 				}
 				else if(str.startsWith(PFX_PAGE+"="))
-				{	result.page = str.substring(PFX_PAGE.length()+1);
-					logger.log("Pages: "+result.page);
+				{	article.page = str.substring(PFX_PAGE.length()+1);
+					logger.log("Pages: "+article.page);
 				}
 				else if(str.startsWith(PFX_JOURNAL_LONG+"="))
 				{	sourceName = str.substring(PFX_JOURNAL_LONG.length()+1);
-					result.setSource(sourceType, sourceName);
+					article.setSource(sourceType, sourceName);
 					logger.log("Source name: "+sourceName);
 				}
 				else if(str.startsWith(PFX_TYPE+"="))
 				{	String sourceTypeStr = str.substring(PFX_TYPE.length()+1).toUpperCase(Locale.ENGLISH);
 					sourceType = SourceType.valueOf(sourceTypeStr);
-					result.setSource(sourceType, sourceName);
+					article.setSource(sourceType, sourceName);
 					logger.log("Source name: "+sourceType);
 				}
 				else if(str.startsWith(INT_BIBKEY+"="))
-				{	result.bibtexKey = str.substring(INT_BIBKEY.length()+1);
-					logger.log("Bibtex key: "+result.bibtexKey);
+				{	article.bibtexKey = str.substring(INT_BIBKEY.length()+1);
+					logger.log("Bibtex key: "+article.bibtexKey);
 				}
 			}
 			logger.decreaseOffset();
-			logger.log("Fixed article: "+result);
+			logger.log("Fixed article: "+article);
+		}
+		
+		return result;
+	}
+	
+	/**
+	 * Checks that the long name of the source of an ISI article is one
+	 * of the long names already associated to its short name. If the short
+	 * name is unknown, it is added to the map of short names, and will be
+	 * recorded once the whole ISI file is processed.
+	 * 
+	 * @param shortSrc
+	 * 		Normalized short name of the source.
+	 * @param normSourceName
+	 * 		Normalized long name of the source.
+	 */
+	private void checkShortName(String shortSrc, String normSourceName)
+	{	List<String> existingLongSrcs = SHORT_NAMES.get(shortSrc);
+		if(existingLongSrcs!=null)
+		{	boolean found = false;
+			Iterator<String> it = existingLongSrcs.iterator();
+			while(it.hasNext() && !found)
+			{	String srcName = it.next();
+				srcName = StringTools.normalize(srcName).replace(".","");
+				found = srcName.equalsIgnoreCase(normSourceName);
+			}
+			if(!found)
+				throw new IllegalArgumentException("Found an unknown long name for source \""+shortSrc+"\" (\""+existingLongSrcs.get(0)+"\"): \""+normSourceName+"\"");
+		}
+		else
+		{	List<String> list = new ArrayList<String>();
+			list.add(normSourceName);
+			SHORT_NAMES.put(shortSrc, list);
+			learnedShortNames.add(shortSrc);
 		}
+	}
+	
+	/**
+	 * Looks for the previously loaded Jabref article matching the 
+	 * article of the specified record. The corpus is only read, so 
+	 * this method can be called concurrently.
+	 * 
+	 * @param parsed
+	 * 		Record parsed from the ISI file, completed with the match.
+	 */
+	private void matchIsiArticle(ParsedRecord parsed)
+	{	Article article = parsed.article;
 		
 		// match with the existing articles
 		logger.log("Looking for compatible articles in the list of previously retrieved articles");
 		logger.increaseOffset();
 		List<Article> articles = new ArrayList<Article>(); 
-		for(Article article: corpus.getArticles())
-		{	if((result.bibtexKey!=null && result.bibtexKey.equals(article.bibtexKey))
-				|| (result.doi!=null && result.doi.equalsIgnoreCase(article.doi))
-				|| result.isCompatible(article))
-			{	articles.add(article);
-				logger.log("Found "+article);
+		for(Article candidate: corpus.getCandidateArticles(article))
+		{	if((article.bibtexKey!=null && article.bibtexKey.equals(candidate.bibtexKey))
+				|| (article.doi!=null && article.doi.equalsIgnoreCase(candidate.doi))
+				|| article.isCompatible(candidate))
+			{	articles.add(candidate);
+				logger.log("Found "+candidate);
 			}
 		}
 		logger.log("Found "+articles.size()+" compatible article(s) in total");
 		if(articles.isEmpty())
-		{	List<Author> authors = result.getAuthors();
+		{	List<Author> authors = article.getAuthors();
 			for(Author author: authors)
 				logger.log(author.toString());
-			throw new IllegalArgumentException("Could not find article: "+result);
+			throw new IllegalArgumentException("Could not find article: "+article);
 		
 		}
 		else if(articles.size()>1)
-			throw new IllegalArgumentException("Found more than one compatible article for: "+result);
-		Article selectedArticle = articles.get(0);
-//		selectedArticle.completeWith(result);
-		result = selectedArticle;
-		result.core = true;
+		{	parsed.candidates = articles;
+			throw new IllegalArgumentException("Found more than one compatible article for: "+article);
+		}
+		parsed.match = articles.get(0);
+//		parsed.match.completeWith(article);
 		logger.decreaseOffset();
+	}
+	
+	/**
+	 * Retrieves the article corresponding to the specified short
+	 * reference. The same reference is generally cited by many
+	 * articles, so the result of the resolution is cached, and only 
+	 * the first occurrence of a reference is actually parsed and 
+	 * matched with the corpus.
+	 *  
+	 * @param string
+	 * 		The string representing the targeted article.
+	 * @param resolved
+	 * 		Resolution of the reference performed beforehand, 
+	 * 		or {@code null} to resolve it now.
+	 * @return
+	 * 		The retrieved (possibly newly created) article, or 
+	 * 		{@code null} if the reference is ignored.
+	 */
+	private Article retrieveArticle(String string, ResolvedReference resolved)
+	{	Article result;
+		if(resolvedReferences.containsKey(string))
+		{	result = resolvedReferences.get(string);
+			logger.log("Reference already resolved: "+result);
+		}
+		else
+		{	if(resolved==null)
+				resolved = resolveReference(string);
+			result = registerReference(string, resolved);
+			resolvedReferences.put(string, result);
+			if(incremental && resolved.resolution!=null)
+				referenceResolutions.put(string, resolved.resolution);
+		}
+		return result;
+	}
+	
+	/**
+	 * Resolves the specified reference without modifying the 
+	 * corpus, so that several references can be resolved concurrently.
+	 * In incremental mode, the resolution of the previous run is reused
+	 * if possible. The errors are not thrown, but recorded in the result.
+	 * 
+	 * @param string
+	 * 		The string representing the targeted article.
+	 * @return
+	 * 		The resolution of the reference.
+	 */
+	private ResolvedReference resolveReference(String string)
+	{	ResolvedReference result = new ResolvedReference();
+		int offset = logger.getOffset();
+		try
+		{	Resolution previous = null;
+			if(incremental)
+				previous = getReusableResolution(previousReferences, string);
+			if(previous!=null)
+			{	logger.log("Reusing the resolution of the previous run");
+				result.resolution = previous;
+				if(previous.target!=null)
+					result.article = corpus.getArticleByBibkey(previous.target);
+			}
+			else
+				resolveArticle(string, result);
+		}
+		catch(RuntimeException e)
+		{	// the error may have interrupted the processing before the offset was restored
+			logger.setOffset(offset);
+			result.error = e;
+		}
+		return result;
+	}
+	
+	/**
+	 * Applies the modifications of the corpus required by the
+	 * specified resolution: registration of the new author, and
+	 * creation of the missing article. The possible error which 
+	 * occurred during the resolution is then thrown, or recorded if
+	 * the problems are collected.
+	 * 
+	 * @param string
+	 * 		The string representing the targeted article.
+	 * @param resolved
+	 * 		The resolution of the reference.
+	 * @return
+	 * 		The retrieved (possibly newly created) article, or 
+	 * 		{@code null} if the reference is ignored or could not
+	 * 		be resolved.
+	 */
+	private Article registerReference(String string, ResolvedReference resolved)
+	{	Article result = resolved.article;
+		if(resolved.newAuthor!=null)
+		{	// the author may have been registered in the meantime (by another resolution): use the corpus version
+			Author author = corpus.retrieveAuthor(resolved.newAuthor);
+			if(author!=resolved.newAuthor && resolved.missingArticle!=null)
+			{	List<Author> authors = resolved.missingArticle.getAuthors();
+				int index = authors.indexOf(resolved.newAuthor);
+				if(index>=0)
+					authors.set(index, author);
+			}
+		}
+		if(resolved.error!=null)
+		{	if(!collectProblems)
+				throw resolved.error;
+			if(resolved.candidates==null)
+				addReferenceProblem(ProblemType.INVALID_REFERENCE, string, resolved.error.getMessage(), null);
+			else
+				addReferenceProblem(ProblemType.AMBIGUOUS_REFERENCE, string, resolved.error.getMessage(), resolved.candidates);
+		}
 		
-		references.put(result,citedArticles);
+		else if(result==null && resolved.missingArticle!=null)
+		{	Article tmpArticle = resolved.missingArticle;
+			List<Article> candidates = null;
+			if(collectProblems)
+				candidates = findNearbyArticles(tmpArticle);
+			int i = 0;
+			while(corpus.containsKey(NEW_KEY+i))
+				i++;
+			String bibtexKey = NEW_KEY+i;
+			tmpArticle.bibtexKey = bibtexKey;
+			logger.log("Creating a new one and adding to the map, using the new bibtexkey "+bibtexKey);
+			corpus.addArticle(tmpArticle);	// adding to the existing map for later use
+			result = tmpArticle;
+			String message = "Could not find the article ("+string+") for "+tmpArticle;
+			if(!collectProblems)
+				throw new IllegalArgumentException(message);
+			if(tmpArticle.doi==null)
+				addReferenceProblem(ProblemType.UNMATCHED_REFERENCE, string, message, candidates);
+			else
+				addReferenceProblem(ProblemType.MISSING_DOI, string, message, candidates);
+		}
 		return result;
 	}
 	
 	/**
 	 * Parses the specified string and tries to identify a
 	 * matching article in the current article map. If none
-	 * can be found, a new incomplete article is created
-	 * and returned.
+	 * can be found, the new incomplete article is recorded
+	 * in the resolution, to be added later to the corpus.
+	 * The corpus is not modified by this method.
 	 *  
 	 * @param string
 	 * 		The string representing the targeted article.
-	 * @return
-	 * 		The retrieved (possibly newly created) article.
+	 * @param result
+	 * 		The resolution of the reference, completed by this method.
 	 */
-	private Article retrieveArticle(String string)
-	{	Article result = null;
-		Article tmpArticle = new Article();
+	private void resolveArticle(String string, ResolvedReference result)
+	{	Article tmpArticle = new Article();
 		String tmp[] = string.split(",");
 		
 		// check if the reference should be ignored
 		String normStr = StringTools.normalize(string).replace(".", "");
 		if(IGNORED_REFS.contains(normStr))
 		{	logger.log("The reference is in the black list >> it is ignored");
+			result.resolution = new Resolution(null, null);
 		}
 		
 		// if the reference must be processed
@@ -846,7 +1156,7 @@ public class IsiFileHandler
 							logger.log("Volume: "+tmpArticle.volume);
 						}
 						else if(str.startsWith(PFX_YEAR+"="))
-						{	tmpArticle.year = str.substring(PFX_YEAR.length()+1);
+						{	tmpArticle.year = Article.internValue(str.substring(PFX_YEAR.length()+1));
 							logger.log("Year: "+tmpArticle.year);
 						}
 						else if(str.startsWith(PFX_PAGE+"="))
@@ -881,7 +1191,7 @@ public class IsiFileHandler
 					logger.log("Author: "+fullname);
 			
 					// get the year
-					tmpArticle.year = tmp[1].trim();
+					tmpArticle.year = Article.internValue(tmp[1].trim());
 					logger.log("Year: "+tmpArticle.year);
 					
 					// determine the type, and possibly volume/pages/doi
@@ -989,21 +1299,24 @@ public class IsiFileHandler
 					logger.log("Normalized lastname: "+lastname);
 					logger.log("Normalized firstname: "+firstname);
 					Author author = new Author(lastname, firstname);
-					author = corpus.retrieveAuthor(author);
+					Author existing = corpus.getAuthor(author);
+					if(existing==null)
+						result.newAuthor = author;
+					else
+						author = existing;
 					tmpArticle.addAuthor(author);
 					logger.decreaseOffset();
 				}
 			}
 			
-if(string.equals("Vinciarelli A, 2006, P IEEE INT C MULT EX, P779"))			
-	System.out.print("");
-			// look for the paper in the current map
+			// look for the paper in the current map (ignoring the articles created for the 
+			// previous missing references, so that the result does not depend on the order)
 			List<Article> articles = new ArrayList<Article>();
-			for(Article article: corpus.getArticles())
-			{	
-if(article.bibtexKey!=null && article.bibtexKey.equals("Vinciarelli2007"))
-	System.out.print("");
-				if(tmpArticle.doi!=null && article.doi!=null)
+			for(Article article: corpus.getCandidateArticles(tmpArticle))
+			{	if(article.bibtexKey!=null && article.bibtexKey.startsWith(NEW_KEY))
+				{	// created for a missing reference
+				}
+				else if(tmpArticle.doi!=null && article.doi!=null)
 				{	if(tmpArticle.doi.equalsIgnoreCase(article.doi))
 						articles.add(article);
 				}
@@ -1025,20 +1338,13 @@ if(article.bibtexKey!=null && article.bibtexKey.equals("Vinciarelli2007"))
 			// setup the result
 			if(articles.isEmpty())
 			{	logger.log("Could not find any existing paper for "+tmpArticle);
-				int i = 0;
-				while(corpus.containsKey(NEW_KEY+i))
-					i++;
-				String bibtexKey = NEW_KEY+i;
-				tmpArticle.bibtexKey = bibtexKey;
-				logger.log("Creating a new one and adding to the map, using the new bibtexkey "+bibtexKey);
-				corpus.addArticle(tmpArticle);	// adding to the existing map for later use
-				result = tmpArticle;
-				throw new IllegalArgumentException("Could not find the article ("+string+") for "+tmpArticle);
+				result.missingArticle = tmpArticle;
 			}
 			else if(articles.size()==1)
 			{	Article article = articles.get(0);
 				logger.log("Found an equivalent article: "+article);
-				result = article;
+				result.article = article;
+				result.resolution = new Resolution(tmpArticle, article);
 			}
 			else // more than one article found
 			{	msg = new ArrayList<String>();
@@ -1046,11 +1352,10 @@ if(article.bibtexKey!=null && article.bibtexKey.equals("Vinciarelli2007"))
 				for(Article article: articles)
 					msg.add(article.toString());
 				logger.log(msg);
+				result.candidates = articles;
 				throw new IllegalArgumentException("Found several articles for "+tmpArticle);
 			}
 		}
-		
-		return result;
 	}
 	
 	/**
@@ -1093,8 +1398,7 @@ if(article.bibtexKey!=null && article.bibtexKey.equals("Vinciarelli2007"))
 						else
 						{	Article ref = corpus.getArticleByDoi(doi);
 							logger.log("Adding article "+ref);
-							article.citedArticles.add(ref);
-							ref.citingArticles.add(article);
+							corpus.addCitation(article, ref);
 						}
 					}
 					else if(line.startsWith(INT_BIBKEY))
@@ -1114,8 +1418,7 @@ if(article.bibtexKey!=null && article.bibtexKey.equals("Vinciarelli2007"))
 						else
 						{	Article ref = corpus.getArticleByBibkey(bibkey);
 							logger.log("Adding article "+ref);
-							article.citedArticles.add(ref);
-							ref.citingArticles.add(article);
+							corpus.addCitation(article, ref);
 						}
 					}
 					else
@@ -1132,6 +1435,862 @@ if(article.bibtexKey!=null && article.bibtexKey.equals("Vinciarelli2007"))
 			logger.log("No manual annotation available");
 	}
 	
+	/////////////////////////////////////////////////////////////////
+	// PROBLEMS			/////////////////////////////////////////////
+	/////////////////////////////////////////////////////////////////
+	/** Whether the unresolved records and references should be collected, instead of stopping at the first one */
+	private boolean collectProblems = false;
+	/** ISI records which could not be resolved, in the order of the file */
+	private final List<ResolutionProblem> recordProblems = new ArrayList<ResolutionProblem>();
+	/** Short references which could not be resolved, indexed by reference */
+	private final Map<String,ResolutionProblem> referenceProblems = new LinkedHashMap<String,ResolutionProblem>();
+	/** Maximal number of candidate articles listed for each problem */
+	private final static int MAX_CANDIDATES = 5;
+	
+	/**
+	 * Enables or disables the collection of the problems. By default, the
+	 * loading stops at the first ISI record or short reference which cannot 
+	 * be resolved. When the problems are collected, the whole file is processed,
+	 * and all the unmatched, ambiguous or missing records and references are 
+	 * listed, with their best candidate articles, in the report file
+	 * {@link FileNames#FI_UNRESOLVED_REPORT}. An exception is thrown after 
+	 * the report is recorded, if it is not empty.
+	 * 
+	 * @param collectProblems
+	 * 		{@code true} to collect the problems, {@code false} to stop 
+	 * 		at the first one.
+	 */
+	public void setCollectProblems(boolean collectProblems)
+	{	this.collectProblems = collectProblems;
+	}
+	
+	/**
+	 * Type of problem encountered while resolving a record or a reference.
+	 */
+	private enum ProblemType
+	{	/** The record could not be parsed, or its source is inconsistent */
+		INVALID_RECORD,
+		/** No article of the corpus matches the record */
+		UNMATCHED_RECORD,
+		/** Several articles of the corpus match the record */
+		AMBIGUOUS_RECORD,
+		/** The reference could not be parsed */
+		INVALID_REFERENCE,
+		/** No article of the corpus matches the reference */
+		UNMATCHED_REFERENCE,
+		/** Several articles of the corpus match the reference */
+		AMBIGUOUS_REFERENCE,
+		/** The reference has a DOI, but no article of the corpus matches it */
+		MISSING_DOI,
+		/** The reference matches an article already cited by the same article */
+		DUPLICATE_REFERENCE;
+	}
+	
+	/**
+	 * Record or reference which could not be resolved.
+	 */
+	private static class ResolutionProblem
+	{	/** Type of the problem */
+		ProblemType type;
+		/** Description of the record, or short reference */
+		String reference;
+		/** Message describing the problem */
+		String message;
+		/** Bibtex keys of the articles citing the reference */
+		List<String> citing = new ArrayList<String>();
+		/** Best candidate articles of the corpus */
+		List<Article> candidates = new ArrayList<Article>();
+	}
+	
+	/**
+	 * Records a problem for the specified ISI record.
+	 * 
+	 * @param parsed
+	 * 		Processed record.
+	 * @param count
+	 * 		Number of the record in the file.
+	 * @param error
+	 * 		Error which occurred while processing the record.
+	 */
+	private void addRecordProblem(ParsedRecord parsed, int count, RuntimeException error)
+	{	ResolutionProblem problem = new ResolutionProblem();
+		problem.message = error.getMessage();
+		problem.type = ProblemType.INVALID_RECORD;
+		if(parsed.article==null)
+			problem.reference = "Record #"+count;
+		else
+		{	problem.reference = "Record #"+count+": "+parsed.article;
+			// the article was parsed, so the error comes from the matching
+			if(error==parsed.error)
+			{	if(parsed.candidates!=null)
+				{	problem.type = ProblemType.AMBIGUOUS_RECORD;
+					problem.candidates.addAll(parsed.candidates);
+				}
+				else
+				{	problem.type = ProblemType.UNMATCHED_RECORD;
+					problem.candidates.addAll(findNearbyArticles(parsed.article));
+				}
+			}
+		}
+		logger.logWarning(problem.type+" "+problem.message);
+		recordProblems.add(problem);
+	}
+	
+	/**
+	 * Records a problem for the specified short reference.
+	 * 
+	 * @param type
+	 * 		Type of the problem.
+	 * @param string
+	 * 		The short reference.
+	 * @param message
+	 * 		Message describing the problem.
+	 * @param candidates
+	 * 		Best candidate articles, or {@code null} if none.
+	 */
+	private void addReferenceProblem(ProblemType type, String string, String message, List<Article> candidates)
+	{	ResolutionProblem problem = new ResolutionProblem();
+		problem.type = type;
+		problem.reference = string;
+		problem.message = message;
+		if(candidates!=null)
+			problem.candidates.addAll(candidates);
+		logger.logWarning(type+" "+message);
+		referenceProblems.put(string, problem);
+	}
+	
+	/**
+	 * Returns the articles of the corpus which are the closest to the
+	 * specified one, although they are not compatible with it. These are
+	 * the candidates retrieved by {@link Corpus#getCandidateArticles(Article)},
+	 * or if there is none, the other articles of the same first author, 
+	 * by increasing year difference. At most {@link #MAX_CANDIDATES} 
+	 * articles are returned.
+	 * 
+	 * @param article
+	 * 		Article which could not be matched.
+	 * @return
+	 * 		List of the closest articles.
+	 */
+	private List<Article> findNearbyArticles(final Article article)
+	{	List<Article> result = corpus.getCandidateArticles(article);
+		removeNewArticles(result);
+		List<Author> authors = article.getAuthors();
+		if(result.isEmpty() && !authors.isEmpty())
+		{	result = corpus.getFirstAuthorArticles(authors.get(0));
+			removeNewArticles(result);
+			Collections.sort(result, new Comparator<Article>()
+			{	@Override
+				public int compare(Article article1, Article article2)
+				{	int result = Integer.compare(getYearDifference(article, article1), getYearDifference(article, article2));
+					return result;
+				}
+			});
+		}
+		if(result.size()>MAX_CANDIDATES)
+			result = new ArrayList<Article>(result.subList(0, MAX_CANDIDATES));
+		return result;
+	}
+	
+	/**
+	 * Removes from the specified list the articles created
+	 * for the missing references.
+	 * 
+	 * @param articles
+	 * 		List of articles to filter.
+	 */
+	private static void removeNewArticles(List<Article> articles)
+	{	Iterator<Article> it = articles.iterator();
+		while(it.hasNext())
+		{	Article article = it.next();
+			if(article.bibtexKey.startsWith(NEW_KEY))
+				it.remove();
+		}
+	}
+	
+	/**
+	 * Returns the absolute difference between the years of the
+	 * specified articles, or {@link Integer#MAX_VALUE} if one of
+	 * them is unknown.
+	 * 
+	 * @param article1
+	 * 		First article.
+	 * @param article2
+	 * 		Second article.
+	 * @return
+	 * 		Difference between their years.
+	 */
+	private static int getYearDifference(Article article1, Article article2)
+	{	int result = Integer.MAX_VALUE;
+		try
+		{	int year1 = Integer.parseInt(article1.year);
+			int year2 = Integer.parseInt(article2.year);
+			result = Math.abs(year1 - year2);
+		}
+		catch(NumberFormatException e)
+		{	// unknown year: the difference remains maximal
+		}
+		return result;
+	}
+	
+	/**
+	 * Records the collected problems in the report file. Each
+	 * line describes one problem, with tab-separated columns:
+	 * type, record or reference, citing articles, message, 
+	 * and finally the best candidate articles (one per column).
+	 * 
+	 * @return
+	 * 		Number of recorded problems.
+	 * 
+	 * @throws FileNotFoundException
+	 * 		Problem while recording the report.
+	 * @throws UnsupportedEncodingException
+	 * 		Problem while recording the report.
+	 */
+	private int recordProblemReport() throws FileNotFoundException, UnsupportedEncodingException
+	{	List<ResolutionProblem> problems = new ArrayList<ResolutionProblem>(recordProblems);
+		problems.addAll(referenceProblems.values());
+		logger.log("Recording the "+problems.size()+" unresolved record(s) and reference(s) in "+FileNames.FI_UNRESOLVED_REPORT);
+		
+		PrintWriter pw = FileTools.openTextFileWrite(FileNames.FI_UNRESOLVED_REPORT, "UTF-8");
+		pw.println("Type\tReference\tCited by\tMessage\tCandidates");
+		for(ResolutionProblem problem: problems)
+		{	StringBuilder line = new StringBuilder(problem.type.toString());
+			line.append("\t").append(cleanReportValue(problem.reference));
+			line.append("\t");
+			for(int i=0;i<problem.citing.size();i++)
+			{	if(i>0)
+					line.append(", ");
+				line.append(problem.citing.get(i));
+			}
+			line.append("\t").append(cleanReportValue(problem.message));
+			for(Article candidate: problem.candidates)
+				line.append("\t").append(cleanReportValue(candidate.toString()));
+			pw.println(line.toString());
+		}
+		pw.close();
+		
+		return problems.size();
+	}
+	
+	/**
+	 * Removes the tabulations and line breaks from the specified
+	 * value, so that it fits in a column of the report.
+	 * 
+	 * @param value
+	 * 		Value to clean.
+	 * @return
+	 * 		The cleaned value.
+	 */
+	private static String cleanReportValue(String value)
+	{	String result = String.valueOf(value).replaceAll("[\\t\\r\\n]+", " ");
+		return result;
+	}
+	
+	/////////////////////////////////////////////////////////////////
+	// INCREMENTAL		/////////////////////////////////////////////
+	/////////////////////////////////////////////////////////////////
+	/** Whether the resolutions of the previous run should be reused when possible */
+	private boolean incremental = false;
+	/** Bibtex keys of the articles which did not change since the previous run */
+	private Set<String> unchangedKeys = null;
+	/** Bibtex keys of the articles which changed since the previous run (or are new) */
+	private final Set<String> changedKeys = new HashSet<String>();
+	/** DOIs of the articles which changed since the previous run (or are new) */
+	private final Set<String> changedDois = new HashSet<String>();
+	/** First authors of the articles which changed since the previous run (or are new) */
+	private final Set<String> changedAuthors = new HashSet<String>();
+	/** Resolutions of the ISI records during the previous run, indexed by hash of the record */
+	private Map<String,Resolution> previousRecords = null;
+	/** Resolutions of the short references during the previous run, indexed by reference */
+	private Map<String,Resolution> previousReferences = null;
+	/** Resolutions of the ISI records during the current run, indexed by hash of the record */
+	private final Map<String,Resolution> recordResolutions = new LinkedHashMap<String,Resolution>();
+	/** Resolutions of the short references during the current run, indexed by reference */
+	private final Map<String,Resolution> referenceResolutions = new LinkedHashMap<String,Resolution>();
+	/** Prefix of the manifest line containing the key of the auxiliary files */
+	private final static String MAN_KEY = "K";
+	/** Prefix of the manifest lines describing the resolution of an ISI record */
+	private final static String MAN_RECORD = "R";
+	/** Prefix of the manifest lines describing the resolution of a short reference */
+	private final static String MAN_REFERENCE = "C";
+	
+	/**
+	 * Enables the incremental mode. In this mode, the ISI records and
+	 * short references resolved during the previous run are not parsed
+	 * and matched again, provided the article they were matched to did 
+	 * not change, and no changed or new article could also match them.
+	 * The resolutions are recorded in the output folder, for the next run,
+	 * including when the loading fails. 
+	 * <br/>
+	 * The unchanged articles are typically those reused by
+	 * {@link JabrefFileHandler#getReusedKeys()}.
+	 * 
+	 * @param unchangedKeys
+	 * 		Bibtex keys of the articles which did not change since the 
+	 * 		previous run, or {@code null} to disable the incremental mode.
+	 */
+	public void setIncremental(Set<String> unchangedKeys)
+	{	this.unchangedKeys = unchangedKeys;
+		incremental = unchangedKeys!=null;
+	}
+	
+	/**
+	 * Resolution of an ISI record or a short reference: the
+	 * Bibtex key of the matched article, and the information
+	 * used to retrieve the candidate articles, which allows
+	 * detecting whether a changed article could also match it.
+	 */
+	private static class Resolution
+	{	
+		/**
+		 * Builds the resolution of the specified article.
+		 * 
+		 * @param query
+		 * 		Article built from the record or reference ({@code null} if ignored).
+		 * @param target
+		 * 		Matched article of the corpus ({@code null} if ignored).
+		 */
+		public Resolution(Article query, Article target)
+		{	if(target!=null)
+				this.target = target.bibtexKey;
+			if(query!=null)
+			{	key = query.bibtexKey;
+				if(query.doi!=null)
+					doi = query.doi.toLowerCase(Locale.ENGLISH);
+				List<Author> authors = query.getAuthors();
+				if(!authors.isEmpty())
+					author = authors.get(0).normname;
+			}
+		}
+		
+		/** Bibtex key of the matched article ({@code null} for an ignored reference) */
+		String target = null;
+		/** Bibtex key of the searched article, if known */
+		String key = null;
+		/** Normalized DOI of the searched article, if known */
+		String doi = null;
+		/** Normalized name of the first author of the searched article, if known */
+		String author = null;
+	}
+	
+	/**
+	 * Computes the key of the auxiliary files used when resolving 
+	 * the records and references. The resolutions of the previous 
+	 * run are not reused if one of these files changed.
+	 * 
+	 * @return
+	 * 		Key representing the state of the auxiliary files.
+	 * 
+	 * @throws IOException
+	 * 		Problem while reading the files.
+	 */
+	private static String getAuxiliaryKey() throws IOException
+	{	String result = FileTools.hashFiles(
+			FileNames.FI_ISI_NAMES, FileNames.FI_ISI_NAMES_JOURNAL, 
+			FileNames.FI_ISI_FIXES, FileNames.FI_ISI_IGNORED);
+		return result;
+	}
+	
+	/**
+	 * Identifies the articles of the corpus which changed since the 
+	 * previous run, and loads the resolutions recorded during this run, 
+	 * if the auxiliary files did not change since then.
+	 * 
+	 * @throws IOException
+	 * 		Problem while accessing the manifest.
+	 */
+	private void loadPreviousResolutions() throws IOException
+	{	// changed articles
+		changedKeys.clear();
+		changedDois.clear();
+		changedAuthors.clear();
+		for(Article article: corpus.getArticles())
+		{	if(!unchangedKeys.contains(article.bibtexKey))
+			{	Resolution resolution = new Resolution(article, null);
+				changedKeys.add(resolution.key);
+				if(resolution.doi!=null)
+					changedDois.add(resolution.doi);
+				if(resolution.author!=null)
+					changedAuthors.add(resolution.author);
+			}
+		}
+		logger.log(changedKeys.size()+" article(s) changed since the previous run");
+		
+		// previous resolutions
+		recordResolutions.clear();
+		referenceResolutions.clear();
+		previousRecords = null;
+		previousReferences = null;
+		File file = new File(FileNames.FI_RESOLUTIONS_MANIFEST);
+		if(file.exists())
+		{	Scanner sc = FileTools.openTextFileRead(file, "UTF-8");
+			String line = null;
+			if(sc.hasNextLine())
+				line = sc.nextLine();
+			if(line!=null && line.equals(MAN_KEY+"\t"+getAuxiliaryKey()))
+			{	previousRecords = new HashMap<String,Resolution>();
+				previousReferences = new HashMap<String,Resolution>();
+				while(sc.hasNextLine())
+				{	line = sc.nextLine();
+					String tmp[] = line.split("\t", -1);
+					Resolution resolution = new Resolution(null, null);
+					resolution.target = readManifestValue(tmp[2]);
+					resolution.key = readManifestValue(tmp[3]);
+					resolution.doi = readManifestValue(tmp[4]);
+					resolution.author = readManifestValue(tmp[5]);
+					if(tmp[0].equals(MAN_RECORD))
+						previousRecords.put(tmp[1], resolution);
+					else if(tmp[0].equals(MAN_REFERENCE))
+						previousReferences.put(tmp[1], resolution);
+					else
+						throw new IllegalArgumentException("Unknown prefix \""+tmp[0]+"\" in file "+file);
+				}
+			}
+			sc.close();
+		}
+		if(previousRecords==null)
+			logger.log("No usable resolutions from a previous run: processing all the records and references");
+		else
+			logger.log("Retrieved the resolutions of "+previousRecords.size()+" record(s) and "+previousReferences.size()+" reference(s) from the previous run");
+	}
+	
+	/**
+	 * Records the resolutions of the current run, for the next one. 
+	 * The resolutions of the previous run which were not reached
+	 * (because of an error) but are still valid are kept too.
+	 * 
+	 * @throws IOException
+	 * 		Problem while recording the manifest.
+	 */
+	private void recordResolutions() throws IOException
+	{	// keep the previous resolutions still valid
+		if(previousRecords!=null)
+		{	for(Entry<String,Resolution> entry: previousRecords.entrySet())
+			{	if(!recordResolutions.containsKey(entry.getKey()) && isReusable(entry.getValue()))
+					recordResolutions.put(entry.getKey(), entry.getValue());
+			}
+			for(Entry<String,Resolution> entry: previousReferences.entrySet())
+			{	if(!referenceResolutions.containsKey(entry.getKey()) && isReusable(entry.getValue()))
+					referenceResolutions.put(entry.getKey(), entry.getValue());
+			}
+		}
+		
+		// record the file
+		logger.log("Recording the resolutions of "+recordResolutions.size()+" record(s) and "+referenceResolutions.size()+" reference(s) for the next run");
+		PrintWriter pw = FileTools.openTextFileWrite(FileNames.FI_RESOLUTIONS_MANIFEST, "UTF-8");
+		pw.println(MAN_KEY+"\t"+getAuxiliaryKey());
+		for(Entry<String,Resolution> entry: recordResolutions.entrySet())
+			writeManifestLine(pw, MAN_RECORD, entry.getKey(), entry.getValue());
+		for(Entry<String,Resolution> entry: referenceResolutions.entrySet())
+			writeManifestLine(pw, MAN_REFERENCE, entry.getKey(), entry.getValue());
+		pw.close();
+	}
+	
+	/**
+	 * Writes one resolution in the manifest.
+	 * 
+	 * @param pw
+	 * 		Writer of the manifest.
+	 * @param prefix
+	 * 		Prefix of the line (type of resolution).
+	 * @param id
+	 * 		Hash of the record, or short reference.
+	 * @param resolution
+	 * 		Resolution to write.
+	 */
+	private void writeManifestLine(PrintWriter pw, String prefix, String id, Resolution resolution)
+	{	pw.println(prefix
+			+ "\t" + id
+			+ "\t" + writeManifestValue(resolution.target)
+			+ "\t" + writeManifestValue(resolution.key)
+			+ "\t" + writeManifestValue(resolution.doi)
+			+ "\t" + writeManifestValue(resolution.author));
+	}
+	
+	/**
+	 * Returns the representation of the specified value in the
+	 * manifest, in which {@code null} is represented by an empty string.
+	 * 
+	 * @param value
+	 * 		Value to represent (possibly {@code null}).
+	 * @return
+	 * 		The corresponding string.
+	 */
+	private static String writeManifestValue(String value)
+	{	String result = value;
+		if(result==null)
+			result = "";
+		return result;
+	}
+	
+	/**
+	 * Decodes a value read in the manifest.
+	 * 
+	 * @param value
+	 * 		String read in the manifest.
+	 * @return
+	 * 		The corresponding value (possibly {@code null}).
+	 */
+	private static String readManifestValue(String value)
+	{	String result = value;
+		if(result.isEmpty())
+			result = null;
+		return result;
+	}
+	
+	/**
+	 * Checks whether the specified resolution of the previous run 
+	 * can be reused: the matched article must not have changed, and
+	 * no changed article can be a candidate for the same record or 
+	 * reference (same Bibtex key, DOI or first author, as in
+	 * {@link Corpus#getCandidateArticles(Article)}).
+	 * 
+	 * @param resolution
+	 * 		Resolution of the previous run.
+	 * @return
+	 * 		{@code true} iff the resolution is still valid.
+	 */
+	private boolean isReusable(Resolution resolution)
+	{	boolean result = (resolution.target==null || unchangedKeys.contains(resolution.target))
+			&& (resolution.key==null || !changedKeys.contains(resolution.key))
+			&& (resolution.doi==null || !changedDois.contains(resolution.doi))
+			&& (resolution.author==null || !changedAuthors.contains(resolution.author));
+		return result;
+	}
+	
+	/**
+	 * Returns the resolution of the previous run associated to the 
+	 * specified id, provided it can be reused.
+	 * 
+	 * @param previous
+	 * 		Resolutions of the previous run ({@code null} if none).
+	 * @param id
+	 * 		Hash of the record, or short reference.
+	 * @return
+	 * 		The reusable resolution, or {@code null} if none.
+	 */
+	private Resolution getReusableResolution(Map<String,Resolution> previous, String id)
+	{	Resolution result = null;
+		if(previous!=null)
+		{	result = previous.get(id);
+			if(result!=null && !isReusable(result))
+				result = null;
+		}
+		return result;
+	}
+	
+	/**
+	 * Reuses the match of the specified ISI record during the previous
+	 * run, if possible. In this case, the record is not parsed: only its
+	 * references are retrieved. The corpus is not modified, so this method
+	 * can be called concurrently.
+	 * 
+	 * @param record
+	 * 		Map associating each tag of the ISI record to its values.
+	 * @param hash
+	 * 		Hash of the record.
+	 * @return
+	 * 		The processed record, or {@code null} if the match cannot be reused.
+	 */
+	private ParsedRecord reuseIsiRecord(Map<String,List<String>> record, String hash)
+	{	ParsedRecord result = null;
+		Resolution previous = getReusableResolution(previousRecords, hash);
+		if(previous!=null)
+		{	result = new ParsedRecord();
+			result.hash = hash;
+			result.reused = true;
+			result.match = corpus.getArticleByBibkey(previous.target);
+			result.citedArticles = record.get(PFX_REFERENCES);
+			logger.log("Reusing the match of the previous run: "+result.match);
+		}
+		return result;
+	}
+	
+	/**
+	 * Adds the resolution of the specified record to 
+	 * those recorded for the next run.
+	 * 
+	 * @param parsed
+	 * 		Processed record.
+	 */
+	private void recordIsiResolution(ParsedRecord parsed)
+	{	Resolution resolution;
+		if(parsed.reused)
+			resolution = previousRecords.get(parsed.hash);
+		else
+			resolution = new Resolution(parsed.article, parsed.match);
+		recordResolutions.put(parsed.hash, resolution);
+	}
+	
+	/////////////////////////////////////////////////////////////////
+	// PARALLELISM		/////////////////////////////////////////////
+	/////////////////////////////////////////////////////////////////
+	/** Number of threads used to process the ISI records and resolve the references */
+	private int threadNumber = 1;
+	/** Maximal number of records read in advance, for each processing thread */
+	private final static int QUEUE_SIZE = 16;
+	
+	/**
+	 * Changes the number of threads used to process the ISI records
+	 * and resolve the short references. With a single thread, they 
+	 * are processed sequentially.
+	 * 
+	 * @param threadNumber
+	 * 		Number of threads.
+	 */
+	public void setThreadNumber(int threadNumber)
+	{	if(threadNumber<1)
+			throw new IllegalArgumentException("The number of threads must be positive ("+threadNumber+")");
+		this.threadNumber = threadNumber;
+	}
+	
+	/**
+	 * Result of the processing of an ISI record: the parsed 
+	 * article and the corpus article it matches (possibly reused
+	 * from the previous run), or the error which occurred.
+	 */
+	private static class ParsedRecord
+	{	/** Article parsed from the record ({@code null} if the record could not be parsed) */
+		Article article = null;
+		/** Short references cited by the article */
+		List<String> citedArticles = null;
+		/** Normalized short name of the source, or {@code null} if it must not be checked */
+		String shortSrc = null;
+		/** Normalized long name of the source */
+		String normSourceName = null;
+		/** Corpus article matching the parsed article */
+		Article match = null;
+		/** Compatible articles of the corpus, when several of them were found */
+		List<Article> candidates = null;
+		/** Hash of the record (only in incremental mode) */
+		String hash = null;
+		/** Whether the match was reused from the previous run, instead of parsing the record */
+		boolean reused = false;
+		/** Error which occurred while processing the record */
+		RuntimeException error = null;
+	}
+	
+	/**
+	 * Processes all the records of the ISI file through a pipeline.
+	 * A dedicated thread reads the records and submits them to a pool
+	 * of threads, which parse them, apply the fixes and match them with
+	 * the (read-only) corpus. The current thread then checks the short
+	 * names and registers the matched articles, in the order of the file.
+	 * The number of records waiting between the stages is bounded, so the 
+	 * memory usage does not depend on the size of the file.
+	 * 
+	 * @param reader
+	 * 		Reader giving access to the records of the ISI file.
+	 * @param references
+	 * 		Temporary map containing the references associated to each retrieved article.
+	 * 
+	 * @throws IOException
+	 * 		Problem while reading the ISI file.
+	 */
+	private void processIsiRecordsConcurrently(final IsiRecordReader reader, Map<Article,List<String>> references) throws IOException
+	{	final ExecutorService executor = Executors.newFixedThreadPool(threadNumber);
+		final Thread owner = Thread.currentThread();
+		final BlockingQueue<Future<ParsedRecord>> queue = new ArrayBlockingQueue<Future<ParsedRecord>>(QUEUE_SIZE*threadNumber);
+		final Future<ParsedRecord> endOfFile = new CompletableFuture<ParsedRecord>();
+		
+		// reading stage
+		Callable<Integer> readingTask = new Callable<Integer>()
+		{	@Override
+			public Integer call() throws IOException, InterruptedException
+			{	int result = 0;
+				try
+				{	Map<String,List<String>> record = reader.nextRecord();
+					while(record!=null)
+					{	result++;
+						Future<ParsedRecord> future = executor.submit(buildRecordTask(record, owner));
+						queue.put(future);
+						record = reader.nextRecord();
+					}
+				}
+				catch(IOException | RuntimeException e)
+				{	queue.put(endOfFile);
+					throw e;
+				}
+				queue.put(endOfFile);
+				return result;
+			}
+		};
+		ExecutorService readingExecutor = Executors.newSingleThreadExecutor();
+		Future<Integer> reading = readingExecutor.submit(readingTask);
+		readingExecutor.shutdown();
+		
+		// registration stage, in the order of the file
+		try
+		{	int count = 0;
+			Future<ParsedRecord> future = queue.take();
+			while(future!=endOfFile)
+			{	count++;
+				ParsedRecord parsed = future.get();
+				registerIsiRecord(parsed, count, references);
+				future = queue.take();
+			}
+			reading.get();
+		}
+		catch(InterruptedException e)
+		{	Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while processing the ISI records", e);
+		}
+		catch(ExecutionException e)
+		{	Throwable cause = e.getCause();
+			if(cause instanceof IOException)
+				throw (IOException)cause;
+			else if(cause instanceof RuntimeException)
+				throw (RuntimeException)cause;
+			else
+				throw new IOException(cause);
+		}
+		finally
+		{	readingExecutor.shutdownNow();
+			executor.shutdownNow();
+		}
+	}
+	
+	/**
+	 * Builds the task in charge of parsing the specified record
+	 * and matching it with the corpus (or reusing the match of the 
+	 * previous run). The task does not throw the errors, but records 
+	 * them in its result. Its messages are logged through the logger
+	 * of the specified thread.
+	 * 
+	 * @param record
+	 * 		Map associating each tag of the ISI record to its values.
+	 * @param owner
+	 * 		Thread whose logger is used by the task.
+	 * @return
+	 * 		The task.
+	 */
+	private Callable<ParsedRecord> buildRecordTask(final Map<String,List<String>> record, final Thread owner)
+	{	Callable<ParsedRecord> result = new Callable<ParsedRecord>()
+		{	@Override
+			public ParsedRecord call()
+			{	logger.shareLogger(owner);
+				ParsedRecord result = readIsiRecord(record);
+				return result;
+			}
+		};
+		return result;
+	}
+	
+	/**
+	 * Result of the resolution of a short reference: the matching
+	 * article, the modifications to apply to the corpus, or the error
+	 * which occurred.
+	 */
+	private static class ResolvedReference
+	{	/** Article of the corpus matching the reference ({@code null} if ignored or missing) */
+		Article article = null;
+		/** New article to add to the corpus, if no matching article was found */
+		Article missingArticle = null;
+		/** Author to add to the corpus, if it does not already contain it */
+		Author newAuthor = null;
+		/** Description of the resolution, recorded for the next run (incremental mode) */
+		Resolution resolution = null;
+		/** Compatible articles of the corpus, when several of them were found */
+		List<Article> candidates = null;
+		/** Error which occurred while resolving the reference */
+		RuntimeException error = null;
+	}
+	
+	/**
+	 * Resolves concurrently the short references cited by all the 
+	 * articles. The corpus is not modified: the resolutions are collected
+	 * in a separate list for each article, and applied later, in a fixed 
+	 * order, by {@link #retrieveArticle(String, ResolvedReference)}.
+	 * 
+	 * @param references
+	 * 		Lists of the short references cited by each article.
+	 * @return
+	 * 		Lists of the corresponding resolutions, in the same order.
+	 */
+	private List<List<ResolvedReference>> resolveReferencesConcurrently(List<List<String>> references)
+	{	Map<String,ResolvedReference> resolutions = new ConcurrentHashMap<String,ResolvedReference>();
+		ForkJoinPool pool = new ForkJoinPool(threadNumber);
+		ResolutionTask task = new ResolutionTask(references, resolutions, 0, references.size(), Thread.currentThread());
+		List<List<ResolvedReference>> result = pool.invoke(task);
+		pool.shutdown();
+		return result;
+	}
+	
+	/**
+	 * Task resolving the references of a range of articles. Ranges 
+	 * containing several articles are split into two halves processed
+	 * in parallel. The result is the list of the resolutions of each 
+	 * article, in the order of the range. The messages are logged through
+	 * the logger of the thread which started the resolution.
+	 */
+	@SuppressWarnings("serial")
+	private class ResolutionTask extends RecursiveTask<List<List<ResolvedReference>>>
+	{	
+		/**
+		 * Builds a task for the specified range of articles.
+		 * 
+		 * @param references
+		 * 		Lists of the short references cited by each article.
+		 * @param resolutions
+		 * 		Resolutions shared by all tasks, indexed by reference.
+		 * @param from
+		 * 		First article of the range (included).
+		 * @param to
+		 * 		Last article of the range (excluded).
+		 * @param owner
+		 * 		Thread whose logger is used by the task.
+		 */
+		public ResolutionTask(List<List<String>> references, Map<String,ResolvedReference> resolutions, int from, int to, Thread owner)
+		{	this.references = references;
+			this.resolutions = resolutions;
+			this.from = from;
+			this.to = to;
+			this.owner = owner;
+		}
+		
+		/** Lists of the short references cited by each article */
+		private List<List<String>> references;
+		/** Resolutions shared by all tasks, indexed by reference */
+		private Map<String,ResolvedReference> resolutions;
+		/** First article of the range (included) */
+		private int from;
+		/** Last article of the range (excluded) */
+		private int to;
+		/** Thread whose logger is used by the task */
+		private Thread owner;
+		
+		@Override
+		protected List<List<ResolvedReference>> compute()
+		{	List<List<ResolvedReference>> result;
+			if(to-from==1)
+			{	logger.shareLogger(owner);
+				List<ResolvedReference> buffer = new ArrayList<ResolvedReference>();
+				for(String ref: references.get(from))
+				{	ResolvedReference resolved = resolutions.get(ref);
+					if(resolved==null)
+					{	resolved = resolveReference(ref);
+						ResolvedReference previous = resolutions.putIfAbsent(ref, resolved);
+						if(previous!=null)
+							resolved = previous;
+					}
+					buffer.add(resolved);
+				}
+				result = new ArrayList<List<ResolvedReference>>();
+				result.add(buffer);
+			}
+			else
+			{	int middle = (from + to) / 2;
+				ResolutionTask left = new ResolutionTask(references, resolutions, from, middle, owner);
+				ResolutionTask right = new ResolutionTask(references, resolutions, middle, to, owner);
+				left.fork();
+				result = new ArrayList<List<ResolvedReference>>(right.compute());
+				result.addAll(0, left.join());
+			}
+			return result;
+		}
+	}
+	
 	/////////////////////////////////////////////////////////////////
 	// TESTS			/////////////////////////////////////////////
 	/////////////////////////////////////////////////////////////////
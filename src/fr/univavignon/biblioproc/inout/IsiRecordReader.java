@@ -0,0 +1,225 @@
+package fr.univavignon.biblioproc.inout;
+
+/*
+ * Biblio Process
+ * Copyright 2011-19 Vincent Labatut 
+ * 
+ * This file is part of Biblio Process.
+ * 
+ * Biblio Process is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 2 of the License, or
+ * (at your option) any later version.
+ * 
+ * Biblio Process is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with Biblio Process.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+import fr.univavignon.tools.file.FileTools;
+
+/**
+ * Reader splitting an ISI (Web of Science) file into records,
+ * each one going from a {@code PT} line to the following {@code ER}
+ * line. A record is returned as a map associating each tag to the 
+ * list of its values: each line of the file, including continuation
+ * lines (starting with spaces), constitutes one trimmed value. The
+ * tags can appear in any order. 
+ * <br/>
+ * The file is processed in a single forward pass, one line at a time.
+ * 
+ * @author Vincent Labatut
+ */
+class IsiRecordReader implements Closeable
+{
+	/**
+	 * Opens the specified ISI file for reading.
+	 * 
+	 * @param path
+	 * 		Path of the ISI file.
+	 * 
+	 * @throws IOException
+	 * 		Problem while accessing the file.
+	 */
+	IsiRecordReader(String path) throws IOException
+	{	reader = Files.newBufferedReader(Paths.get(path), StandardCharsets.UTF_8);
+	}
+	
+	/////////////////////////////////////////////////////////////////
+	// TAGS				/////////////////////////////////////////////
+	/////////////////////////////////////////////////////////////////
+	/** Tag starting a record */
+	private final static String TAG_START = "PT";
+	/** Tag ending a record */
+	private final static String TAG_END = "ER";
+	/** Tag ending the file */
+	private final static String TAG_FILE_END = "EF";
+	/** Length of a tag */
+	private final static int TAG_LENGTH = 2;
+	
+	/////////////////////////////////////////////////////////////////
+	// READING			/////////////////////////////////////////////
+	/////////////////////////////////////////////////////////////////
+	/** Reader giving access to the file */
+	private final BufferedReader reader;
+	/** Number of the last line read */
+	private int lineNumber = 0;
+	
+	/**
+	 * Reads the next record of the file.
+	 * 
+	 * @return
+	 * 		Map associating each tag of the record to its values, 
+	 * 		or {@code null} if the end of the file was reached.
+	 * 
+	 * @throws IOException
+	 * 		Problem while reading the file.
+	 */
+	Map<String,List<String>> nextRecord() throws IOException
+	{	Map<String,List<String>> result = null;
+		List<String> values = null;
+		boolean done = false;
+		
+		String line = reader.readLine();
+		while(line!=null && !done)
+		{	lineNumber++;
+			
+			// continuation of the previous tag
+			if(line.startsWith(" "))
+			{	if(values!=null)
+					values.add(line.trim());
+			}
+			
+			// new tag
+			else if(line.length()>=TAG_LENGTH)
+			{	String tag = line.substring(0, TAG_LENGTH);
+				if(result==null)
+				{	if(tag.equals(TAG_START))
+						result = new HashMap<String,List<String>>();
+					else if(tag.equals(TAG_FILE_END))
+						done = true;
+				}
+				if(result!=null)
+				{	if(tag.equals(TAG_END))
+						done = true;
+					else
+					{	values = result.get(tag);
+						if(values==null)
+						{	values = new ArrayList<String>(1);
+							result.put(tag, values);
+						}
+						String value = "";
+						if(line.length()>TAG_LENGTH)
+							value = line.substring(TAG_LENGTH+1).trim();
+						values.add(value);
+					}
+				}
+			}
+			
+			if(!done)
+				line = reader.readLine();
+		}
+		
+		if(result!=null && !done)
+			throw new IllegalArgumentException("Reached the end of the ISI file (line "+lineNumber+") while reading a record");
+		if(!done)
+			result = null;
+		return result;
+	}
+	
+	/**
+	 * Returns the number of the last line read, which
+	 * can be used in error messages.
+	 * 
+	 * @return
+	 * 		Current line number.
+	 */
+	int getLineNumber()
+	{	return lineNumber;
+	}
+	
+	/**
+	 * Returns all the values associated to the specified tag
+	 * in the record, joined with a space, or {@code null} if 
+	 * the tag does not appear in the record.
+	 * 
+	 * @param record
+	 * 		Record read from the file.
+	 * @param tag
+	 * 		Tag of interest.
+	 * @return
+	 * 		The joined values of the tag.
+	 */
+	static String getText(Map<String,List<String>> record, String tag)
+	{	String result = null;
+		List<String> values = record.get(tag);
+		if(values!=null)
+			result = String.join(" ", values).trim();
+		return result;
+	}
+	
+	/**
+	 * Returns the first value associated to the specified tag
+	 * in the record, or {@code null} if the tag does not appear 
+	 * in the record.
+	 * 
+	 * @param record
+	 * 		Record read from the file.
+	 * @param tag
+	 * 		Tag of interest.
+	 * @return
+	 * 		The first value of the tag.
+	 */
+	static String getFirst(Map<String,List<String>> record, String tag)
+	{	String result = null;
+		List<String> values = record.get(tag);
+		if(values!=null)
+			result = values.get(0);
+		return result;
+	}
+	
+	/**
+	 * Computes a hash of the content of the specified record,
+	 * which allows detecting its modification between two
+	 * versions of the ISI file. The tags are taken in 
+	 * alphabetical order.
+	 * 
+	 * @param record
+	 * 		Record read from the file.
+	 * @return
+	 * 		Hexadecimal representation of the hash.
+	 */
+	static String hashRecord(Map<String,List<String>> record)
+	{	StringBuilder text = new StringBuilder();
+		for(String tag: new TreeSet<String>(record.keySet()))
+		{	text.append(tag);
+			for(String value: record.get(tag))
+				text.append('\n').append(value);
+			text.append('\n');
+		}
+		byte[] bytes = text.toString().getBytes(StandardCharsets.UTF_8);
+		String result = FileTools.hashBytes(bytes, 0, bytes.length);
+		return result;
+	}
+	
+	@Override
+	public void close() throws IOException
+	{	reader.close();
+	}
+}
@@ -22,17 +22,29 @@ package fr.univavignon.biblioproc.inout;
 
 import java.io.File;
 import java.io.FileNotFoundException;
+import java.io.IOException;
 import java.io.PrintWriter;
 import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
 import java.util.Scanner;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import fr.univavignon.biblioproc.data.biblio.Article;
+import fr.univavignon.biblioproc.data.biblio.ArticleField;
 import fr.univavignon.biblioproc.data.biblio.Author;
 import fr.univavignon.biblioproc.data.biblio.Corpus;
 import fr.univavignon.biblioproc.data.biblio.SourceType;
@@ -152,8 +164,8 @@ public class JabrefFileHandler
 	private static final String FLD_HOWPUB = "howpublished";	
 	/** Internal Jabref field */
 	private static final String FLD_MARKED = "__markedentry";	
-	/** List of all known Bibtex fields */
-	private static final List<String> ALL_FIELDS = Arrays.asList(
+	/** Set of all known Bibtex fields */
+	private static final Set<String> ALL_FIELDS = new HashSet<String>(Arrays.asList(
 			FLD_SOURCE, FLD_KEY, FLD_AUTHOR, FLD_ABSTRACT, FLD_CHAPTER,
 			FLD_DOI, FLD_FILE, FLD_INSTITUTION, FLD_ISSUE, FLD_JOURNAL1,
 			FLD_JOURNAL2, FLD_NUMBER, FLD_OWNER, FLD_PAGES, FLD_TIMESTAMP,
@@ -163,7 +175,16 @@ public class JabrefFileHandler
 			FLD_EDITION, FLD_ORGANIZATION, FLD_GROUPS, FLD_MONTH, FLD_HOWPUB,
 			// ignored:
 			FLD_MARKED
-	);
+	));
+	/** Set of the Bibtex fields read by {@link #buildArticle(Map)}: the values of the other known fields are not decoded */
+	private static final Set<String> USED_FIELDS = new HashSet<String>(Arrays.asList(
+			FLD_AUTHOR, FLD_ABSTRACT, FLD_CHAPTER, FLD_DOI, FLD_FILE,
+			FLD_INSTITUTION, FLD_ISSUE, FLD_JOURNAL1, FLD_JOURNAL2, FLD_NUMBER, 
+			FLD_OWNER, FLD_PAGES, FLD_TIMESTAMP, FLD_TITLE_ARTICLE, FLD_TITLE_BOOK, 
+			FLD_URL, FLD_VOLUME, FLD_YEAR, FLD_PUBLISHER, FLD_SERIES, FLD_EDITOR, 
+			FLD_REVIEW, FLD_ADDRESS, FLD_SCHOOL, FLD_TYPE, FLD_SORTKEY,
+			FLD_EDITION, FLD_ORGANIZATION, FLD_GROUPS, FLD_MONTH, FLD_HOWPUB
+	));
 	
 	/////////////////////////////////////////////////////////////////
 	// BIBTEX FIELDS	/////////////////////////////////////////////
@@ -202,79 +223,80 @@ public class JabrefFileHandler
 	/////////////////////////////////////////////////////////////////
 	/**
 	 * Loads the specified Jabref file, and builds the corresponding 
-	 * maps of articles and authors.
+	 * maps of articles and authors. The file is memory-mapped, and 
+	 * processed by a {@link BibtexTokenizer}.
 	 * 
 	 * @param path
 	 * 		Jabref file.
 	 * @param updateGroups
 	 * 		Whether or not to take into account Jabref groups.
 	 * 
-	 * @throws FileNotFoundException
-	 * 		Problem while accessing the Jabref file.
-	 * @throws UnsupportedEncodingException 
+	 * @throws IOException
 	 * 		Problem while accessing the Jabref file.
 	 */
-	public void loadJabRefFile(String path, boolean updateGroups) throws FileNotFoundException, UnsupportedEncodingException
+	public void loadJabRefFile(String path, boolean updateGroups) throws IOException
 	{	logger.log("Start loading JabRef file " + path);
 		logger.increaseOffset();
 		
 		// open the JabRef file
 		logger.log("Open the JabRef file");
-		Scanner jrScanner = FileTools.openTextFileRead(path,null);
-		
-		// retrieve the data
-		logger.log("Skip the beginning of the file");
-		String line = null;
-		// skip jabref comments
-		do
-			line = jrScanner.nextLine();
-		while(!line.isEmpty());
-
+		MappedByteBuffer buffer = BibtexTokenizer.mapFile(path);
+		
+		// possibly get the articles of the previous run
+		if(incremental)
+			loadPreviousEntries();
+		
 		// retrieve the articles
 		logger.log("Retrieve the articles");
 		logger.increaseOffset();
-		int count = 0;
-		do
-		{	line = jrScanner.nextLine();
-			if(!line.isEmpty() && !line.startsWith(COMMENT_PREFIX))
-			{	count++;
-				logger.log("Process article #"+count);
-if(count==1054)
-	System.out.print("");
-				// parse the BibTex entry
-				Map<String,String> data = retrieveArticleMap(line, jrScanner);
-				// build the article object (automatic insertion in the maps)
-				Article article = buildArticle(data);
-				// display for verification
-				logger.log("Resulting article: " + article);
-			}
-		}
-		while(!line.startsWith(COMMENT_PREFIX));
-		logger.log("Number of article retrieved from the file: "+count);
+		int commentStart;
+		if(threadNumber>1)
+			commentStart = retrieveArticlesConcurrently(buffer);
+		else
+			commentStart = retrieveArticles(buffer);
 		logger.decreaseOffset();
-		jabrefCommands = "\n" + line;
+		
+		// record the articles for the next run (unless they did not change at all)
+		if(incremental)
+		{	if(previousHashes!=null && previousHashes.equals(entryHashes))
+				logger.log("None of the "+entryHashes.size()+" article(s) changed since the previous run");
+			else
+				recordEntries();
+			previousHashes = null;
+			previousEntries = null;
+		}
+		
+		// get the JabRef commands
+		if(commentStart<0)
+			jabrefCommands = "";
+		else
+		{	BibtexTokenizer tokenizer = new BibtexTokenizer(buffer, commentStart, buffer.limit());
+			String commands = tokenizer.getText(commentStart, buffer.limit()).replace("\r\n", "\n");
+			if(commands.endsWith("\n"))
+				commands = commands.substring(0, commands.length()-1);
+			jabrefCommands = "\n" + commands;
+		}
 		
 		// update with the list of purely applicative articles
 		if(updateGroups)
-		{	logger.log("Mark the articles belonging to the \"applications\" Jabref group");
+		{	Scanner jrScanner = new Scanner(jabrefCommands);
+			String line;
+			logger.log("Mark the articles belonging to the \"applications\" Jabref group");
 			logger.increaseOffset();
 				do
-				{	line = jrScanner.nextLine();
-					jabrefCommands = jabrefCommands + "\n" + line;
-				}
+					line = jrScanner.nextLine();
 				while(!line.startsWith(APPLICATION_PREFIX));
 				String listStr = line.substring(APPLICATION_PREFIX.length());
 				do
 				{	line = jrScanner.nextLine();
 					listStr = listStr + line;
-					jabrefCommands = jabrefCommands + "\n" + line;
 				}
 				while(!line.endsWith(GROUP_END));
 				listStr = listStr.substring(0,listStr.length()-2);
 				String keys[] = listStr.split(KEY_SEPARATOR);
 				logger.log("Purely applicative articles:");
 				logger.increaseOffset();
-					count = 0;
+					int count = 0;
 					for(String key: keys)
 					{	count++;
 						String nkey = key.substring(0,key.length()-1);
@@ -289,15 +311,12 @@ if(count==1054)
 			logger.log("Mark the articles belonging to the \"ignored\" Jabref group");
 			logger.increaseOffset();
 				do
-				{	line = jrScanner.nextLine();
-					jabrefCommands = jabrefCommands + "\n" + line;
-				}
+					line = jrScanner.nextLine();
 				while(!line.startsWith(IGNORED_PREFIX));
 				listStr = line.substring(IGNORED_PREFIX.length());
 				do
 				{	line = jrScanner.nextLine();
 					listStr = listStr + line;
-					jabrefCommands = jabrefCommands + "\n" + line;
 				}
 				while(!line.endsWith(GROUP_END));
 				listStr = listStr.substring(0,listStr.length()-3);
@@ -314,85 +333,130 @@ if(count==1054)
 					}
 				logger.decreaseOffset();
 			logger.decreaseOffset();
+			jrScanner.close();
 		}
 		
-		// possibly finish reading the file
-		logger.log("Finish reading the file");
-		while(jrScanner.hasNextLine())
-		{	line = jrScanner.nextLine();
-			jabrefCommands = jabrefCommands + "\n" + line;
-		}
-		
-		jrScanner.close();
+		// the values are now shared by the articles
+		Article.clearValuePool();
 		logger.decreaseOffset();
 		logger.log("Finished loading the JabRef file");
 	}
 	
 	/**
-	 * Receives the first line of a BibTex entry,
-	 * and a scanner pointing on the second line,
-	 * and builds the corresponding map, which can
+	 * Reads the BibTex entries of the specified buffer, and
+	 * adds the corresponding articles to the corpus.
+	 * 
+	 * @param buffer
+	 * 		Buffer containing the JabRef file.
+	 * @return
+	 * 		Position of the JabRef commands in the buffer, or {@code -1} if none.
+	 */
+	private int retrieveArticles(MappedByteBuffer buffer)
+	{	BibtexTokenizer tokenizer = new BibtexTokenizer(buffer, 0, buffer.limit());
+		int count = 0;
+		while(tokenizer.nextEntry())
+		{	count++;
+			// parse the BibTex entry, or reuse the previous article
+			if(incremental)
+			{	ParsedEntry entry = readEntry(buffer, tokenizer);
+				registerEntry(entry, count);
+			}
+			else
+			{	logger.log("Process article #"+count);
+				// parse the BibTex entry
+				Map<String,String> data = retrieveArticleMap(tokenizer);
+				// build the article object (automatic insertion in the maps)
+				Article article = buildArticle(data);
+				// display for verification
+				logger.log("Resulting article: " + article);
+			}
+		}
+		logger.log("Number of article retrieved from the file: "+count);
+		
+		int result = tokenizer.getCommentStart();
+		return result;
+	}
+	
+	/**
+	 * Reads the BibTex entries of the specified buffer concurrently,
+	 * and adds the corresponding articles to the corpus. The buffer
+	 * is split into chunks at entry boundaries, and the chunks are parsed
+	 * in parallel (entry maps and article objects). The articles are then
+	 * added to the corpus in the order of the file, which allows detecting
+	 * duplicate keys and reporting errors exactly as {@link #retrieveArticles(MappedByteBuffer)}.
+	 * 
+	 * @param buffer
+	 * 		Buffer containing the JabRef file.
+	 * @return
+	 * 		Position of the JabRef commands in the buffer, or {@code -1} if none.
+	 */
+	private int retrieveArticlesConcurrently(MappedByteBuffer buffer)
+	{	// split the file
+		BibtexTokenizer tokenizer = new BibtexTokenizer(buffer, 0, buffer.limit());
+		int[] bounds = tokenizer.findChunkBounds(CHUNK_SIZE);
+		logger.log("Parse the "+(bounds.length-1)+" chunks of the file using "+threadNumber+" threads");
+		
+		// parse the chunks
+		ForkJoinPool pool = new ForkJoinPool(threadNumber);
+		List<ParsedChunk> chunks = pool.invoke(new ChunkTask(buffer, bounds, 0, bounds.length-1));
+		pool.shutdown();
+		
+		// merge the results
+		int result = -1;
+		int count = 0;
+		Iterator<ParsedChunk> it = chunks.iterator();
+		while(result<0 && it.hasNext())
+		{	ParsedChunk chunk = it.next();
+			for(ParsedEntry entry: chunk.entries)
+			{	count++;
+				registerEntry(entry, count);
+			}
+			result = chunk.commentStart;
+		}
+		logger.log("Number of article retrieved from the file: "+count);
+		
+		return result;
+	}
+	
+	/**
+	 * Receives a tokenizer positioned at the beginning of a
+	 * BibTex entry, and builds the corresponding map, which can
 	 * subsequently be used to build an {@link Article}
-	 * object.
+	 * object. Only the values of the fields used by
+	 * {@link #buildArticle(Map)} are decoded.
 	 * 
-	 * @param line
-	 * 		First line of the BibTex entry.
-	 * @param scanner
-	 * 		Scanner pointing on the rest of the entry.
+	 * @param tokenizer
+	 * 		Tokenizer pointing on the entry.
 	 * @return
 	 * 		Map containing the entry data.
 	 */
-	private Map<String, String> retrieveArticleMap(String line, Scanner scanner)
+	private Map<String, String> retrieveArticleMap(BibtexTokenizer tokenizer)
 	{	// init map
 		Map<String, String> result = new HashMap<String, String>();
 		
 		// entry type
-		int start = line.indexOf('@') + 1;
-		int end = line.indexOf('{');
-		String source = line.substring(start,end);
+		String source = tokenizer.getEntryType();
 		result.put(FLD_SOURCE, source);
 		
 		// bibtex key
-		start = line.indexOf('{') + 1;
-		end = line.length() - 1;
-		String bibtexkey = line.substring(start, end);
+		String bibtexkey = tokenizer.getEntryKey();
 		result.put(FLD_KEY, bibtexkey);
 		
 		// rest of the fields
-		do
-		{	// get the first line for this field
-			line = scanner.nextLine();
-			
-			if(!line.equals(ENTRY_END))
-			{	// retrieve the name of the field
-				int pos = line.indexOf('=');
-				String fieldName = line.substring(0,pos-1).trim();
-				if(fieldName.startsWith("_") && !fieldName.startsWith("__"))
-					fieldName = fieldName.substring(1);
-				if(!ALL_FIELDS.contains(fieldName))
-					throw new IllegalArgumentException("Unknown Bibtex field \""+fieldName+"\" in line \""+line+"\"");
-				// retrieve the associated value
-				String fieldValue = null;
-				if(line.endsWith(FIELD_END))
-					fieldValue = line.substring(pos+3,line.length()-FIELD_END.length()).trim();
-				else if(line.endsWith("}"))
-					fieldValue = line.substring(pos+3,line.length()-1).trim();
-				else
-				{	fieldValue = line.substring(pos+3).trim();
-					do
-					{	line = scanner.nextLine();
-						if(line.endsWith(FIELD_END))
-							fieldValue = fieldValue + " " + line.substring(0,line.length()-FIELD_END.length()).trim();
-						else
-							fieldValue = fieldValue + " " + line.trim();
-					}
-					while(!line.endsWith(FIELD_END));
-				}
+		while(tokenizer.nextField())
+		{	// retrieve the name of the field
+			String fieldName = tokenizer.getFieldName();
+			if(fieldName.startsWith("_") && !fieldName.startsWith("__"))
+				fieldName = fieldName.substring(1);
+			if(!ALL_FIELDS.contains(fieldName))
+				throw new IllegalArgumentException("Unknown Bibtex field \""+fieldName+"\" in entry \""+bibtexkey+"\"");
+			// retrieve the associated value
+			if(USED_FIELDS.contains(fieldName))
+			{	String fieldValue = tokenizer.getFieldValue();
 				// insert in the map
 				result.put(fieldName, fieldValue);
 			}
 		}
-		while(!line.equals(ENTRY_END));
 		
 		return result;
 	}
@@ -409,12 +473,77 @@ if(count==1054)
 	 * 		The new article instance.
 	 */
 	private Article buildArticle(Map<String,String> data)
+	{	// check the BibTex key
+		checkKey(data);
+		
+		// build and register the article
+		List<Author> authors = new ArrayList<Author>();
+		Article result = createArticle(data, authors);
+		registerArticle(result, authors);
+		return result;
+	}
+	
+	/**
+	 * Checks the BibTex key of the specified entry is
+	 * not already used in the corpus.
+	 * 
+	 * @param data
+	 * 		Map containing the entry data.
+	 */
+	private void checkKey(Map<String,String> data)
+	{	String bibtexKey = data.get(FLD_KEY);
+		checkKey(bibtexKey, data);
+	}
+	
+	/**
+	 * Checks the specified Bibtex key is not already 
+	 * used in the corpus.
+	 * 
+	 * @param bibtexKey
+	 * 		Bibtex key of the entry.
+	 * @param entry
+	 * 		Content of the entry, displayed in the error message.
+	 */
+	private void checkKey(String bibtexKey, Object entry)
+	{	if(corpus.containsKey(bibtexKey))
+			throw new IllegalArgumentException("The corpus already contains the Bibtex key "+bibtexKey+" ("+entry+")");
+	}
+	
+	/**
+	 * Adds the specified article to the corpus, after having
+	 * replaced its authors by those already in the corpus, if any.
+	 * 
+	 * @param article
+	 * 		Article built by {@link #createArticle(Map, List)}.
+	 * @param authors
+	 * 		Authors of the article, as read in the entry.
+	 */
+	private void registerArticle(Article article, List<Author> authors)
+	{	for(Author author: authors)
+		{	Author known = corpus.retrieveAuthor(author);
+			article.addAuthor(known);
+		}
+		corpus.addArticle(article);
+	}
+	
+	/**
+	 * Builds the Article object from a {@code Map}, without 
+	 * accessing the corpus: its authors are put in the specified
+	 * list instead of being added to the article. This method can
+	 * therefore be applied concurrently to several entries. 
+	 * 
+	 * @param data
+	 * 		Map containing the needed data.
+	 * @param authors
+	 * 		List to complete with the authors of the article.
+	 * @return 
+	 * 		The new article instance.
+	 */
+	private Article createArticle(Map<String,String> data, List<Author> authors)
 	{	Article result = new Article();
 		
 		// init BibTex key
 		result.bibtexKey = data.get(FLD_KEY);
-		if(corpus.containsKey(result.bibtexKey))
-			throw new IllegalArgumentException("The corpus already contains the Bibtex key "+result.bibtexKey+" ("+data+")");
 		
 		// init source type
 		String typeSrc = data.get(FLD_SOURCE);
@@ -506,8 +635,7 @@ if(count==1054)
 			if(matcher.find())
 				throw new IllegalArgumentException("Probably a dot/space problem in "+authorStr);
 			Author author = new Author(authorStr);
-			author = corpus.retrieveAuthor(author);
-			result.addAuthor(author);
+			authors.add(author);
 		}
 		
 		// init title
@@ -515,30 +643,31 @@ if(count==1054)
 		result.setTitle(title);
 		
 		// init journal
-		result.journal = data.get(FLD_JOURNAL1);
-		if(result.journal==null)
-			result.journal = data.get(FLD_JOURNAL2);
+		String journal = data.get(FLD_JOURNAL1);
+		if(journal==null)
+			journal = data.get(FLD_JOURNAL2);
+		result.setField(ArticleField.JOURNAL, journal);
 		
 		// init publisher
-		result.publisher = data.get(FLD_PUBLISHER);
+		result.setField(ArticleField.PUBLISHER, data.get(FLD_PUBLISHER));
 		
 		// init book title
-		result.booktitle = data.get(FLD_TITLE_BOOK);
+		result.setField(ArticleField.BOOKTITLE, data.get(FLD_TITLE_BOOK));
 		
 		// init month
-		result.month = data.get(FLD_MONTH);
+		result.setField(ArticleField.MONTH, data.get(FLD_MONTH));
 		
 		// init howpublished
-		result.howpublished = data.get(FLD_HOWPUB);
+		result.setField(ArticleField.HOWPUBLISHED, data.get(FLD_HOWPUB));
 		
 		// init organization
-		result.organization = data.get(FLD_ORGANIZATION);
+		result.setField(ArticleField.ORGANIZATION, data.get(FLD_ORGANIZATION));
 		
 		// init institution
-		result.institution = data.get(FLD_INSTITUTION);
+		result.setField(ArticleField.INSTITUTION, data.get(FLD_INSTITUTION));
 		
 		// init school
-		result.school = data.get(FLD_SCHOOL);
+		result.setField(ArticleField.SCHOOL, data.get(FLD_SCHOOL));
 		
 		// init volume
 		result.volume = data.get(FLD_VOLUME);
@@ -557,7 +686,7 @@ if(count==1054)
 		
 		// init year
 		String year = data.get(FLD_YEAR);
-		result.year = year.trim();
+		result.year = Article.internValue(year.trim());
 		
 		// init doi
 		String doi = data.get(FLD_DOI);
@@ -567,80 +696,380 @@ if(count==1054)
 		// abstract
 		String abstrct = data.get(FLD_ABSTRACT);
 		if(abstrct!=null)
-			result.abstrct = abstrct.trim();
+			result.setField(ArticleField.ABSTRACT, abstrct.trim());
 		
 		// chapter
 		String chapter = data.get(FLD_CHAPTER);
 		if(chapter!=null)
-			result.chapter = chapter.trim();
+			result.setField(ArticleField.CHAPTER, chapter.trim());
 		
 		// file
 		String file = data.get(FLD_FILE);
 		if(file!=null)
-			result.file = file.trim();
+			result.setField(ArticleField.FILE, file.trim());
 		
 		// owner
 		String owner = data.get(FLD_OWNER);
 		if(owner!=null)
-			result.owner = owner.trim();
+			result.setField(ArticleField.OWNER, owner.trim());
 		
 		// timestamp
 		String timestamp = data.get(FLD_TIMESTAMP);
 		if(timestamp!=null)
-			result.timestamp = timestamp.trim();
+			result.setField(ArticleField.TIMESTAMP, timestamp.trim());
 		
 		// url
 		String url = data.get(FLD_URL);
 		if(url!=null)
-			result.url = url.trim();
+			result.setField(ArticleField.URL, url.trim());
 		
 		// series
 		String series = data.get(FLD_SERIES);
 		if(series!=null)
-			result.series = series.trim();
+			result.setField(ArticleField.SERIES, series.trim());
 		
 		// series
 		String editor = data.get(FLD_EDITOR);
 		if(editor!=null)
-			result.editor = editor.trim();
+			result.setField(ArticleField.EDITOR, editor.trim());
 		
 		// review
 		String review = data.get(FLD_REVIEW);
 		if(review!=null)
-			result.review = review.trim();
+			result.setField(ArticleField.REVIEW, review.trim());
 		
 		// address
 		String address = data.get(FLD_ADDRESS);
 		if(address!=null)
-			result.address = address.trim();
+			result.setField(ArticleField.ADDRESS, address.trim());
 		
 		// type
 		String type = data.get(FLD_TYPE);
 		if(type!=null)
-			result.type = type.trim();
+			result.setField(ArticleField.TYPE, type.trim());
 		
 		// sortkey
 		String sortkey = data.get(FLD_SORTKEY);
 		if(sortkey!=null)
-			result.sortkey = sortkey.trim();
+			result.setField(ArticleField.SORTKEY, sortkey.trim());
 		
 		// edition
 		String edition = data.get(FLD_EDITION);
 		if(edition!=null)
-			result.edition = edition.trim();
+			result.setField(ArticleField.EDITION, edition.trim());
 		
 		// groups
 		String groups = data.get(FLD_GROUPS);
 		if(groups!=null)
-			result.groups = groups.trim();
+			result.setField(ArticleField.GROUPS, groups.trim());
 		
 		// present
 		result.present = true;
 		
-		corpus.addArticle(result);
 		return result;
 	}
 
+	/////////////////////////////////////////////////////////////////
+	// INCREMENTAL		/////////////////////////////////////////////
+	/////////////////////////////////////////////////////////////////
+	/** Whether the articles of the previous run should be reused for the unchanged entries */
+	private boolean incremental = false;
+	/** Hashes of the entries read during the previous run, indexed by Bibtex key */
+	private Map<String,String> previousHashes = null;
+	/** Articles built during the previous run */
+	private Corpus previousEntries = null;
+	/** Hashes of the entries of the current file, indexed by Bibtex key, in the order of the file */
+	private final Map<String,String> entryHashes = new LinkedHashMap<String,String>();
+	/** Bibtex keys of the articles reused from the previous run */
+	private final Set<String> reusedKeys = new HashSet<String>();
+	
+	/**
+	 * Enables or disables the incremental mode. In this mode, the hash 
+	 * of each entry is compared to that recorded during the previous 
+	 * run, and the entry is parsed only if it changed. Otherwise, the
+	 * article built during the previous run is reused. The articles and
+	 * hashes are recorded in the output folder, for the next run.
+	 * 
+	 * @param incremental
+	 * 		{@code true} to enable the incremental mode.
+	 */
+	public void setIncremental(boolean incremental)
+	{	this.incremental = incremental;
+	}
+	
+	/**
+	 * Returns the Bibtex keys of the articles which were reused
+	 * from the previous run during the last loading, i.e. whose
+	 * entry did not change since then.
+	 * 
+	 * @return
+	 * 		Set of Bibtex keys (empty if not in incremental mode).
+	 */
+	public Set<String> getReusedKeys()
+	{	return reusedKeys;
+	}
+	
+	/**
+	 * Loads the articles and hashes recorded during the previous run,
+	 * if any. They are ignored if they were not recorded together.
+	 * 
+	 * @throws IOException
+	 * 		Problem while accessing the files.
+	 */
+	private void loadPreviousEntries() throws IOException
+	{	entryHashes.clear();
+		reusedKeys.clear();
+		previousHashes = null;
+		previousEntries = null;
+		File manifestFile = new File(FileNames.FI_ENTRIES_MANIFEST);
+		if(manifestFile.exists())
+		{	String key = FileTools.hashFiles(FileNames.FI_ENTRIES_MANIFEST);
+			previousEntries = Corpus.readFromBinary(new File(FileNames.FI_ENTRIES_CACHE), key);
+			if(previousEntries!=null)
+			{	previousHashes = new HashMap<String,String>();
+				Scanner sc = FileTools.openTextFileRead(manifestFile, "UTF-8");
+				while(sc.hasNextLine())
+				{	String line = sc.nextLine();
+					String tmp[] = line.split("\t");
+					previousHashes.put(tmp[0], tmp[1]);
+				}
+				sc.close();
+			}
+		}
+		if(previousEntries==null)
+			logger.log("No usable articles from a previous run: parsing all the entries");
+		else
+			logger.log("Retrieved "+previousHashes.size()+" article(s) from the previous run");
+	}
+	
+	/**
+	 * Records the hashes of the entries of the current file and the 
+	 * corresponding articles, so that they can be reused during the
+	 * next run. The articles file is keyed with the hash of the manifest,
+	 * so that they are always used together.
+	 * 
+	 * @throws IOException
+	 * 		Problem while recording the files.
+	 */
+	private void recordEntries() throws IOException
+	{	logger.log("Recording the "+entryHashes.size()+" article(s) for the next run ("+reusedKeys.size()+" reused from the previous one)");
+		PrintWriter pw = FileTools.openTextFileWrite(FileNames.FI_ENTRIES_MANIFEST, "UTF-8");
+		for(Entry<String,String> entry: entryHashes.entrySet())
+			pw.println(entry.getKey()+"\t"+entry.getValue());
+		pw.close();
+		String key = FileTools.hashFiles(FileNames.FI_ENTRIES_MANIFEST);
+		corpus.writeToBinary(new File(FileNames.FI_ENTRIES_CACHE), key);
+	}
+	
+	/**
+	 * Reads the current entry of the tokenizer. In incremental mode, the
+	 * entry is hashed, and the article of the previous run is reused if the 
+	 * entry did not change. Otherwise, the entry is parsed. The corpus is not
+	 * modified, so this method can be applied concurrently to several entries. 
+	 * The errors are not thrown, but recorded in the result. 
+	 * 
+	 * @param buffer
+	 * 		Buffer containing the JabRef file.
+	 * @param tokenizer
+	 * 		Tokenizer pointing on the entry.
+	 * @return
+	 * 		The parsed entry.
+	 */
+	private ParsedEntry readEntry(ByteBuffer buffer, BibtexTokenizer tokenizer)
+	{	ParsedEntry result = new ParsedEntry();
+		result.key = tokenizer.getEntryKey();
+		try
+		{	BibtexTokenizer entryTokenizer = tokenizer;
+			if(incremental)
+			{	int start = tokenizer.getEntryStart();
+				int end = tokenizer.skipEntry();
+				result.hash = tokenizer.hashText(start, end);
+				if(previousHashes!=null && result.hash.equals(previousHashes.get(result.key)))
+				{	Article previous = previousEntries.getArticleByBibkey(result.key);
+					if(previous!=null)
+					{	result.article = previous;
+						result.authors.addAll(previous.getAuthors());
+						result.reused = true;
+					}
+				}
+				// the entry must be parsed again from its beginning
+				if(!result.reused)
+				{	entryTokenizer = new BibtexTokenizer(buffer, start, end);
+					entryTokenizer.nextEntry();
+				}
+			}
+			if(!result.reused)
+			{	result.data = retrieveArticleMap(entryTokenizer);
+				result.article = createArticle(result.data, result.authors);
+			}
+		}
+		catch(RuntimeException e)
+		{	result.error = e;
+		}
+		return result;
+	}
+	
+	/**
+	 * Adds the article of the specified entry to the corpus, or throws
+	 * the error which occurred while reading it. The errors are thrown
+	 * in the same order as when the entries are processed one by one.
+	 * The articles reused from the previous run are not logged individually.
+	 * 
+	 * @param entry
+	 * 		Entry read by {@link #readEntry(ByteBuffer, BibtexTokenizer)}.
+	 * @param count
+	 * 		Number of the entry in the file.
+	 */
+	private void registerEntry(ParsedEntry entry, int count)
+	{	if(!entry.reused)
+			logger.log("Process article #"+count);
+		if(entry.data==null && !entry.reused)
+			throw entry.error;
+		if(entry.reused)
+			checkKey(entry.key, entry.article);
+		else
+			checkKey(entry.data);
+		if(entry.error!=null)
+			throw entry.error;
+		if(entry.reused)
+			entry.article.getAuthors().clear();	// the authors are replaced by those of the current corpus
+		registerArticle(entry.article, entry.authors);
+		if(entry.hash!=null)
+			entryHashes.put(entry.key, entry.hash);
+		if(entry.reused)
+			reusedKeys.add(entry.key);
+		else
+			logger.log("Resulting article: " + entry.article);
+	}
+	
+	/////////////////////////////////////////////////////////////////
+	// PARALLELISM		/////////////////////////////////////////////
+	/////////////////////////////////////////////////////////////////
+	/** Number of threads used to parse the JabRef file */
+	private int threadNumber = 1;
+	/** Approximate size of the chunks parsed concurrently (in bytes) */
+	private final static int CHUNK_SIZE = 1 << 16;
+	
+	/**
+	 * Changes the number of threads used to parse the JabRef file.
+	 * With a single thread, the file is parsed sequentially.
+	 * 
+	 * @param threadNumber
+	 * 		Number of threads.
+	 */
+	public void setThreadNumber(int threadNumber)
+	{	if(threadNumber<1)
+			throw new IllegalArgumentException("The number of threads must be positive ("+threadNumber+")");
+		this.threadNumber = threadNumber;
+	}
+	
+	/**
+	 * Result of the parsing of a BibTex entry: either the
+	 * article and its authors, or the error which occurred.
+	 */
+	private static class ParsedEntry
+	{	/** Bibtex key of the entry */
+		String key = null;
+		/** Hash of the text of the entry (only in incremental mode) */
+		String hash = null;
+		/** Whether the article was reused from the previous run, instead of being parsed */
+		boolean reused = false;
+		/** Data read in the entry ({@code null} if the entry could not be read, or was not parsed) */
+		Map<String,String> data = null;
+		/** Article built from the data */
+		Article article = null;
+		/** Authors of the article, not yet registered in the corpus */
+		List<Author> authors = new ArrayList<Author>();
+		/** Error which occurred while processing the entry */
+		RuntimeException error = null;
+	}
+	
+	/**
+	 * Result of the parsing of a chunk of the JabRef file.
+	 */
+	private static class ParsedChunk
+	{	/** Entries of the chunk, in order */
+		List<ParsedEntry> entries = new ArrayList<ParsedEntry>();
+		/** Position of the JabRef commands, if they start in this chunk (otherwise {@code -1}) */
+		int commentStart = -1;
+	}
+	
+	/**
+	 * Task parsing a range of chunks of the JabRef file.
+	 * Ranges containing several chunks are split into two
+	 * halves processed in parallel. The result is the list
+	 * of parsed chunks, in the order of the file.
+	 */
+	@SuppressWarnings("serial")
+	private class ChunkTask extends RecursiveTask<List<ParsedChunk>>
+	{	
+		/**
+		 * Builds a task for the specified range of chunks.
+		 * 
+		 * @param buffer
+		 * 		Buffer containing the JabRef file.
+		 * @param bounds
+		 * 		Positions of the chunk beginnings, followed by the end of the file.
+		 * @param from
+		 * 		First chunk of the range (included).
+		 * @param to
+		 * 		Last chunk of the range (excluded).
+		 */
+		public ChunkTask(ByteBuffer buffer, int[] bounds, int from, int to)
+		{	this.buffer = buffer;
+			this.bounds = bounds;
+			this.from = from;
+			this.to = to;
+		}
+		
+		/** Buffer containing the JabRef file */
+		private ByteBuffer buffer;
+		/** Positions of the chunk beginnings, followed by the end of the file */
+		private int[] bounds;
+		/** First chunk of the range (included) */
+		private int from;
+		/** Last chunk of the range (excluded) */
+		private int to;
+		
+		@Override
+		protected List<ParsedChunk> compute()
+		{	List<ParsedChunk> result;
+			if(to-from==1)
+			{	result = new ArrayList<ParsedChunk>();
+				result.add(parseChunk());
+			}
+			else
+			{	int middle = (from + to) / 2;
+				ChunkTask left = new ChunkTask(buffer, bounds, from, middle);
+				ChunkTask right = new ChunkTask(buffer, bounds, middle, to);
+				left.fork();
+				result = new ArrayList<ParsedChunk>(right.compute());
+				result.addAll(0, left.join());
+			}
+			return result;
+		}
+		
+		/**
+		 * Parses the single chunk of the range. The parsing stops
+		 * at the first error, which is recorded with the entry.
+		 * 
+		 * @return
+		 * 		The parsed chunk.
+		 */
+		private ParsedChunk parseChunk()
+		{	ParsedChunk result = new ParsedChunk();
+			BibtexTokenizer tokenizer = new BibtexTokenizer(buffer, bounds[from], bounds[to]);
+			boolean goOn = true;
+			while(goOn && tokenizer.nextEntry())
+			{	ParsedEntry entry = readEntry(buffer, tokenizer);
+				result.entries.add(entry);
+				goOn = entry.error==null;
+			}
+			result.commentStart = tokenizer.getCommentStart();
+			return result;
+		}
+	}
+	
 	/////////////////////////////////////////////////////////////////
 	// WRITING			/////////////////////////////////////////////
 	/////////////////////////////////////////////////////////////////
@@ -759,8 +1188,9 @@ if(count==1054)
 			pw.println("  "+FLD_YEAR+FIELD_BEGINNING+article.year+FIELD_END);
 		
 		// journal
-		if(article.journal!=null)
-			pw.println("  "+FLD_JOURNAL1+FIELD_BEGINNING+article.journal+FIELD_END);
+		String journal = article.getField(ArticleField.JOURNAL);
+		if(journal!=null)
+			pw.println("  "+FLD_JOURNAL1+FIELD_BEGINNING+journal+FIELD_END);
 		
 		// volume
 		if(article.volume!=null)
@@ -775,92 +1205,113 @@ if(count==1054)
 			pw.println("  "+FLD_PAGES+FIELD_BEGINNING+article.page+FIELD_END);
 		
 		// editor
-		if(article.editor!=null)
-			pw.println("  "+FLD_EDITOR+FIELD_BEGINNING+article.editor+FIELD_END);
+		String editor = article.getField(ArticleField.EDITOR);
+		if(editor!=null)
+			pw.println("  "+FLD_EDITOR+FIELD_BEGINNING+editor+FIELD_END);
 		
 		// edition
-		if(article.edition!=null)
-			pw.println("  "+FLD_EDITION+FIELD_BEGINNING+article.edition+FIELD_END);
+		String edition = article.getField(ArticleField.EDITION);
+		if(edition!=null)
+			pw.println("  "+FLD_EDITION+FIELD_BEGINNING+edition+FIELD_END);
 		
 		// series
-		if(article.series!=null)
-			pw.println("  "+FLD_SERIES+FIELD_BEGINNING+article.series+FIELD_END);
+		String series = article.getField(ArticleField.SERIES);
+		if(series!=null)
+			pw.println("  "+FLD_SERIES+FIELD_BEGINNING+series+FIELD_END);
 		
 		// chapter
-		if(article.chapter!=null)
-			pw.println("  "+FLD_CHAPTER+FIELD_BEGINNING+article.chapter+FIELD_END);
+		String chapter = article.getField(ArticleField.CHAPTER);
+		if(chapter!=null)
+			pw.println("  "+FLD_CHAPTER+FIELD_BEGINNING+chapter+FIELD_END);
 		
 		// institution
-		if(article.institution!=null)
-			pw.println("  "+FLD_INSTITUTION+FIELD_BEGINNING+article.institution+FIELD_END);
+		String institution = article.getField(ArticleField.INSTITUTION);
+		if(institution!=null)
+			pw.println("  "+FLD_INSTITUTION+FIELD_BEGINNING+institution+FIELD_END);
 		
 		// school
-		if(article.school!=null)
-			pw.println("  "+FLD_SCHOOL+FIELD_BEGINNING+article.school+FIELD_END);
+		String school = article.getField(ArticleField.SCHOOL);
+		if(school!=null)
+			pw.println("  "+FLD_SCHOOL+FIELD_BEGINNING+school+FIELD_END);
 		
 		// booktitle
-		if(article.booktitle!=null)
-			pw.println("  "+FLD_TITLE_BOOK+FIELD_BEGINNING+article.booktitle+FIELD_END);
+		String booktitle = article.getField(ArticleField.BOOKTITLE);
+		if(booktitle!=null)
+			pw.println("  "+FLD_TITLE_BOOK+FIELD_BEGINNING+booktitle+FIELD_END);
 		
 		// publisher
-		if(article.publisher!=null)
-			pw.println("  "+FLD_PUBLISHER+FIELD_BEGINNING+article.publisher+FIELD_END);
+		String publisher = article.getField(ArticleField.PUBLISHER);
+		if(publisher!=null)
+			pw.println("  "+FLD_PUBLISHER+FIELD_BEGINNING+publisher+FIELD_END);
 		
 		// address
-		if(article.address!=null)
-			pw.println("  "+FLD_ADDRESS+FIELD_BEGINNING+article.address+FIELD_END);
+		String address = article.getField(ArticleField.ADDRESS);
+		if(address!=null)
+			pw.println("  "+FLD_ADDRESS+FIELD_BEGINNING+address+FIELD_END);
 		
 		// type
-		if(article.type!=null)
-			pw.println("  "+FLD_TYPE+FIELD_BEGINNING+article.type+FIELD_END);
+		String type = article.getField(ArticleField.TYPE);
+		if(type!=null)
+			pw.println("  "+FLD_TYPE+FIELD_BEGINNING+type+FIELD_END);
 		
 		// month
-		if(article.month!=null)
-			pw.println("  "+FLD_MONTH+FIELD_BEGINNING+article.month+FIELD_END);
+		String month = article.getField(ArticleField.MONTH);
+		if(month!=null)
+			pw.println("  "+FLD_MONTH+FIELD_BEGINNING+month+FIELD_END);
 		
 		// organization
-		if(article.organization!=null)
-			pw.println("  "+FLD_ORGANIZATION+FIELD_BEGINNING+article.organization+FIELD_END);
+		String organization = article.getField(ArticleField.ORGANIZATION);
+		if(organization!=null)
+			pw.println("  "+FLD_ORGANIZATION+FIELD_BEGINNING+organization+FIELD_END);
 		
 		// howpublished
-		if(article.howpublished!=null)
-			pw.println("  "+FLD_HOWPUB+FIELD_BEGINNING+article.howpublished+FIELD_END);
+		String howpublished = article.getField(ArticleField.HOWPUBLISHED);
+		if(howpublished!=null)
+			pw.println("  "+FLD_HOWPUB+FIELD_BEGINNING+howpublished+FIELD_END);
 		
 		// doi
 		if(article.doi!=null)
 			pw.println("  "+FLD_DOI+FIELD_BEGINNING+article.doi+FIELD_END);
 		
 		// file
-		if(article.file!=null)
-			pw.println("  "+FLD_FILE+FIELD_BEGINNING+article.file+FIELD_END);
+		String file = article.getField(ArticleField.FILE);
+		if(file!=null)
+			pw.println("  "+FLD_FILE+FIELD_BEGINNING+file+FIELD_END);
 		
 		// abstract
-		if(article.abstrct!=null)
-			pw.println("  "+FLD_ABSTRACT+FIELD_BEGINNING+article.abstrct+FIELD_END);
+		String abstrct = article.getField(ArticleField.ABSTRACT);
+		if(abstrct!=null)
+			pw.println("  "+FLD_ABSTRACT+FIELD_BEGINNING+abstrct+FIELD_END);
 		
 		// owner
-		if(article.owner!=null)
-			pw.println("  "+FLD_OWNER+FIELD_BEGINNING+article.owner+FIELD_END);
+		String owner = article.getField(ArticleField.OWNER);
+		if(owner!=null)
+			pw.println("  "+FLD_OWNER+FIELD_BEGINNING+owner+FIELD_END);
 		
 		// timestamp
-		if(article.timestamp!=null)
-			pw.println("  "+FLD_TIMESTAMP+FIELD_BEGINNING+article.timestamp+FIELD_END);
+		String timestamp = article.getField(ArticleField.TIMESTAMP);
+		if(timestamp!=null)
+			pw.println("  "+FLD_TIMESTAMP+FIELD_BEGINNING+timestamp+FIELD_END);
 		
 		// url
-		if(article.url!=null)
-			pw.println("  "+FLD_URL+FIELD_BEGINNING+article.url+FIELD_END);
+		String url = article.getField(ArticleField.URL);
+		if(url!=null)
+			pw.println("  "+FLD_URL+FIELD_BEGINNING+url+FIELD_END);
 		
 		// review
-		if(article.review!=null)
-			pw.println("  "+FLD_REVIEW+FIELD_BEGINNING+article.review+FIELD_END);
+		String review = article.getField(ArticleField.REVIEW);
+		if(review!=null)
+			pw.println("  "+FLD_REVIEW+FIELD_BEGINNING+review+FIELD_END);
 		
 		// groups
-		if(article.groups!=null)
-			pw.println("  "+FLD_GROUPS+FIELD_BEGINNING+article.groups+FIELD_END);
+		String groups = article.getField(ArticleField.GROUPS);
+		if(groups!=null)
+			pw.println("  "+FLD_GROUPS+FIELD_BEGINNING+groups+FIELD_END);
 		
 		// sortkey
-		if(article.sortkey!=null)
-			pw.println("  "+FLD_SORTKEY+FIELD_BEGINNING+article.sortkey+FIELD_END);
+		String sortkey = article.getField(ArticleField.SORTKEY);
+		if(sortkey!=null)
+			pw.println("  "+FLD_SORTKEY+FIELD_BEGINNING+sortkey+FIELD_END);
 		
 		pw.println(ENTRY_END);
 		pw.println();
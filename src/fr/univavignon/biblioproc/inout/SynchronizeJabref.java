@@ -20,8 +20,7 @@ package fr.univavignon.biblioproc.inout;
  * along with Biblio Process.  If not, see <http://www.gnu.org/licenses/>.
  */
 
-import java.io.FileNotFoundException;
-import java.io.UnsupportedEncodingException;
+import java.io.IOException;
 import java.util.Collection;
 
 import fr.univavignon.biblioproc.data.biblio.Article;
@@ -58,12 +57,10 @@ public class SynchronizeJabref
 	 * @param selectionFile
 	 * 		Smaller file, also supposedly obsolete.
 	 * 
-	 * @throws FileNotFoundException
-	 * 		Problem while accessing one of the files.
-	 * @throws UnsupportedEncodingException
+	 * @throws IOException
 	 * 		Problem while accessing one of the files.
 	 */
-	private static void synchronize(String originalFile, String selectionFile) throws FileNotFoundException, UnsupportedEncodingException
+	private static void synchronize(String originalFile, String selectionFile) throws IOException
 	{	// load the larger file
 		JabrefFileHandler jfhOrig = new JabrefFileHandler();
 		boolean updateGroups = false;
@@ -104,12 +101,10 @@ public class SynchronizeJabref
 	 * 
 	 * @param args
 	 * 		Not used.
-	 * @throws FileNotFoundException
-	 * 		Problem while accessing the files.
-	 * @throws UnsupportedEncodingException 
+	 * @throws IOException
 	 * 		Problem while accessing the files.
 	 */
-	public static void main(String[] args) throws FileNotFoundException, UnsupportedEncodingException
+	public static void main(String[] args) throws IOException
 	{	synchronize(FileNames.FI_BIBTEX_COMPLETE, FileNames.FI_BIBTEX_REVIEW);
 	}
 }
@@ -66,10 +66,22 @@ public class FileNames extends fr.univavignon.tools.file.FileNames
 	public static final String FI_ISI_ALL_SIGNETS = FO_ISI + File.separator + "signets_savedrecs" + EX_ISI;
 	/** Journal/conference short names */
 	public static final String FI_ISI_NAMES = FO_ISI + File.separator + "short_names" + EX_TEXT;
+	/** Journal/conference short names learned since the last update of the short names file */
+	public static final String FI_ISI_NAMES_JOURNAL = FO_ISI + File.separator + "short_names_journal" + EX_TEXT;
 	/** Error fixes */
 	public static final String FI_ISI_FIXES = FO_ISI + File.separator + "error_fixes" + EX_TEXT;
 	/** Ignored references */
 	public static final String FI_ISI_IGNORED = FO_ISI + File.separator + "ignored_refs" + EX_TEXT;
 	/** Manually completed references */
 	public static final String FI_ISI_COMPLETED = FO_ISI + File.separator + "additional_refs" + EX_TEXT;
+	/** Binary snapshot of the last loaded corpus */
+	public static final String FI_CORPUS_SNAPSHOT = FO_OUTPUT + File.separator + "corpus" + EX_BIN;
+	/** Hashes of the JabRef entries read during the last run (incremental mode) */
+	public static final String FI_ENTRIES_MANIFEST = FO_OUTPUT + File.separator + "entries_manifest" + EX_TEXT;
+	/** Articles built from the JabRef entries during the last run (incremental mode) */
+	public static final String FI_ENTRIES_CACHE = FO_OUTPUT + File.separator + "entries" + EX_BIN;
+	/** ISI records and references resolved during the last run (incremental mode) */
+	public static final String FI_RESOLUTIONS_MANIFEST = FO_OUTPUT + File.separator + "resolutions_manifest" + EX_TEXT;
+	/** ISI records and references which could not be resolved during the last run */
+	public static final String FI_UNRESOLVED_REPORT = FO_OUTPUT + File.separator + "unresolved_refs" + EX_TEXT;
 }
@@ -29,7 +29,15 @@ import java.io.InputStreamReader;
 import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
 import java.io.UnsupportedEncodingException;
+import java.net.URISyntaxException;
 import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.charset.StandardCharsets;
+import java.security.CodeSource;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -268,6 +276,31 @@ public class FileTools
 		PrintWriter result = new PrintWriter(osw);
 		return result;
 	}
+	
+	/**
+	 * Open the file at the specified path, for appending
+	 * text at its end. The file is created if it does not
+	 * exist.
+	 * 
+	 * @param filePath
+	 * 		File to open.
+	 * @param encoding
+	 * 		Encoding of the text file, generally {@code "UTF-8"} 
+	 * 		or {@code "ISO-8859-1"}.
+	 * @return 
+	 * 		PrintWriter object ready to write in the file.
+	 * 
+	 * @throws FileNotFoundException
+	 * 		Problem while accessing the file.
+	 * @throws UnsupportedEncodingException
+	 * 		Could not handle the encoding.
+	 */
+	public static PrintWriter openTextFileAppend(String filePath, String encoding) throws UnsupportedEncodingException, FileNotFoundException
+	{	FileOutputStream fos = new FileOutputStream(filePath, true);
+		OutputStreamWriter osw = new OutputStreamWriter(fos,encoding);
+		PrintWriter result = new PrintWriter(osw);
+		return result;
+	}
 
 	/**
 	 * Records the specified String in a text file.
@@ -379,6 +412,31 @@ public class FileTools
 		return result;
 	}
 	
+	/**
+	 * Replaces the target file by the specified temporary file, 
+	 * atomically if the file system allows it. This way, the target
+	 * file is never left half-written, and it is replaced by a new 
+	 * file rather than overwritten in place (which fails on certain 
+	 * systems when the file is still open or mapped).
+	 * 
+	 * @param tempFile
+	 * 		Completely written file, which must be located on the
+	 * 		same file system as the target.
+	 * @param targetFile
+	 * 		File to replace.
+	 * 
+	 * @throws IOException
+	 * 		Problem while moving the file.
+	 */
+	public static void replaceFile(File tempFile, File targetFile) throws IOException
+	{	try
+		{	Files.move(tempFile.toPath(), targetFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		}
+		catch(AtomicMoveNotSupportedException e)
+		{	Files.move(tempFile.toPath(), targetFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		}
+	}
+	
 	/////////////////////////////////////////////////////////////////
 	// COPY				/////////////////////////////////////////////
 	/////////////////////////////////////////////////////////////////
@@ -474,6 +532,191 @@ public class FileTools
 		return result;
 	}
 	
+	/////////////////////////////////////////////////////////////////
+	// HASH				/////////////////////////////////////////////
+	/////////////////////////////////////////////////////////////////
+	/**
+	 * Computes a SHA-256 hash of the content of the specified
+	 * files, taken in the specified order. Missing files are allowed,
+	 * and hashed differently from empty files. The result can be used
+	 * to detect a modification of any of the files.
+	 * 
+	 * @param filePaths
+	 * 		Paths of the files to hash.
+	 * @return
+	 * 		Hexadecimal representation of the hash.
+	 * 
+	 * @throws IOException
+	 * 		Problem while reading one of the files.
+	 */
+	public static String hashFiles(String... filePaths) throws IOException
+	{	MessageDigest digest = createDigest();
+		byte[] buffer = new byte[1 << 16];
+		for(String filePath: filePaths)
+		{	File file = new File(filePath);
+			digest.update(filePath.getBytes(StandardCharsets.UTF_8));
+			if(!file.exists())
+				digest.update((byte)0);
+			else
+			{	digest.update((byte)1);
+				updateDigest(digest, file, buffer);
+			}
+		}
+		
+		String result = toHex(digest.digest());
+		return result;
+	}
+	
+	/**
+	 * Computes a SHA-256 hash of the compiled code containing the
+	 * specified class, i.e. the content of its class folder or of its
+	 * jar file. The result can be used to detect that the program was
+	 * modified, for instance to invalidate the files it cached.
+	 * 
+	 * @param cls
+	 * 		Class of the program of interest.
+	 * @return
+	 * 		Hexadecimal representation of the hash, or an empty
+	 * 		string if the location of the code is unknown.
+	 * 
+	 * @throws IOException
+	 * 		Problem while reading the code.
+	 */
+	public static String hashCodeSource(Class<?> cls) throws IOException
+	{	String result = "";
+		
+		CodeSource source = cls.getProtectionDomain().getCodeSource();
+		if(source!=null && source.getLocation()!=null)
+		{	File root;
+			try
+			{	root = new File(source.getLocation().toURI());
+			}
+			catch(URISyntaxException e)
+			{	throw new IOException("Invalid code location ("+source.getLocation()+")", e);
+			}
+			
+			MessageDigest digest = createDigest();
+			byte[] buffer = new byte[1 << 16];
+			if(root.isDirectory())
+			{	List<File> files = new ArrayList<File>();
+				listClassFiles(root, files);
+				int prefix = root.getPath().length();
+				for(File file: files)
+				{	digest.update(file.getPath().substring(prefix).getBytes(StandardCharsets.UTF_8));
+					updateDigest(digest, file, buffer);
+				}
+			}
+			else if(root.exists())
+				updateDigest(digest, root, buffer);
+			result = toHex(digest.digest());
+		}
+		
+		return result;
+	}
+	
+	/**
+	 * Recursively lists the class files contained in the specified
+	 * folder, in a deterministic order.
+	 * 
+	 * @param folder
+	 * 		Folder to explore.
+	 * @param files
+	 * 		List completed with the class files.
+	 */
+	private static void listClassFiles(File folder, List<File> files)
+	{	File[] content = folder.listFiles();
+		Arrays.sort(content);
+		for(File file: content)
+		{	if(file.isDirectory())
+				listClassFiles(file, files);
+			else if(file.getName().endsWith(".class"))
+				files.add(file);
+		}
+	}
+	
+	/**
+	 * Adds the content of the specified file to the 
+	 * specified digest.
+	 * 
+	 * @param digest
+	 * 		Digest to update.
+	 * @param file
+	 * 		File to read.
+	 * @param buffer
+	 * 		Buffer used to read the file.
+	 * 
+	 * @throws IOException
+	 * 		Problem while reading the file.
+	 */
+	private static void updateDigest(MessageDigest digest, File file, byte[] buffer) throws IOException
+	{	FileInputStream fis = new FileInputStream(file);
+		try
+		{	int read = fis.read(buffer);
+			while(read>=0)
+			{	digest.update(buffer, 0, read);
+				read = fis.read(buffer);
+			}
+		}
+		finally
+		{	fis.close();
+		}
+	}
+	
+	/**
+	 * Computes a SHA-256 hash of the specified bytes, for
+	 * instance the text of a record read from a file.
+	 * 
+	 * @param bytes
+	 * 		Array containing the bytes to hash.
+	 * @param offset
+	 * 		Position of the first byte to hash.
+	 * @param length
+	 * 		Number of bytes to hash.
+	 * @return
+	 * 		Hexadecimal representation of the hash.
+	 */
+	public static String hashBytes(byte[] bytes, int offset, int length)
+	{	MessageDigest digest = createDigest();
+		digest.update(bytes, offset, length);
+		String result = toHex(digest.digest());
+		return result;
+	}
+	
+	/**
+	 * Creates the object used to compute the SHA-256 hashes.
+	 * 
+	 * @return
+	 * 		A new digest object.
+	 */
+	private static MessageDigest createDigest()
+	{	MessageDigest result;
+		try
+		{	result = MessageDigest.getInstance("SHA-256");
+		}
+		catch(NoSuchAlgorithmException e)
+		{	throw new IllegalArgumentException("Hash algorithm not available (SHA-256)", e);
+		}
+		return result;
+	}
+	
+	/**
+	 * Returns the hexadecimal representation of
+	 * the specified hash.
+	 * 
+	 * @param hash
+	 * 		Bytes of the hash.
+	 * @return
+	 * 		The corresponding string.
+	 */
+	private static String toHex(byte[] hash)
+	{	char[] result = new char[2*hash.length];
+		for(int i=0;i<hash.length;i++)
+		{	result[2*i] = Character.forDigit((hash[i]>>4) & 0xF, 16);
+			result[2*i+1] = Character.forDigit(hash[i] & 0xF, 16);
+		}
+		return new String(result);
+	}
+	
 	/////////////////////////////////////////////////////////////////
 	// LIST				/////////////////////////////////////////////
 	/////////////////////////////////////////////////////////////////
@@ -19,6 +19,7 @@ package fr.univavignon.tools.log;
  */
 
 import java.util.Collection;
+import java.util.logging.Level;
 import java.util.logging.LogRecord;
 import java.util.logging.SimpleFormatter;
 
@@ -94,6 +95,8 @@ public class HierarchicalFormatter extends SimpleFormatter
 			String lvl = "";
 			for(int i=0;i<offset;i++)
 				lvl = lvl + ".";
+			if(record.getLevel().intValue()>Level.INFO.intValue())
+				lvl = lvl + record.getLevel().getName() + ": ";
 			if(threadNbr!=null)
 			{	hour = hour + "(" + threadNbr + ") ";
 				space = space + "    ";
@@ -169,6 +169,28 @@ public class HierarchicalLogger
 		return result;
 	}
 	
+	/**
+	 * Makes the current thread use the logger of the specified thread
+	 * (and thus its log file), instead of creating its own. This is
+	 * meant for worker threads: their messages start at the current
+	 * offset of the specified thread, which is copied again at each call
+	 * (a pooled thread calls this method for each task it runs). Nothing 
+	 * happens if the specified thread has not logged anything yet.
+	 * 
+	 * @param thread
+	 * 		Thread whose logger must be shared.
+	 */
+	public synchronized void shareLogger(Thread thread)
+	{	long id = Thread.currentThread().getId();
+		Logger logger = loggerMap.get(thread.getId());
+		if(logger!=null)
+		{	loggerMap.put(id,logger);
+			offsetMapLock.lock();
+				offsetMap.put(id,offsetMap.get(thread.getId()));
+			offsetMapLock.unlock();
+		}
+	}
+	
 	/////////////////////////////////////////////////////////////////
 	// FILES			/////////////////////////////////////////////
 	/////////////////////////////////////////////////////////////////
@@ -239,6 +261,22 @@ public class HierarchicalLogger
 		offsetMapLock.unlock();
 		return result;
 	}
+	
+	/**
+	 * Changes the offset associated to the current
+	 * thread, for instance to restore the offset
+	 * retrieved with {@link #getOffset()} after an
+	 * exception interrupted the processing.
+	 * 
+	 * @param offset
+	 * 		The new offset of the current thread.
+	 */
+	public void setOffset(int offset)
+	{	long id = Thread.currentThread().getId();
+		offsetMapLock.lock();
+			offsetMap.put(id,offset);
+		offsetMapLock.unlock();
+	}
     
 	/////////////////////////////////////////////////////////////////
 	// LOGGING		/////////////////////////////////////////////////
@@ -262,12 +300,37 @@ public class HierarchicalLogger
      * 		The collection of messages to be logged.
      */
     public void log(Collection<String> msg)
+    {	log(Level.INFO,msg);
+    }
+
+    /**
+     * Logs a new warning message.
+     * 
+     * @param msg 
+     * 		The warning message to be logged.
+     */
+    public void logWarning(String msg)
+    {	List<String> msgs = new ArrayList<String>();
+    	msgs.add(msg);
+    	log(Level.WARNING,msgs);
+    }
+
+    /**
+     * Logs a collection of new messages
+     * with the specified level.
+     * 
+     * @param level
+     * 		Level of the messages.
+     * @param msg 
+     * 		The collection of messages to be logged.
+     */
+    private void log(Level level, Collection<String> msg)
     {	if(enabled)
     	{	if(msg==null || msg.isEmpty())
 				msg = Arrays.asList("");
 			Logger logger = getLogger();
     		Object params[] = {msg,getOffset()};
-    		logger.log(Level.INFO,msg.iterator().next(),params);
+    		logger.log(level,msg.iterator().next(),params);
     	}
     }
 }
@@ -19,8 +19,12 @@ package fr.univavignon.tools.time;
  */
 
 import java.text.ParseException;
-import java.text.SimpleDateFormat;
-import java.util.Calendar;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
 import java.util.Date;
 import java.util.Locale;
 
@@ -39,8 +43,8 @@ public class TimeFormatting
 	/////////////////////////////////////////////////////////////////
 	/** pattern used to format an hour */
 	private static final String HOUR_PATTERN = "HH:mm:ss";
-	/** format an hour */
-	private static final SimpleDateFormat HOUR_FORMAT = new SimpleDateFormat(HOUR_PATTERN,Locale.ENGLISH);
+	/** format an hour (thread-safe) */
+	private static final DateTimeFormatter HOUR_FORMAT = DateTimeFormatter.ofPattern(HOUR_PATTERN,Locale.ENGLISH).withZone(ZoneId.systemDefault());
 	
 	/**
 	 * Returns a string representation of the current hour.
@@ -49,8 +53,7 @@ public class TimeFormatting
 	 * 		A string representing the current hour.
 	 */
 	public static String formatCurrentHour()
-	{	Calendar cal = Calendar.getInstance();
-	    String result = HOUR_FORMAT.format(cal.getTime());
+	{	String result = HOUR_FORMAT.format(Instant.now());
 		return result;
 	}
 	
@@ -59,8 +62,8 @@ public class TimeFormatting
 	/////////////////////////////////////////////////////////////////
 	/** pattern used to format a date */
 	private static final String DATE_PATTERN = "yyyy-MM-dd";
-	/** format a date */
-	private static final SimpleDateFormat DATE_FORMAT = new SimpleDateFormat(DATE_PATTERN,Locale.ENGLISH);
+	/** format a date (thread-safe) */
+	private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern(DATE_PATTERN,Locale.ENGLISH).withZone(ZoneId.systemDefault());
 	
 	/**
 	 * Returns a string representation of the current date.
@@ -69,8 +72,7 @@ public class TimeFormatting
 	 * 		A string representing the current date.
 	 */
 	public static String formatCurrentDate()
-	{	Calendar cal = Calendar.getInstance();
-		String result = DATE_FORMAT.format(cal.getTime());
+	{	String result = DATE_FORMAT.format(Instant.now());
 		return result;
 	}
 
@@ -83,7 +85,7 @@ public class TimeFormatting
 	 * 		A string representing the specified date.
 	 */
 	public static String formatDate(Date date)
-	{	String result = DATE_FORMAT.format(date);
+	{	String result = DATE_FORMAT.format(date.toInstant());
 		return result;
 	}
 	
@@ -100,8 +102,14 @@ public class TimeFormatting
 	 * 		Problem while parsing the string.
 	 */
 	public static Date parseDate(String dateStr) throws ParseException
-	{	Date result = DATE_FORMAT.parse(dateStr);
-		return result;
+	{	try
+		{	LocalDate date = LocalDate.parse(dateStr, DATE_FORMAT);
+			Date result = Date.from(date.atStartOfDay(ZoneId.systemDefault()).toInstant());
+			return result;
+		}
+		catch(DateTimeParseException e)
+		{	throw new ParseException(e.getMessage(), e.getErrorIndex());
+		}
 	}
 	
 	/////////////////////////////////////////////////////////////////
@@ -109,8 +117,8 @@ public class TimeFormatting
 	/////////////////////////////////////////////////////////////////
 	/** pattern used to format a date and hour in XML files */
 	private static final String TIME_PATTERN_XML = "yyyy-MM-dd'T'HH:mm:ss";
-	/** format a date and hour in XML files*/
-	public static final SimpleDateFormat TIME_FORMAT_XML = new SimpleDateFormat(TIME_PATTERN_XML,Locale.ENGLISH);
+	/** format a date and hour in XML files (thread-safe) */
+	private static final DateTimeFormatter TIME_FORMAT_XML = DateTimeFormatter.ofPattern(TIME_PATTERN_XML,Locale.ENGLISH).withZone(ZoneId.systemDefault());
 	
 	/**
 	 * Returns an XML string representation of the current date & hour.
@@ -119,8 +127,7 @@ public class TimeFormatting
 	 * 		An XML string representing the current date & hour.
 	 */
 	public static String formatCurrentXmlTime()
-	{	Calendar cal = Calendar.getInstance();
-	    String result = TIME_FORMAT_XML.format(cal.getTime());
+	{	String result = TIME_FORMAT_XML.format(Instant.now());
 		return result;
 	}
 	
@@ -134,9 +141,7 @@ public class TimeFormatting
 	 * 		An XML string representing the specified time in terms of date & hour.
 	 */
 	public static String formatXmlTime(long time)
-	{	Calendar cal = Calendar.getInstance();
-		cal.setTimeInMillis(time);
-		String result =  TIME_FORMAT_XML.format(cal.getTime());
+	{	String result =  TIME_FORMAT_XML.format(Instant.ofEpochMilli(time));
 		return result;
 	}
 	
@@ -150,7 +155,7 @@ public class TimeFormatting
 	 * 		An XML string representing the specified time in terms of date & hour.
 	 */
 	public static String formatXmlTime(Date date)
-	{	String result =  TIME_FORMAT_XML.format(date);
+	{	String result =  TIME_FORMAT_XML.format(date.toInstant());
 		return result;
 	}
 	
@@ -167,8 +172,14 @@ public class TimeFormatting
 	 * 		Problem while parsing the string.
 	 */
 	public static Date parseXmlTime(String timeStr) throws ParseException
-	{	Date result = TIME_FORMAT_XML.parse(timeStr);
-		return result;
+	{	try
+		{	LocalDateTime time = LocalDateTime.parse(timeStr, TIME_FORMAT_XML);
+			Date result = Date.from(time.atZone(ZoneId.systemDefault()).toInstant());
+			return result;
+		}
+		catch(DateTimeParseException e)
+		{	throw new ParseException(e.getMessage(), e.getErrorIndex());
+		}
 	}
 	
 	/////////////////////////////////////////////////////////////////
@@ -176,8 +187,8 @@ public class TimeFormatting
 	/////////////////////////////////////////////////////////////////
 	/** pattern used to format a date and hour in file names */
 	private static final String TIME_PATTERN_FILE = "yyyy-MM-dd.HH-mm-ss";
-	/** format a date and hour in file names */
-	public static final SimpleDateFormat TIME_FORMAT_FILE = new SimpleDateFormat(TIME_PATTERN_FILE,Locale.ENGLISH);
+	/** format a date and hour in file names (thread-safe) */
+	private static final DateTimeFormatter TIME_FORMAT_FILE = DateTimeFormatter.ofPattern(TIME_PATTERN_FILE,Locale.ENGLISH).withZone(ZoneId.systemDefault());
 
 	/**
 	 * Returns a filename-compatible string representation 
@@ -187,8 +198,7 @@ public class TimeFormatting
 	 * 		A filename-compatible string representing the current date & hour.
 	 */
 	public static String formatCurrentFileTime()
-	{	Calendar cal = Calendar.getInstance();
-	    String result = TIME_FORMAT_FILE.format(cal.getTime());
+	{	String result = TIME_FORMAT_FILE.format(Instant.now());
 		return result;
 	}
 	
@@ -203,9 +213,7 @@ public class TimeFormatting
 	 * 		specified time in terms of date & hour.
 	 */
 	public static String formatFileTime(long time)
-	{	Calendar cal = Calendar.getInstance();
-		cal.setTimeInMillis(time);
-		String result = TIME_FORMAT_FILE.format(cal.getTime());
+	{	String result = TIME_FORMAT_FILE.format(Instant.ofEpochMilli(time));
 		return result;
 	}
 	
@@ -220,7 +228,7 @@ public class TimeFormatting
 	 * 		specified time in terms of date & hour.
 	 */
 	public static String formatFileTime(Date date)
-	{	String result = TIME_FORMAT_FILE.format(date);
+	{	String result = TIME_FORMAT_FILE.format(date.toInstant());
 		return result;
 	}
 	
@@ -18,10 +18,6 @@ package fr.univavignon.tools.xml;
  * along with CommonTools. If not, see <http://www.gnu.org/licenses/>.
  */
 
-import java.util.Map;
-import java.util.Map.Entry;
-
-import org.jdom2.Element;
 import org.jdom2.Namespace;
 
 /**
@@ -87,31 +83,4 @@ public class GraphmlTools
 	public static final String VAL_DIRECTED = "directed";
 	/** Graphml attribute value */
 	public static final String VAL_UNDIRECTED = "undirected";
-
-	/////////////////////////////////////////////////////////////////
-	// PROCESS				/////////////////////////////////////////
-	/////////////////////////////////////////////////////////////////
-	/**
-	 * Adds the property values to the specified Graphml element.
-	 * 
-	 * @param properties
-	 * 		Map of property values.
-	 * @param mode
-	 * 		Type of concerned object (graph, node, edge).
-	 * @param element
-	 * 		Element of the Graphml document.
-	 */
-	public static void exportPropertyValues(Map<String,String> properties, String mode, Element element)
-	{	for(Entry<String,String> entry: properties.entrySet())
-		{	String property = entry.getKey();
-			String value = entry.getValue();
-			Element dataElt = new Element(GraphmlTools.ELT_DATA, GraphmlTools.NAMESPACE);
-			
-			String keyStr = mode.subSequence(0,1) + "_" + property;
-			dataElt.setAttribute(GraphmlTools.ATT_KEY,keyStr);
-			dataElt.setText(value);
-			
-			element.addContent(dataElt);
-		}
-	}
 }